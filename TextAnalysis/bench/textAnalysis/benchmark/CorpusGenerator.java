@@ -0,0 +1,145 @@
+package textAnalysis.benchmark;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Generates synthetic English-like corpora for benchmarking: words drawn from a fixed vocabulary with either a
+ * Zipfian distribution (a few very common words, a long tail of rare ones, as in real text) or a uniform one (every
+ * word equally likely, which maximizes the number of distinct words seen). Sentences of varying length end in ., ?
+ * or !, start with a capital letter, and contain some commas and quotes so that normalization has work to do.
+ * Output is deterministic for a given seed.
+ * @author Leo Mishlove
+ *
+ */
+public class CorpusGenerator {
+
+	/**
+	 * How often each vocabulary word is drawn.
+	 */
+	public enum Distribution {
+		/** frequency of the word of rank r proportional to 1 / r (exponent 1, as in natural language) */
+		ZIPFIAN,
+		/** every word equally likely */
+		UNIFORM
+	}
+
+	private static final char[] LETTERS = "etaoinshrdlcumwfgypbvkjxqz".toCharArray();
+	private static final char[] SENTENCE_ENDS = {'.', '.', '.', '.', '?', '!'};
+
+	private final String[] vocabulary;
+	private final double[] cumulativeProbabilities;
+	private final Random random;
+
+
+	/**
+	 * Creates a generator.
+	 * @param vocabularySize the number of distinct words to draw from
+	 * @param distribution how often each word is drawn
+	 * @param seed the random seed
+	 */
+	public CorpusGenerator(int vocabularySize, Distribution distribution, long seed) {
+		this.random = new Random(seed);
+		this.vocabulary = new String[vocabularySize];
+		for (int i = 0; i < vocabularySize; i++) {
+			vocabulary[i] = makeWord(i);
+		}
+
+		/* cumulative distribution over ranks, sampled by binary search */
+		cumulativeProbabilities = new double[vocabularySize];
+		double total = 0;
+		for (int rank = 0; rank < vocabularySize; rank++) {
+			total += distribution == Distribution.ZIPFIAN ? 1.0 / (rank + 1) : 1.0;
+			cumulativeProbabilities[rank] = total;
+		}
+		for (int rank = 0; rank < vocabularySize; rank++) {
+			cumulativeProbabilities[rank] /= total;
+		}
+	}
+
+
+	/**
+	 * Writes a corpus of (at least) a given size, unless the file already exists with that size or more, so that
+	 * large corpora are only generated once.
+	 * @param targetFile the file to write
+	 * @param targetBytes the size to reach
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeCorpus(File targetFile, long targetBytes) throws IOException {
+		if (targetFile.isFile() && targetFile.length() >= targetBytes) {
+			return;
+		}
+
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(targetFile), 1 << 16)) {
+			StringBuilder sentence = new StringBuilder();
+			long written = 0;
+			while (written < targetBytes) {
+				sentence.setLength(0);
+				appendSentence(sentence);
+				byte[] bytes = sentence.toString().getBytes(StandardCharsets.UTF_8);
+				out.write(bytes);
+				written += bytes.length;
+			}
+		}
+	}
+
+
+	/**
+	 * Appends one sentence of 4 to 30 words, followed by a space or a line break.
+	 * @param sentence the builder to append to
+	 */
+	private void appendSentence(StringBuilder sentence) {
+		int words = 4 + random.nextInt(27);
+		for (int i = 0; i < words; i++) {
+			String word = nextWord();
+			if (i == 0) {													//capitalize the first word
+				sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+			} else if (random.nextInt(40) == 0) {							//occasional quoted word
+				sentence.append('"').append(word).append('"');
+			} else {
+				sentence.append(word);
+			}
+
+			if (i < words - 1) {
+				sentence.append(random.nextInt(12) == 0 ? ", " : " ");
+			}
+		}
+		sentence.append(SENTENCE_ENDS[random.nextInt(SENTENCE_ENDS.length)]);
+		sentence.append(random.nextInt(8) == 0 ? '\n' : ' ');
+	}
+
+
+	/**
+	 * @return a word drawn from the vocabulary according to the distribution
+	 */
+	private String nextWord() {
+		int rank = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+		if (rank < 0) {
+			rank = -rank - 1;
+		}
+		return vocabulary[Math.min(rank, vocabulary.length - 1)];
+	}
+
+
+	/**
+	 * Makes the [index]-th vocabulary word, a distinct lowercase string that tends to be shorter for lower indices
+	 * (so frequent words are short, as in real text).
+	 * @param index the word's index in the vocabulary
+	 * @return the word
+	 */
+	private static String makeWord(int index) {
+		StringBuilder word = new StringBuilder();
+		int remaining = index;
+		do {														//bijective base-26 numbering: a, b, ..., z, aa, ab, ...
+			word.append(LETTERS[remaining % LETTERS.length]);
+			remaining = remaining / LETTERS.length - 1;
+		} while (remaining >= 0);
+		return word.toString();
+	}
+}
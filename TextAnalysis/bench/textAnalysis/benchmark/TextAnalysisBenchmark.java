@@ -0,0 +1,211 @@
+package textAnalysis.benchmark;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import textAnalysis.AnalysisResult;
+import textAnalysis.InternedWordCounter;
+import textAnalysis.OffHeapWordCounter;
+import textAnalysis.SentenceIndex;
+import textAnalysis.TextAnalysis;
+import textAnalysis.WordCounter;
+
+
+/**
+ * JMH benchmarks of every TextAnalysis operation against generated corpora, so that a change to countWords,
+ * calculateWordFrequencies, findMostFrequentWords or lastOccurrence (or their faster variants) can be checked for
+ * regressions. Each invocation is sampled (Mode.SampleTime), so JMH reports the latency distribution, including p50
+ * and p99, over every measured invocation; throughput in MB/s is the corpus size divided by the mean. Run with
+ * -prof gc for the allocation rate per operation (gc.alloc.rate.norm).
+ *
+ * Usage: ./gradlew jmh --args='[JMH options]', e.g. --args='-p size=1MB -p distribution=ZIPFIAN -prof gc countWords'
+ * Corpora are generated once into [java.io.tmpdir]/textAnalysis-bench and reused. The original Scanner-based methods
+ * take minutes per invocation at 1 GB.
+ * @author Leo Mishlove
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class TextAnalysisBenchmark {
+
+	private static final int VOCABULARY_SIZE = 200_000;
+	private static final long SEED = 42;
+	private static final int WORDS_DESIRED = 10;
+
+	/* corpus size, with a KB, MB or GB suffix */
+	@Param({"1MB", "100MB", "1GB"})
+	public String size;
+
+	@Param({"ZIPFIAN", "UNIFORM"})
+	public CorpusGenerator.Distribution distribution;
+
+	private File corpus;
+	private WordCounter frequencies;
+	private String queryWord;
+	private SentenceIndex index;
+
+
+	/**
+	 * Generates the corpus (if needed) and prepares the inputs of the query benchmarks, outside the measurement.
+	 * @throws IOException if the corpus cannot be written or read
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		long bytes = parseSize(size);
+		File corpusDirectory = new File(System.getProperty("java.io.tmpdir"), "textAnalysis-bench");
+		corpusDirectory.mkdirs();
+		corpus = new File(corpusDirectory,
+				"corpus-" + formatSize(bytes) + "-" + distribution.name().toLowerCase(Locale.ROOT) + ".txt");
+		new CorpusGenerator(VOCABULARY_SIZE, distribution, SEED).writeCorpus(corpus, bytes);
+
+		frequencies = TextAnalysis.countWordFrequencies(corpus);
+		queryWord = TextAnalysis.findMostFrequentWords(frequencies, 1).get(0);
+		index = TextAnalysis.buildSentenceIndex(corpus);
+	}
+
+
+	/**
+	 * Releases the sentence index.
+	 * @throws IOException if the index cannot be closed
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		index.close();
+	}
+
+
+	@Benchmark
+	public int countWords() throws IOException {
+		return TextAnalysis.countWords(corpus);							//mapped tokenizer, no Strings
+	}
+
+
+	@Benchmark
+	public HashMap<String, Integer> calculateWordFrequencies() throws IOException {
+		return TextAnalysis.calculateWordFrequencies(corpus, TextAnalysis.countWords(corpus));	//Scanner + HashMap
+	}
+
+
+	@Benchmark
+	public WordCounter countWordFrequencies() throws IOException {
+		return TextAnalysis.countWordFrequencies(corpus);				//mapped tokenizer + WordCounter
+	}
+
+
+	@Benchmark
+	public WordCounter countWordFrequenciesParallel() throws IOException {
+		return TextAnalysis.countWordFrequenciesParallel(corpus);		//fork/join over file chunks
+	}
+
+
+	@Benchmark
+	public long countWordFrequenciesOffHeap() throws IOException {
+		try (OffHeapWordCounter counter = TextAnalysis.countWordFrequenciesOffHeap(corpus)) {	//vocabulary in direct memory
+			return counter.sizeLong();
+		}
+	}
+
+
+	@Benchmark
+	public InternedWordCounter countWordFrequenciesInterned() throws IOException {
+		return TextAnalysis.countWordFrequenciesInterned(corpus);		//vocabulary IDs + int[] counts
+	}
+
+
+	@Benchmark
+	public AnalysisResult analyze() throws IOException {
+		return TextAnalysis.analyze(corpus);							//single-pass engine
+	}
+
+
+	@Benchmark
+	public long estimateDistinctWords() throws IOException {
+		return TextAnalysis.estimateDistinctWords(corpus, 0.01);		//HyperLogLog, 1% error
+	}
+
+
+	@Benchmark
+	public List<String> findMostFrequentWords() {
+		return TextAnalysis.findMostFrequentWords(frequencies, WORDS_DESIRED);	//top-k over a precomputed vocabulary
+	}
+
+
+	@Benchmark
+	public List<String> findMostFrequentWordsParallel() {
+		return TextAnalysis.findMostFrequentWordsParallel(frequencies, WORDS_DESIRED);
+	}
+
+
+	@Benchmark
+	public String lastOccurrence() throws IOException {
+		return TextAnalysis.lastOccurrence(corpus, queryWord);			//original full scan, one query
+	}
+
+
+	@Benchmark
+	public String lastOccurrenceReverse() throws IOException {
+		return TextAnalysis.lastOccurrenceReverse(corpus, queryWord);	//backwards block scan, stops at the match
+	}
+
+
+	@Benchmark
+	public String sentenceIndexLastOccurrence() throws IOException {
+		return index.lastOccurrence(queryWord);							//lookup in a prebuilt index, one query
+	}
+
+
+	/**
+	 * Parses sizes such as "1MB", "100MB" or "1GB".
+	 * @param size a size with a KB, MB or GB suffix (or none, for bytes)
+	 * @return the size in bytes
+	 */
+	private static long parseSize(String size) {
+		size = size.trim().toUpperCase(Locale.ROOT);
+		long multiplier = 1;
+		if (size.endsWith("KB")) {
+			multiplier = 1L << 10;
+		} else if (size.endsWith("MB")) {
+			multiplier = 1L << 20;
+		} else if (size.endsWith("GB")) {
+			multiplier = 1L << 30;
+		}
+		return Long.parseLong(size.replaceAll("[A-Z]", "")) * multiplier;
+	}
+
+
+	/**
+	 * @param bytes a size in bytes
+	 * @return the size rounded to the largest whole unit, e.g. "100MB"
+	 */
+	private static String formatSize(long bytes) {
+		if (bytes >= 1L << 30) {
+			return (bytes >> 30) + "GB";
+		} else if (bytes >= 1L << 20) {
+			return (bytes >> 20) + "MB";
+		} else if (bytes >= 1L << 10) {
+			return (bytes >> 10) + "KB";
+		}
+		return bytes + "B";
+	}
+}
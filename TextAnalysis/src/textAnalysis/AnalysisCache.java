@@ -0,0 +1,289 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Caches the results of {@link TextAnalysis#countWords}, {@link TextAnalysis#calculateWordFrequencies} and
+ * {@link TextAnalysis#lastOccurrence}, so that analyzing an unchanged file again costs a lookup instead of a scan.
+ * Results are keyed by the file's canonical path and size and by either its modification time or a CRC-32 of its
+ * contents. The CRC is only computed when the size or time differs from the file's previous lookup, so a file that
+ * was touched but not changed keeps its results at the cost of one read (no tokenizing), and an unchanged file costs
+ * no read at all. Either way, a change that keeps both the size and the time is missed. Results of a file that has
+ * since changed are never returned, and are dropped as soon as the change is noticed. The cache is bounded by the
+ * approximate size in bytes of the cached results, evicting the least recently used ones. It is safe for concurrent
+ * use: callers asking for the same result at once share one scan.
+ * @author Leo Mishlove
+ *
+ */
+public class AnalysisCache {
+
+	/**
+	 * How a cache tells whether a file has changed since its results were cached.
+	 */
+	public enum Validation {
+		/** by the file's size and modification time */
+		MODIFICATION_TIME,
+		/** by the file's size and a CRC-32 of its contents, recomputed only if the size or modification time changed */
+		CONTENT_HASH
+	}
+
+	/** size of the cached results kept unless given */
+	public static final long DEFAULT_MAXIMUM_BYTES = 64 << 20;
+
+	/* rough heap sizes used to weigh results: a String's header and array header, a map entry with its table slot,
+	 * and a cache entry with its key */
+	private static final long STRING_OVERHEAD = 40;
+	private static final long MAP_ENTRY_OVERHEAD = 64;
+	private static final long CACHE_ENTRY_OVERHEAD = 128;
+
+	private final Validation validation;
+	private final LruCache<Key, Object> results;
+
+	/* canonical path -> the key of the file's version last looked up (its operation and word are not used) */
+	private final ConcurrentHashMap<String, Key> versions = new ConcurrentHashMap<String, Key>();
+
+
+	/**
+	 * Creates an empty cache of at most DEFAULT_MAXIMUM_BYTES, validated by modification time.
+	 */
+	public AnalysisCache() {
+		this(DEFAULT_MAXIMUM_BYTES, Validation.MODIFICATION_TIME);
+	}
+
+
+	/**
+	 * Creates an empty cache.
+	 * @param maximumBytes the largest approximate size of the cached results, in bytes
+	 * @param validation how to tell whether a file has changed
+	 */
+	public AnalysisCache(long maximumBytes, Validation validation) {
+		this.validation = Objects.requireNonNull(validation);
+		this.results = new LruCache<Key, Object>(maximumBytes, AnalysisCache::weigh);
+	}
+
+
+	/**
+	 * Counts the number of words in a piece of text, as {@link TextAnalysis#countWords} does.
+	 * @param sourceFile the file containing the source text
+	 * @return the word count for the text
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public int countWords(File sourceFile) throws IOException {
+		return (Integer) results.get(key(sourceFile, Operation.COUNT_WORDS, null),
+				key -> TextAnalysis.countWords(sourceFile));
+	}
+
+
+	/**
+	 * Finds the frequency of every unique word in a piece of text, as {@link TextAnalysis#calculateWordFrequencies}
+	 * does. The map is shared by every caller that gets it from the cache, so it cannot be modified.
+	 * @param sourceFile the file containing the source text
+	 * @return an unmodifiable map from each word to its frequency
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Integer> calculateWordFrequencies(File sourceFile) throws IOException {
+		return (Map<String, Integer>) results.get(key(sourceFile, Operation.WORD_FREQUENCIES, null),
+				key -> Collections.unmodifiableMap(TextAnalysis.calculateWordFrequencies(sourceFile)));
+	}
+
+
+	/**
+	 * Finds the last sentence in a text file that contains a given word, as {@link TextAnalysis#lastOccurrence} does.
+	 * @param sourceFile the file containing the source text
+	 * @param word the word to search for
+	 * @return the last sentence containing the word
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public String lastOccurrence(File sourceFile, String word) throws IOException {
+		return (String) results.get(key(sourceFile, Operation.LAST_OCCURRENCE, Objects.requireNonNull(word)),
+				key -> TextAnalysis.lastOccurrence(sourceFile, word));
+	}
+
+
+	/**
+	 * Removes every cached result for a file.
+	 * @param sourceFile the file
+	 * @throws IOException if the file's canonical path cannot be found
+	 */
+	public void invalidate(File sourceFile) throws IOException {
+		String path = sourceFile.getCanonicalPath();
+		versions.remove(path);
+		results.invalidateIf(key -> key.path.equals(path));
+	}
+
+
+	/**
+	 * Removes every cached result.
+	 */
+	public void clear() {
+		versions.clear();
+		results.clear();
+	}
+
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return results.getHitCount();
+	}
+
+
+	/**
+	 * @return the number of lookups that had to analyze the file
+	 */
+	public long getMissCount() {
+		return results.getMissCount();
+	}
+
+
+	/**
+	 * @return the fraction of lookups answered from the cache (0 if there have been none)
+	 */
+	public double getHitRate() {
+		return results.getHitRate();
+	}
+
+
+	/**
+	 * @return the number of results evicted to stay within the maximum size
+	 */
+	public long getEvictionCount() {
+		return results.getEvictionCount();
+	}
+
+
+	/**
+	 * @return the approximate size of the cached results, in bytes
+	 */
+	public long getSize() {
+		return results.getWeight();
+	}
+
+
+	/**
+	 * Identifies the current version of a file and the result wanted from it, and drops the results of the file's
+	 * previous version if it has changed. The file is examined before it is analyzed, so a change made during the
+	 * analysis leaves the result under the old version, where it is not found.
+	 * @param sourceFile the file
+	 * @param operation the analysis
+	 * @param word the word searched for, or null
+	 * @return the key
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read (to hash it)
+	 */
+	private Key key(File sourceFile, Operation operation, String word) throws IOException {
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		String path = sourceFile.getCanonicalPath();
+		long length = sourceFile.length();
+		long lastModified = sourceFile.lastModified();
+		long version = lastModified;
+		if (validation == Validation.CONTENT_HASH) {
+			Key last = versions.get(path);
+			if (last != null && last.length == length && last.lastModified == lastModified) {
+				version = last.version;								//same size and time: reuse its hash
+			} else {
+				version = Checksums.crc32(sourceFile);
+			}
+		}
+		Key key = new Key(path, length, lastModified, version, operation, word);
+
+		Key previous = versions.put(key.path, key);
+		if (previous != null && !key.sameVersion(previous)) {
+			results.invalidateIf(cached -> cached.path.equals(key.path) && !key.sameVersion(cached));
+		}
+		return key;
+	}
+
+
+	/**
+	 * @param key a result's key
+	 * @param result the result
+	 * @return the approximate size of the entry, in bytes
+	 */
+	private static long weigh(Key key, Object result) {
+		long weight = CACHE_ENTRY_OVERHEAD + sizeOf(key.path) + (key.word != null ? sizeOf(key.word) : 0);
+		if (result instanceof String) {
+			weight += sizeOf((String) result);
+		} else if (result instanceof Map) {
+			for (Object word : ((Map<?, ?>) result).keySet()) {
+				weight += MAP_ENTRY_OVERHEAD + sizeOf((String) word);
+			}
+		}
+		return weight;
+	}
+
+
+	/**
+	 * @param string a String
+	 * @return its approximate size, in bytes
+	 */
+	private static long sizeOf(String string) {
+		return STRING_OVERHEAD + 2L * string.length();
+	}
+
+
+	/**
+	 * The analyses whose results are cached.
+	 */
+	private enum Operation {
+		COUNT_WORDS, WORD_FREQUENCIES, LAST_OCCURRENCE
+	}
+
+
+	/**
+	 * A file's path and version, and the result wanted from it.
+	 */
+	private static final class Key {
+		final String path;
+		final long length;
+		final long lastModified;				//not compared: only tells when to recompute the CRC
+		final long version;						//modification time or CRC-32
+		final Operation operation;
+		final String word;						//null unless the operation takes one
+
+		Key(String path, long length, long lastModified, long version, Operation operation, String word) {
+			this.path = path;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.version = version;
+			this.operation = operation;
+			this.word = word;
+		}
+
+		/**
+		 * @param key another key of the same file
+		 * @return true if both keys identify the same version of the file
+		 */
+		boolean sameVersion(Key key) {
+			return length == key.length && version == key.version;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return sameVersion(key) && operation == key.operation && path.equals(key.path)
+					&& Objects.equals(word, key.word);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, length, version, operation, word);
+		}
+	}
+}
@@ -0,0 +1,649 @@
+package textAnalysis;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+
+/**
+ * Persistent, memory-mapped index of a document: its word count, its vocabulary with the count of each word (stored in
+ * ranked order, so the top [n] words are simply the first [n]), and the sentence postings of
+ * {@link SentenceIndex}. The index is written once with write() and loaded with open(), which maps the file and
+ * reads nothing else up front, so answering findMostFrequentWords, getCount or lastOccurrence needs no tokenization.
+ * Indexes larger than the window size (1 GB) are mapped one window at a time, as MappedTokenizer maps its input.
+ *
+ * The header records the format version and the source file's size, modification time and CRC-32. An index is only
+ * opened if the version matches and the source is unchanged. The size is always compared. If the modification time
+ * also matches, the source is trusted to be unchanged without reading it; a rewrite that keeps both the size and the
+ * time (within the file system's timestamp resolution, or with the time set back explicitly) is therefore not
+ * detected, and such an index must be rewritten with write(). If only the time differs, the source is read and its
+ * CRC compared, so a file that was touched but not changed keeps its index. Sentence text is read back from the
+ * source (UTF-8) when asked for.
+ *
+ * Layout (big-endian): a fixed header (see HEADER_SIZE), then the frequency section (64-bit counts in rank order, word
+ * byte offsets in rank order, ranks in byte order of the words, word bytes), then the sentence section (sentence start
+ * and end offsets, indexed-word byte offsets and posting offsets in byte order of the words, word bytes, postings).
+ * @author Leo Mishlove
+ *
+ */
+public class AnalysisIndex implements Closeable {
+
+	/** version written into the header; an index with any other version is rebuilt */
+	public static final int FORMAT_VERSION = 2;
+
+	/** default number of bytes mapped at once; a single mapping cannot exceed 2 GB */
+	static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	private static final int MAGIC = 0x54414958;			//"TAIX"
+	private static final int HEADER_SIZE = 80;
+
+	/* each window also maps the next 7 bytes, so that a long starting in a window can be read from it */
+	private static final int LOOKAHEAD = 7;
+
+	private final FileChannel sourceChannel;
+	private final MappedByteBuffer[] windows;
+	private final int windowSize;
+
+	private final long wordCount;
+	private final int vocabularySize;
+	private final int sentenceCount;
+	private final int indexedWordCount;
+
+	/* absolute positions of each array in the index file */
+	private final long rankCounts;
+	private final long rankWordOffsets;
+	private final long ranksByWord;
+	private final long frequencyWords;
+	private final long sentenceStarts;
+	private final long sentenceEnds;
+	private final long indexedWordOffsets;
+	private final long postingOffsets;
+	private final long indexedWords;
+	private final long postings;
+	private final long end;
+
+
+	private AnalysisIndex(FileChannel sourceChannel, ByteBuffer header, MappedByteBuffer[] windows, int windowSize) {
+		this.sourceChannel = sourceChannel;
+		this.windows = windows;
+		this.windowSize = windowSize;
+
+		wordCount = header.getLong(32);
+		vocabularySize = header.getInt(40);
+		sentenceCount = header.getInt(44);
+		indexedWordCount = header.getInt(48);
+		long frequencyWordBytes = header.getLong(56);
+		long indexedWordBytes = header.getLong(64);
+		long postingCount = header.getLong(72);
+
+		rankCounts = HEADER_SIZE;
+		rankWordOffsets = rankCounts + 8L * vocabularySize;
+		ranksByWord = rankWordOffsets + 8L * (vocabularySize + 1);
+		frequencyWords = ranksByWord + 4L * vocabularySize;
+		sentenceStarts = frequencyWords + frequencyWordBytes;
+		sentenceEnds = sentenceStarts + 8L * sentenceCount;
+		indexedWordOffsets = sentenceEnds + 8L * sentenceCount;
+		postingOffsets = indexedWordOffsets + 8L * (indexedWordCount + 1);
+		indexedWords = postingOffsets + 8L * (indexedWordCount + 1);
+		postings = indexedWords + indexedWordBytes;
+		end = postings + 4L * postingCount;
+	}
+
+
+	/**
+	 * Analyzes a document and writes its index. The source is read once: its CRC, word count, word frequencies and
+	 * sentence postings are all gathered in the same pass, with the words interned in one shared
+	 * {@link Vocabulary}. The index is written to a temporary file and then moved into place, so a reader never sees
+	 * a partly written index; the temporary file is deleted if writing fails.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param indexFile the file to write the index to
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read or the index cannot be written
+	 */
+	public static void write(File sourceFile, File indexFile) throws IOException {
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		long sourceLength = sourceFile.length();
+		long sourceLastModified = sourceFile.lastModified();		//taken first, so a change while indexing shows
+
+		Vocabulary vocabulary = new Vocabulary();
+		Counter counter = new Counter(vocabulary);
+		SentenceIndex.Builder sentences = new SentenceIndex.Builder(vocabulary);
+		CRC32 sourceChecksum = new CRC32();
+		new MappedTokenizer(sourceFile).forEachTokenAndSentence(counter, sentences, sourceChecksum);
+
+		Integer[] rankedIds = counter.rankedIds();
+		byte[][] rankedWordBytes = new byte[rankedIds.length][];
+		for (int rank = 0; rank < rankedIds.length; rank++) {
+			rankedWordBytes[rank] = vocabulary.getWord(rankedIds[rank]).getBytes(StandardCharsets.UTF_8);
+		}
+		Integer[] ranksByWord = sortedByBytes(rankedWordBytes);
+
+		long[] sentenceStarts = sentences.getSentenceStarts();
+		long[] sentenceEnds = sentences.getSentenceEnds();
+		List<byte[]> indexedWords = new ArrayList<byte[]>();
+		List<int[]> postings = new ArrayList<int[]>();
+		long postingCount = 0;
+		for (int id = 0; id < vocabulary.size(); id++) {
+			int[] wordPostings = sentences.getPostings(id);
+			if (wordPostings.length > 0) {							//only counted, never in a sentence's words
+				indexedWords.add(vocabulary.getWord(id).getBytes(StandardCharsets.UTF_8));
+				postings.add(wordPostings);
+				postingCount += wordPostings.length;
+			}
+		}
+		byte[][] indexedWordBytes = indexedWords.toArray(new byte[0][]);
+		Integer[] indexedWordOrder = sortedByBytes(indexedWordBytes);
+
+		File temporaryFile = new File(indexFile.getPath() + ".tmp");
+		boolean written = false;
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(sourceLength);
+				out.writeLong(sourceLastModified);
+				out.writeLong(sourceChecksum.getValue());
+				out.writeLong(counter.wordCount);
+				out.writeInt(rankedIds.length);
+				out.writeInt(sentenceStarts.length);
+				out.writeInt(indexedWordBytes.length);
+				out.writeInt(0);										//reserved
+				out.writeLong(totalLength(rankedWordBytes));
+				out.writeLong(totalLength(indexedWordBytes));
+				out.writeLong(postingCount);
+
+				/* frequency section */
+				for (int id : rankedIds) {
+					out.writeLong(counter.counts[id]);
+				}
+				writeOffsets(out, rankedWordBytes, null);
+				for (int rank : ranksByWord) {
+					out.writeInt(rank);
+				}
+				for (byte[] word : rankedWordBytes) {
+					out.write(word);
+				}
+
+				/* sentence section */
+				for (long start : sentenceStarts) {
+					out.writeLong(start);
+				}
+				for (long end : sentenceEnds) {
+					out.writeLong(end);
+				}
+				writeOffsets(out, indexedWordBytes, indexedWordOrder);
+				long postingOffset = 0;
+				out.writeLong(postingOffset);
+				for (int i : indexedWordOrder) {
+					postingOffset += postings.get(i).length;
+					out.writeLong(postingOffset);
+				}
+				for (int i : indexedWordOrder) {
+					out.write(indexedWordBytes[i]);
+				}
+				for (int i : indexedWordOrder) {
+					for (int sentence : postings.get(i)) {
+						out.writeInt(sentence);
+					}
+				}
+			}
+
+			try {
+				Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			written = true;
+		} finally {
+			if (!written) {
+				Files.deleteIfExists(temporaryFile.toPath());			//don't leave a partial index behind
+			}
+		}
+	}
+
+
+	/**
+	 * Opens an index by mapping it into memory.
+	 * @param sourceFile the file the index was written for
+	 * @param indexFile the index
+	 * @return the index, which must be closed after use
+	 * @throws FileNotFoundException if source file or index file is not found
+	 * @throws IOException if the index is for another format version or the source has changed since it was written,
+	 * or either file cannot be read
+	 */
+	public static AnalysisIndex open(File sourceFile, File indexFile) throws IOException {
+		return open(sourceFile, indexFile, DEFAULT_WINDOW_SIZE);
+	}
+
+
+	/**
+	 * Opens an index by mapping it into memory, at most [windowSize] bytes per mapping.
+	 * @param sourceFile the file the index was written for
+	 * @param indexFile the index
+	 * @param windowSize the maximum number of bytes to map at once (plus a few bytes of lookahead)
+	 * @return the index, which must be closed after use
+	 * @throws FileNotFoundException if source file or index file is not found
+	 * @throws IOException if the index is for another format version or the source has changed since it was written,
+	 * or either file cannot be read
+	 */
+	static AnalysisIndex open(File sourceFile, File indexFile, int windowSize) throws IOException {
+		if (windowSize <= 0 || windowSize > Integer.MAX_VALUE - LOOKAHEAD) {
+			throw new IllegalArgumentException("invalid window size: " + windowSize);
+		}
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		if (!indexFile.isFile()) {
+			throw new FileNotFoundException(indexFile.getPath());
+		}
+
+		ByteBuffer header;
+		MappedByteBuffer[] windows;
+		long size;
+		try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			header = readHeader(indexChannel);
+			String problem = checkHeader(header, sourceFile);
+			if (problem != null) {
+				throw new IOException(problem + ": " + indexFile);
+			}
+			size = indexChannel.size();
+			windows = new MappedByteBuffer[(int) ((size + windowSize - 1) / windowSize)];
+			for (int i = 0; i < windows.length; i++) {
+				long position = (long) i * windowSize;
+				windows[i] = indexChannel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min((long) windowSize + LOOKAHEAD, size - position));
+			}
+		}
+		FileChannel sourceChannel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ);
+		AnalysisIndex index = new AnalysisIndex(sourceChannel, header, windows, windowSize);
+		if (index.end != size) {
+			sourceChannel.close();
+			throw new IOException("index is truncated or corrupt: " + indexFile);
+		}
+		return index;
+	}
+
+
+	/**
+	 * Opens an index, first (re)writing it if it is missing, for another format version or for an older version of
+	 * the source file.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param indexFile the index
+	 * @return the index, which must be closed after use
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read or the index cannot be written or read
+	 */
+	public static AnalysisIndex openOrBuild(File sourceFile, File indexFile) throws IOException {
+		if (!isUpToDate(sourceFile, indexFile)) {
+			write(sourceFile, indexFile);
+		}
+		return open(sourceFile, indexFile);
+	}
+
+
+	/**
+	 * Determines if an index exists, has the current format version and matches the current source file.
+	 * @param sourceFile the file the index was written for
+	 * @param indexFile the index
+	 * @return true if the index can be opened
+	 * @throws IOException if the source file or index cannot be read
+	 */
+	public static boolean isUpToDate(File sourceFile, File indexFile) throws IOException {
+		if (!sourceFile.isFile() || !indexFile.isFile()) {
+			return false;
+		}
+		try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			return checkHeader(readHeader(indexChannel), sourceFile) == null;
+		}
+	}
+
+
+	/**
+	 * @return the word count of the document (not the number of unique words), as given by countWordsLong
+	 */
+	public long getWordCount() {
+		return wordCount;
+	}
+
+
+	/**
+	 * @return the number of unique words in the document
+	 */
+	public int getVocabularySize() {
+		return vocabularySize;
+	}
+
+
+	/**
+	 * @return the number of indexed sentences (sentences containing at least one word)
+	 */
+	public int getSentenceCount() {
+		return sentenceCount;
+	}
+
+
+	/**
+	 * Finds the frequency of a word by binary search over the stored vocabulary.
+	 * @param word the compatible-format word to look up
+	 * @return the number of times the word occurs, or 0 if it does not
+	 * @throws ArithmeticException if the word occurs more than Integer.MAX_VALUE times (use getCountLong)
+	 */
+	public int getCount(String word) {
+		return Math.toIntExact(getCountLong(word));
+	}
+
+
+	/**
+	 * Finds the frequency of a word, like getCount, as a 64-bit count.
+	 * @param word the compatible-format word to look up
+	 * @return the number of times the word occurs, or 0 if it does not
+	 */
+	public long getCountLong(String word) {
+		byte[] key = word.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = vocabularySize - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int rank = getInt(ranksByWord + 4L * middle);
+			int comparison = compareStored(frequencyWords, rankWordOffsets, rank, key);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return getLong(rankCounts + 8L * rank);
+			}
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words, ranked as by {@link TextAnalysis#findMostFrequentWords}. The vocabulary
+	 * is stored in that order, so this only reads the first [n] words.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		if (wordsDesired < 0) {
+			throw new IllegalArgumentException("negative number of words desired: " + wordsDesired);
+		}
+		int words = Math.min(wordsDesired, vocabularySize);
+		List<String> mostFrequentWords = new ArrayList<String>(words);
+		for (int rank = 0; rank < words; rank++) {
+			mostFrequentWords.add(readWord(frequencyWords, rankWordOffsets, rank));
+		}
+		return mostFrequentWords;
+	}
+
+
+	/**
+	 * Finds the last sentence in the text that contains a given word, as {@link TextAnalysis#lastOccurrence} would.
+	 * @param word the word to search for (matched exactly, as containsWord does)
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it
+	 * @throws IOException if the source file cannot be read
+	 */
+	public String lastOccurrence(String word) throws IOException {
+		byte[] key = word.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = indexedWordCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareStored(indexedWords, indexedWordOffsets, middle, key);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				long lastPosting = getLong(postingOffsets + 8L * (middle + 1)) - 1;
+				return readSentence(getInt(postings + 4 * lastPosting));
+			}
+		}
+		return "";
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		sourceChannel.close();
+	}
+
+
+	/**
+	 * Reads the header of an index.
+	 * @param indexChannel a channel to the index
+	 * @return a buffer holding the header, or an empty buffer if the file is shorter than a header
+	 * @throws IOException if the index cannot be read
+	 */
+	private static ByteBuffer readHeader(FileChannel indexChannel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (indexChannel.read(header, header.position()) < 0) {
+				return ByteBuffer.allocate(0);
+			}
+		}
+		return header;
+	}
+
+
+	/**
+	 * Checks an index header against the source file, as described in the class comment: the size must match, and
+	 * the CRC is compared only if the modification time does not.
+	 * @param header a buffer holding at least the header
+	 * @param sourceFile the file the index was written for
+	 * @return why the index cannot be used, or null if it can
+	 * @throws IOException if the source file cannot be read (to compare checksums)
+	 */
+	private static String checkHeader(ByteBuffer header, File sourceFile) throws IOException {
+		if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+			return "not an index file";
+		}
+		if (header.getInt(4) != FORMAT_VERSION) {
+			return "index format version " + header.getInt(4) + " is not " + FORMAT_VERSION;
+		}
+		if (header.getLong(8) != sourceFile.length()) {
+			return "source file has changed since it was indexed";
+		}
+		if (header.getLong(16) == sourceFile.lastModified()) {
+			return null;									//same size and time: trusted without reading it
+		}
+		if (header.getLong(24) != Checksums.crc32(sourceFile)) {
+			return "source file has changed since it was indexed";
+		}
+		return null;										//touched but not changed
+	}
+
+
+	/**
+	 * Compares a stored word with a key, by unsigned bytes (the order the words were sorted in when written).
+	 * @param words position of the word bytes
+	 * @param offsets position of the word byte offsets
+	 * @param number the stored word's number
+	 * @param key the UTF-8 bytes of the word looked up
+	 * @return a negative number, zero or a positive number as the stored word sorts before, with or after the key
+	 */
+	private int compareStored(long words, long offsets, int number, byte[] key) {
+		long start = words + getLong(offsets + 8L * number);
+		int length = (int) (getLong(offsets + 8L * (number + 1)) - getLong(offsets + 8L * number));
+		for (int i = 0; i < Math.min(length, key.length); i++) {
+			int comparison = Byte.compareUnsigned(getByte(start + i), key[i]);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return length - key.length;
+	}
+
+
+	/**
+	 * Reads a stored word.
+	 * @param words position of the word bytes
+	 * @param offsets position of the word byte offsets
+	 * @param number the stored word's number
+	 * @return the word
+	 */
+	private String readWord(long words, long offsets, int number) {
+		long start = words + getLong(offsets + 8L * number);
+		byte[] bytes = new byte[(int) (getLong(offsets + 8L * (number + 1)) - getLong(offsets + 8L * number))];
+		for (int i = 0; i < bytes.length; i++) {					//may cross from one window into the next
+			bytes[i] = getByte(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Reads the text of a sentence back from the source file.
+	 * @param sentence the number of the sentence
+	 * @return the sentence text, without its ending punctuation
+	 * @throws IOException if the source file cannot be read
+	 */
+	private String readSentence(int sentence) throws IOException {
+		long start = getLong(sentenceStarts + 8L * sentence);
+		ByteBuffer bytes = ByteBuffer.allocate((int) (getLong(sentenceEnds + 8L * sentence) - start));
+		while (bytes.hasRemaining()) {
+			if (sourceChannel.read(bytes, start + bytes.position()) < 0) {
+				throw new IOException("source file is shorter than when it was indexed");
+			}
+		}
+		return new String(bytes.array(), StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * @param position a position in the index file
+	 * @return the byte at that position
+	 */
+	private byte getByte(long position) {
+		return windows[(int) (position / windowSize)].get((int) (position % windowSize));
+	}
+
+
+	/**
+	 * @param position a position in the index file
+	 * @return the int starting at that position (read from the window it starts in, thanks to the lookahead)
+	 */
+	private int getInt(long position) {
+		return windows[(int) (position / windowSize)].getInt((int) (position % windowSize));
+	}
+
+
+	/**
+	 * @param position a position in the index file
+	 * @return the long starting at that position (read from the window it starts in, thanks to the lookahead)
+	 */
+	private long getLong(long position) {
+		return windows[(int) (position / windowSize)].getLong((int) (position % windowSize));
+	}
+
+
+	/**
+	 * @param words the UTF-8 bytes of some words
+	 * @return the indices of the words, sorted by unsigned bytes
+	 */
+	private static Integer[] sortedByBytes(byte[][] words) {
+		Integer[] order = new Integer[words.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer i) -> words[i], Arrays::compareUnsigned));
+		return order;
+	}
+
+
+	/**
+	 * @param words the UTF-8 bytes of some words
+	 * @return the total number of bytes
+	 */
+	private static long totalLength(byte[][] words) {
+		long total = 0;
+		for (byte[] word : words) {
+			total += word.length;
+		}
+		return total;
+	}
+
+
+	/**
+	 * Writes the running byte offset of each word, plus the end offset of the last, i.e. [words] + 1 offsets.
+	 * @param out the stream to write to
+	 * @param words the UTF-8 bytes of the words
+	 * @param order the order to write the words in, or null for their own order
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeOffsets(DataOutputStream out, byte[][] words, Integer[] order) throws IOException {
+		long offset = 0;
+		out.writeLong(offset);
+		for (int i = 0; i < words.length; i++) {
+			offset += words[order != null ? order[i] : i].length;
+			out.writeLong(offset);
+		}
+	}
+
+
+	/**
+	 * Counts tokens and the frequency of each word by vocabulary ID, with 64-bit counts, while the tokenizer walks the
+	 * file. Words are normalized and counted with the same rules as countWordFrequencies.
+	 */
+	private static class Counter implements MappedTokenizer.TokenVisitor {
+		private final WordNormalizer normalizer = new WordNormalizer();
+		private final Vocabulary vocabulary;
+		private long wordCount = 0;
+		private long[] counts = new long[16];					//indexed by vocabulary ID
+
+		Counter(Vocabulary vocabulary) {
+			this.vocabulary = vocabulary;
+		}
+
+		@Override
+		public void visitToken(ByteBuffer text, int start, int end) {
+			wordCount++;
+			int length = normalizer.normalize(text, start, end);
+			if (length == 0) {									//if word is the empty string, do nothing
+				return;
+			}
+			int id = vocabulary.intern(normalizer.getChars(), length);
+			if (id >= counts.length) {							//IDs may skip ahead: the vocabulary is shared
+				counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+			}
+			counts[id]++;
+		}
+
+		/**
+		 * @return the IDs of every counted word, ranked as by {@link TextAnalysis#findMostFrequentWords}: count
+		 * descending, then alphabetically
+		 */
+		Integer[] rankedIds() {
+			List<Integer> counted = new ArrayList<Integer>();
+			for (int id = 0; id < Math.min(counts.length, vocabulary.size()); id++) {
+				if (counts[id] > 0) {							//only in a sentence's words, never counted
+					counted.add(id);
+				}
+			}
+			Integer[] ids = counted.toArray(new Integer[0]);
+			Arrays.sort(ids, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a])
+					: vocabulary.getWord(a).compareTo(vocabulary.getWord(b)));
+			return ids;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package textAnalysis;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+
+/**
+ * Holds the results of a single-pass analysis of a piece of text: the word count, the frequency of each unique word
+ * and the last sentence containing each word, the latter two indexed by the analyzer's {@link Vocabulary} IDs.
+ * @author Leo Mishlove
+ *
+ */
+public class AnalysisResult {
+
+	private final long wordCount;
+	private final InternedWordCounter wordFrequencies;
+	private final String[] lastSentences;				//ID -> last sentence containing the word, or null
+	private WordCounter wordCounter;					//built from wordFrequencies when first asked for
+
+
+	/**
+	 * Creates a result from the values tracked by a {@link TextAnalyzer}.
+	 * @param wordCount the total number of words in the text
+	 * @param wordFrequencies each unique (compatible-format) word and the number of times it occurs
+	 * @param lastSentences the last sentence containing each compatible-format word, indexed by the word's ID in the
+	 * counter's vocabulary
+	 */
+	AnalysisResult(long wordCount, InternedWordCounter wordFrequencies, String[] lastSentences) {
+		this.wordCount = wordCount;
+		this.wordFrequencies = wordFrequencies;
+		this.lastSentences = lastSentences;
+	}
+
+
+	/**
+	 * @return the word count for the text (not the number of unique words), as given by
+	 * {@link TextAnalysis#countWords}
+	 * @throws ArithmeticException if the text has more than Integer.MAX_VALUE words (use getWordCountLong)
+	 */
+	public int getWordCount() {
+		return Math.toIntExact(wordCount);
+	}
+
+
+	/**
+	 * @return the word count for the text as a 64-bit count, as given by {@link TextAnalysis#countWordsLong}
+	 */
+	public long getWordCountLong() {
+		return wordCount;
+	}
+
+
+	/**
+	 * Copies the word frequencies into a map (the first time it is called; later calls return the same map).
+	 * @return each unique word in the text and the number of times it occurs, as given by
+	 * {@link TextAnalysis#calculateWordFrequencies}
+	 */
+	public synchronized WordCounter getWordFrequencies() {
+		if (wordCounter == null) {
+			wordCounter = wordFrequencies.toWordCounter();
+		}
+		return wordCounter;
+	}
+
+
+	/**
+	 * Finds the number of times a word occurs in the text.
+	 * @param word the compatible-format word to look up
+	 * @return the word's frequency, or 0 if it does not occur
+	 */
+	public int getCount(String word) {
+		return wordFrequencies.getCount(word);
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words in the text, directly from the counts by ID.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		return wordFrequencies.findMostFrequentWords(wordsDesired);
+	}
+
+
+	/**
+	 * Finds the last sentence in the text that contains a given word, as given by {@link TextAnalysis#lastOccurrence}.
+	 * @param word the word to search for
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it
+	 */
+	public String lastOccurrence(String word) {
+		int id = wordFrequencies.getVocabulary().getId(word);
+		return id >= 0 && id < lastSentences.length && lastSentences[id] != null ? lastSentences[id] : "";
+	}
+
+
+	/**
+	 * Passes every (word, count) pair to a consumer without boxing the counts or copying them into a map.
+	 * @param action the consumer to receive each pair
+	 */
+	void forEachCount(ObjIntConsumer<String> action) {
+		wordFrequencies.forEachCount(action);
+	}
+}
@@ -0,0 +1,233 @@
+package textAnalysis;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Approximate word frequencies for unbounded streams, in fixed memory. The most frequent words are tracked with the
+ * Space-Saving algorithm: at most [capacity] words have a counter, and a new word takes over the counter of the
+ * least frequent tracked word, inheriting its count as a possible overestimate. Every word that occurs more than
+ * N / capacity times (N being the total word count) is guaranteed to be tracked, and a tracked word's count is at
+ * most N / capacity too high. Counts of all other words are estimated by a {@link CountMinSketch}.
+ *
+ * If fewer than [capacity] distinct words have been seen, every count is exact.
+ * @author Leo Mishlove
+ *
+ */
+public class ApproximateWordCounter {
+
+	/* Count-Min sketch accuracy used unless given: estimates within 0.01% of N, with 99% probability (1 MB) */
+	private static final double DEFAULT_EPSILON = 0.0001;
+	private static final double DEFAULT_DELTA = 0.01;
+
+	private final int capacity;
+	private final CountMinSketch sketch;
+
+	/* tracked word -> its counter; counters are numbered 0 to capacity - 1 and reused when a word is evicted */
+	private final WordCounter counterNumbers = new WordCounter();
+	private final String[] words;
+	private final long[] counts;				//an upper bound on the word's count
+	private final long[] errors;				//how much of counts[] may have been inherited from an evicted word
+	private int trackedWords = 0;
+
+	/* min-heap of counter numbers by count, so the least frequent tracked word is always at the root */
+	private final int[] heap;
+	private final int[] heapPositions;			//counter number -> its index in heap
+
+
+	/**
+	 * Creates an empty counter with the default Count-Min sketch accuracy.
+	 * @param capacity the number of words to track exactly enough to rank them
+	 */
+	public ApproximateWordCounter(int capacity) {
+		this(capacity, DEFAULT_EPSILON, DEFAULT_DELTA);
+	}
+
+
+	/**
+	 * Creates an empty counter.
+	 * @param capacity the number of words to track exactly enough to rank them
+	 * @param epsilon the Count-Min sketch's overestimate, as a fraction of the total count
+	 * @param delta the probability that a Count-Min estimate exceeds that bound
+	 */
+	public ApproximateWordCounter(int capacity, double epsilon, double delta) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		this.capacity = capacity;
+		this.sketch = new CountMinSketch(epsilon, delta);
+		this.words = new String[capacity];
+		this.counts = new long[capacity];
+		this.errors = new long[capacity];
+		this.heap = new int[capacity];
+		this.heapPositions = new int[capacity];
+	}
+
+
+	/**
+	 * Adds one occurrence of a word.
+	 * @param word the word to count
+	 */
+	public void increment(String word) {
+		char[] chars = word.toCharArray();
+		increment(chars, chars.length);
+	}
+
+
+	/**
+	 * Adds one occurrence of the word held in a char buffer (e.g. from a {@link WordNormalizer}). A String is only
+	 * created when the word starts being tracked.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 */
+	public void increment(char[] chars, int length) {
+		sketch.add(chars, length, 1);
+
+		int trackedBefore = counterNumbers.size();
+		int counter = counterNumbers.putIfAbsent(chars, length, trackedWords < capacity ? trackedWords : heap[0]);
+		if (counterNumbers.size() == trackedBefore) {			//already tracked
+			counts[counter]++;
+			siftDown(heapPositions[counter]);
+			return;
+		}
+
+		String word = counterNumbers.findWord(chars, length);
+		if (trackedWords < capacity) {							//a free counter
+			words[counter] = word;
+			counts[counter] = 1;
+			errors[counter] = 0;
+			heap[trackedWords] = counter;
+			heapPositions[counter] = trackedWords;
+			siftUp(trackedWords++);
+		} else {												//take over the least frequent word's counter
+			counterNumbers.remove(words[counter]);
+			words[counter] = word;
+			errors[counter] = counts[counter];
+			counts[counter]++;
+			siftDown(0);
+		}
+	}
+
+
+	/**
+	 * Estimates the number of occurrences of a word.
+	 * @param word the word to look up
+	 * @return an upper bound on the word's count: exact if fewer than [capacity] distinct words have been seen, at
+	 * most getMaximumError() too high for a tracked word, and otherwise within the Count-Min sketch's error bound
+	 */
+	public long getCount(String word) {
+		Integer counter = counterNumbers.get(word);
+		if (counter != null) {
+			return Math.min(counts[counter], sketch.estimate(word));
+		}
+		return trackedWords < capacity ? 0 : Math.min(getMaximumError(), sketch.estimate(word));
+	}
+
+
+	/**
+	 * Finds a guaranteed lower bound on the number of occurrences of a word.
+	 * @param word the word to look up
+	 * @return a count the word has certainly reached (0 for a word that is not tracked)
+	 */
+	public long getCountLowerBound(String word) {
+		Integer counter = counterNumbers.get(word);
+		return counter != null ? counts[counter] - errors[counter] : 0;
+	}
+
+
+	/**
+	 * @return the most a tracked word's count may be too high, which is also the most an untracked word may have
+	 * occurred; at most N / capacity, and 0 while fewer than [capacity] distinct words have been seen
+	 */
+	public long getMaximumError() {
+		return trackedWords < capacity ? 0 : counts[heap[0]];
+	}
+
+
+	/**
+	 * @return the total number of words counted
+	 */
+	public long getTotalCount() {
+		return sketch.getTotalCount();
+	}
+
+
+	/**
+	 * @return the Count-Min sketch used to estimate the counts of words that are not tracked
+	 */
+	public CountMinSketch getSketch() {
+		return sketch;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words, ranked as by {@link TextAnalysis#findMostFrequentWords}: by descending
+	 * (estimated) frequency, and alphabetically among words with the same frequency. Every word whose true count
+	 * exceeds getMaximumError() is among the candidates; a word is certainly in the true top [n] if its lower bound
+	 * (getCountLowerBound) is at least the count of the first word left out.
+	 * @param wordsDesired the cutoff point for the number of most frequent words (at most [capacity] are returned)
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		if (wordsDesired < 0) {
+			throw new IllegalArgumentException("negative number of words desired: " + wordsDesired);
+		}
+
+		/* rank by the tighter of the two upper bounds, as getCount does */
+		long[] estimates = new long[trackedWords];
+		List<Integer> counters = new ArrayList<Integer>(trackedWords);
+		for (int counter = 0; counter < trackedWords; counter++) {
+			estimates[counter] = Math.min(counts[counter], sketch.estimate(words[counter]));
+			counters.add(counter);
+		}
+		counters.sort((a, b) -> estimates[a] != estimates[b] ? Long.compare(estimates[b], estimates[a])
+				: words[a].compareTo(words[b]));
+
+		List<String> mostFrequentWords = new ArrayList<String>(Math.min(wordsDesired, trackedWords));
+		for (int i = 0; i < Math.min(wordsDesired, trackedWords); i++) {
+			mostFrequentWords.add(words[counters.get(i)]);
+		}
+		return mostFrequentWords;
+	}
+
+
+	private void siftUp(int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (counts[heap[parent]] <= counts[heap[index]]) {
+				return;
+			}
+			swap(parent, index);
+			index = parent;
+		}
+	}
+
+
+	private void siftDown(int index) {
+		while (true) {
+			int smallest = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if (left < trackedWords && counts[heap[left]] < counts[heap[smallest]]) {
+				smallest = left;
+			}
+			if (right < trackedWords && counts[heap[right]] < counts[heap[smallest]]) {
+				smallest = right;
+			}
+			if (smallest == index) {
+				return;
+			}
+			swap(index, smallest);
+			index = smallest;
+		}
+	}
+
+
+	private void swap(int i, int j) {
+		int counter = heap[i];
+		heap[i] = heap[j];
+		heap[j] = counter;
+		heapPositions[heap[i]] = i;
+		heapPositions[heap[j]] = j;
+	}
+}
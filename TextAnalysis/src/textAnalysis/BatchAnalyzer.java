@@ -0,0 +1,156 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Analyzes many (typically small) documents at once. With one file at a time, most of the time goes to waiting for
+ * each file to be opened and read; here up to [maxConcurrency] files are read and analyzed at the same time, so those
+ * waits overlap. Each document runs on its own virtual thread where the JVM supports them (Java 21 and later), and on
+ * a fixed pool of [maxConcurrency] platform threads otherwise.
+ *
+ * Every document is analyzed as by {@link TextAnalysis#analyze(File)}, and its word frequencies are merged into a
+ * corpus-level table as soon as it is done, so the whole batch never has to be held in memory twice.
+ * @author Leo Mishlove
+ *
+ */
+public class BatchAnalyzer {
+
+	/* enough to hide file open latency on local disks and network filesystems without running out of descriptors */
+	public static final int DEFAULT_CONCURRENCY = 256;
+
+	private final int maxConcurrency;
+	private final Charset charset;
+
+
+	/**
+	 * Creates an analyzer with the default concurrency, reading files in UTF-8 (the same charset as analyze(File) and
+	 * the other file-based analyses).
+	 */
+	public BatchAnalyzer() {
+		this(DEFAULT_CONCURRENCY, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Creates an analyzer.
+	 * @param maxConcurrency the largest number of documents open and being analyzed at once
+	 * @param charset the encoding of the documents
+	 */
+	public BatchAnalyzer(int maxConcurrency, Charset charset) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+		}
+		this.maxConcurrency = maxConcurrency;
+		this.charset = charset;
+	}
+
+
+	/**
+	 * Analyzes every regular file in a directory and its subdirectories.
+	 * @param directory the directory containing the documents
+	 * @return the per-document and corpus-level results
+	 * @throws FileNotFoundException if the directory is not found
+	 * @throws IOException if the directory cannot be listed, or the analysis is interrupted
+	 */
+	public BatchResult analyzeDirectory(File directory) throws IOException {
+		if (!directory.isDirectory()) {
+			throw new FileNotFoundException(directory.getPath());
+		}
+
+		List<File> sourceFiles;
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			sourceFiles = paths.filter(Files::isRegularFile).sorted().map(Path::toFile).collect(Collectors.toList());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return analyze(sourceFiles);
+	}
+
+
+	/**
+	 * Analyzes a list of documents. A document that cannot be read does not stop the batch; it is reported in
+	 * {@link BatchResult#getFailures()} instead.
+	 * @param sourceFiles the files containing the documents
+	 * @return the per-document and corpus-level results, with documents in the order given
+	 * @throws IOException if the analysis is interrupted
+	 */
+	public BatchResult analyze(List<File> sourceFiles) throws IOException {
+		BatchResult batch = new BatchResult(sourceFiles);
+		Semaphore permits = new Semaphore(maxConcurrency);
+		ExecutorService executor = newExecutor();
+
+		try {
+			for (int i = 0; i < sourceFiles.size(); i++) {
+				permits.acquire();							//also keeps the executor's queue short
+				int document = i;
+				executor.execute(() -> {
+					try {
+						batch.complete(document, analyzeDocument(sourceFiles.get(document)));
+					} catch (IOException | RuntimeException e) {
+						batch.fail(document, e);
+					} finally {
+						permits.release();
+					}
+				});
+			}
+			permits.acquire(maxConcurrency);				//wait for the last documents
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("batch analysis interrupted");
+		} finally {
+			executor.shutdownNow();
+		}
+		return batch;
+	}
+
+
+	/**
+	 * Reads a whole document at once and analyzes it. Documents are expected to be small, so a single read and a
+	 * single decode are cheaper than streaming the file through a reader.
+	 * @param sourceFile the file containing the document
+	 * @return the results of the analysis
+	 * @throws IOException if the file cannot be read
+	 */
+	private AnalysisResult analyzeDocument(File sourceFile) throws IOException {
+		byte[] bytes = Files.readAllBytes(sourceFile.toPath());
+		CharBuffer chars = charset.decode(ByteBuffer.wrap(bytes));		//replaces malformed input, as InputStreamReader does
+
+		TextAnalyzer analyzer = new TextAnalyzer();
+		analyzer.accept(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+		return analyzer.finish();
+	}
+
+
+	/**
+	 * Creates the executor for one batch: a thread per document if virtual threads are available (looked up
+	 * reflectively, so the code still compiles and runs on older JVMs), otherwise a fixed pool.
+	 * @return the executor
+	 */
+	private ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+				Thread thread = new Thread(runnable, "BatchAnalyzer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package textAnalysis;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Holds the results of a {@link BatchAnalyzer} run: the analysis of each document, and the word count and word
+ * frequencies of the whole corpus.
+ * @author Leo Mishlove
+ *
+ */
+public class BatchResult {
+
+	private final List<File> sourceFiles;
+
+	/* indexed like sourceFiles; each slot is written by exactly one document's thread, under this */
+	private final AnalysisResult[] documentResults;
+	private final Exception[] failures;
+
+	/* guarded by this */
+	private long wordCount = 0;
+	private final WordCounter corpusFrequencies = new WordCounter();
+
+
+	/**
+	 * Creates an empty result for a batch of documents.
+	 * @param sourceFiles the files containing the documents
+	 */
+	BatchResult(List<File> sourceFiles) {
+		this.sourceFiles = sourceFiles;
+		this.documentResults = new AnalysisResult[sourceFiles.size()];
+		this.failures = new Exception[sourceFiles.size()];
+	}
+
+
+	/**
+	 * Merges the analysis of a document into the corpus totals and then records it. The merge is checked before
+	 * anything is added, so a document that would overflow a corpus count changes nothing and can be reported as a
+	 * failure instead.
+	 * @param document the document's position in the batch
+	 * @param result the results of its analysis
+	 * @throws ArithmeticException if a word would occur more than Integer.MAX_VALUE times in the corpus
+	 */
+	synchronized void complete(int document, AnalysisResult result) {
+		long corpusWordCount = Math.addExact(wordCount, result.getWordCountLong());
+		result.forEachCount((word, count) -> Math.addExact(corpusFrequencies.getCount(word), count));
+		result.forEachCount(corpusFrequencies::add);						//cannot overflow now
+		wordCount = corpusWordCount;
+		documentResults[document] = result;
+	}
+
+
+	/**
+	 * Records that a document could not be analyzed.
+	 * @param document the document's position in the batch
+	 * @param failure the reason
+	 */
+	synchronized void fail(int document, Exception failure) {
+		failures[document] = failure;
+	}
+
+
+	/**
+	 * @return the word count of the whole corpus (not the number of unique words)
+	 */
+	public synchronized long getWordCount() {
+		return wordCount;
+	}
+
+
+	/**
+	 * @return each unique word in the corpus and the number of times it occurs across all documents
+	 */
+	public synchronized WordCounter getCorpusFrequencies() {
+		return corpusFrequencies;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words in the whole corpus.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		return TextAnalysis.findMostFrequentWords(getCorpusFrequencies(), wordsDesired);
+	}
+
+
+	/**
+	 * @return each document that was analyzed and its results, in the order the documents were given
+	 */
+	public synchronized Map<File, AnalysisResult> getDocumentResults() {
+		Map<File, AnalysisResult> results = new LinkedHashMap<File, AnalysisResult>();
+		for (int i = 0; i < documentResults.length; i++) {
+			if (documentResults[i] != null) {
+				results.put(sourceFiles.get(i), documentResults[i]);
+			}
+		}
+		return results;
+	}
+
+
+	/**
+	 * @return each document that could not be analyzed and the reason, in the order the documents were given
+	 */
+	public synchronized Map<File, Exception> getFailures() {
+		Map<File, Exception> results = new LinkedHashMap<File, Exception>();
+		for (int i = 0; i < failures.length; i++) {
+			if (failures[i] != null) {
+				results.put(sourceFiles.get(i), failures[i]);
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,36 @@
+package textAnalysis;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Skips runs of bytes that cannot end a token or a word, many bytes per step, so that the tokenizer only examines
+ * the bytes where something may happen one at a time. Each method may stop early (at a byte that turns out not to
+ * matter), but never after a byte that does, so callers must re-examine the byte they are returned with their exact
+ * test. This keeps the token and sentence boundaries identical to a byte-by-byte scan.
+ * @author Leo Mishlove
+ *
+ */
+interface ByteClassifier {
+
+	/**
+	 * Skips ASCII bytes that cannot be whitespace, i.e. the inside of an ASCII token.
+	 * @param text the buffer holding the text
+	 * @param from index of the first byte to examine (absolute)
+	 * @param to index one past the last byte to examine
+	 * @return the index of the first byte in [from, to) that is ASCII whitespace or non-ASCII (or may be), or [to]
+	 * if there is none; [from] if from >= to
+	 */
+	int skipTokenBytes(ByteBuffer text, int from, int to);
+
+
+	/**
+	 * Skips bytes that cannot end a word of a sentence, i.e. anything but ., ?, ! and the whitespace split by
+	 * containsWord.
+	 * @param text the buffer holding the text
+	 * @param from index of the first byte to examine (absolute)
+	 * @param to index one past the last byte to examine
+	 * @return the index of the first byte in [from, to) that is end-of-sentence punctuation or split whitespace (or
+	 * may be), or [to] if there is none; [from] if from >= to
+	 */
+	int skipWordBytes(ByteBuffer text, int from, int to);
+}
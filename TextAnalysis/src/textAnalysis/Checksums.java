@@ -0,0 +1,42 @@
+package textAnalysis;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+
+/**
+ * Checksums of whole files, shared by the structures that check whether a file has changed since they last read it
+ * ({@link AnalysisIndex}, {@link AnalysisCache}).
+ * @author Leo Mishlove
+ *
+ */
+final class Checksums {
+
+	/* bytes of the file checksummed at a time */
+	private static final int WINDOW_SIZE = 1 << 30;
+
+
+	private Checksums() {
+	}
+
+
+	/**
+	 * Computes the CRC-32 of a file's contents, reading it through memory mappings.
+	 * @param sourceFile the file
+	 * @return the checksum, as a CRC32 over the same bytes would give it
+	 * @throws IOException if the file cannot be read
+	 */
+	static long crc32(File sourceFile) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += WINDOW_SIZE) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW_SIZE, size - position)));
+			}
+		}
+		return crc.getValue();
+	}
+}
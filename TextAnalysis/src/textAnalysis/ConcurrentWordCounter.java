@@ -0,0 +1,164 @@
+package textAnalysis;
+import java.util.List;
+
+
+/**
+ * Counts word frequencies fed by many threads at once. The words are split by hash among a fixed number of stripes,
+ * each a {@link WordCounter} with its own lock, so threads counting different words rarely wait for each other and
+ * no thread ever waits for the whole table (e.g. while it resizes). Counts can be read and snapshotted while other
+ * threads keep counting.
+ * @author Leo Mishlove
+ *
+ */
+public class ConcurrentWordCounter {
+
+	/* stripes per available processor, so that two threads rarely want the same stripe at once */
+	private static final int STRIPES_PER_PROCESSOR = 4;
+
+	/* multiplier that spreads a String hash code across all 32 bits (the golden ratio, as in Fibonacci hashing) */
+	private static final int STRIPE_MULTIPLIER = 0x9E3779B9;
+
+	private final WordCounter[] stripes;			//each guarded by itself
+	private final int stripeShift;
+
+
+	/**
+	 * Creates an empty counter with STRIPES_PER_PROCESSOR stripes per available processor.
+	 */
+	public ConcurrentWordCounter() {
+		this(STRIPES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Creates an empty counter.
+	 * @param concurrencyLevel the number of threads expected to count at once; rounded up to a power of two stripes
+	 */
+	public ConcurrentWordCounter(int concurrencyLevel) {
+		if (concurrencyLevel < 1) {
+			throw new IllegalArgumentException("concurrency level must be at least 1: " + concurrencyLevel);
+		}
+		int stripeBits = 32 - Integer.numberOfLeadingZeros(Math.min(concurrencyLevel, 1 << 16) - 1);
+		this.stripes = new WordCounter[1 << stripeBits];
+		this.stripeShift = 32 - stripeBits;
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new WordCounter();
+		}
+	}
+
+
+	/**
+	 * Adds one occurrence of a word.
+	 * @param word the word to count
+	 * @return the word's new count
+	 */
+	public int increment(String word) {
+		return add(word, 1);
+	}
+
+
+	/**
+	 * Adds [amount] occurrences of a word.
+	 * @param word the word to count
+	 * @param amount the number of occurrences to add
+	 * @return the word's new count
+	 */
+	public int add(String word, int amount) {
+		WordCounter stripe = stripe(word.hashCode());
+		synchronized (stripe) {
+			return stripe.add(word, amount);
+		}
+	}
+
+
+	/**
+	 * Adds one occurrence of the word held in a char buffer (e.g. from a {@link WordNormalizer}). A String is only
+	 * created if the word has not been seen before.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the word's new count
+	 */
+	public int increment(char[] chars, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {				//String.hashCode, so both overloads pick the same stripe
+			hash = 31 * hash + chars[i];
+		}
+		WordCounter stripe = stripe(hash);
+		synchronized (stripe) {
+			return stripe.increment(chars, length);
+		}
+	}
+
+
+	/**
+	 * Adds all the counts of another counter, e.g. one a thread filled on its own to avoid locking for every word.
+	 * @param other the counter whose counts should be added
+	 */
+	public void addAll(WordCounter other) {
+		other.forEachCount(this::add);
+	}
+
+
+	/**
+	 * @param word the word to look up
+	 * @return the number of occurrences of the word counted so far (0 if none)
+	 */
+	public int getCount(String word) {
+		WordCounter stripe = stripe(word.hashCode());
+		synchronized (stripe) {
+			return stripe.getCount(word);
+		}
+	}
+
+
+	/**
+	 * @return the number of unique words counted so far
+	 */
+	public int size() {
+		int size = 0;
+		for (WordCounter stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+
+	/**
+	 * Copies the counts into a counter of their own, e.g. for {@link TextAnalysis#findMostFrequentWords}. Stripes are
+	 * copied one at a time while other threads may keep counting, so each word's count is one it had at some point
+	 * during the snapshot, but the snapshot as a whole may not match any single moment.
+	 * @return a new counter holding each word's count
+	 */
+	public WordCounter snapshot() {
+		WordCounter snapshot = new WordCounter();
+		for (WordCounter stripe : stripes) {
+			synchronized (stripe) {
+				snapshot.addAll(stripe);
+			}
+		}
+		return snapshot;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words counted so far, ranked as by {@link TextAnalysis#findMostFrequentWords}.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		return TextAnalysis.findMostFrequentWords(snapshot(), wordsDesired);
+	}
+
+
+	/**
+	 * Picks a word's stripe from the high bits of its mixed hash code, which are independent of the low bits its
+	 * stripe's table uses to place it.
+	 * @param hash the word's String hash code
+	 * @return the word's stripe
+	 */
+	private WordCounter stripe(int hash) {
+		return stripes[stripeShift == 32 ? 0 : (hash * STRIPE_MULTIPLIER) >>> stripeShift];
+	}
+}
@@ -0,0 +1,151 @@
+package textAnalysis;
+
+
+/**
+ * Count-Min sketch: estimates how often each word occurs in a stream in a fixed amount of memory, however many
+ * distinct words there are. The sketch is a [depth] x [width] grid of counters; each word is hashed to one counter per
+ * row, adding a word increments those counters, and a word's estimate is the smallest of them. Collisions can only add
+ * to a counter, so the estimate is never below the true count, and with probability at least 1 - delta it is at most
+ * epsilon * N above it, where N is the total count added. A sketch is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public class CountMinSketch {
+
+	private final int width;
+	private final int depth;
+	private final double epsilon;
+	private final double delta;
+	private final long[] counters;			//row-major, [depth] rows of [width]
+	private long totalCount = 0;
+
+
+	/**
+	 * Creates an empty sketch whose estimates are at most epsilon * N too high, with probability at least 1 - delta.
+	 * It holds ceil(e / epsilon) * ceil(ln(1 / delta)) counters, e.g. 1 MB for epsilon = 0.0001 and delta = 0.01.
+	 * @param epsilon the overestimate, as a fraction of the total count
+	 * @param delta the probability that an estimate exceeds that bound
+	 */
+	public CountMinSketch(double epsilon, double delta) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("epsilon and delta must be between 0 and 1: " + epsilon + ", " + delta);
+		}
+		long cells = (long) Math.ceil(Math.E / epsilon) * (long) Math.ceil(Math.log(1 / delta));
+		if (cells > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("sketch too large for epsilon " + epsilon + " and delta " + delta);
+		}
+		this.width = (int) Math.ceil(Math.E / epsilon);
+		this.depth = (int) Math.ceil(Math.log(1 / delta));
+		this.epsilon = epsilon;
+		this.delta = delta;
+		this.counters = new long[width * depth];
+	}
+
+
+	/**
+	 * Adds occurrences of the word held in a char buffer (e.g. from a {@link WordNormalizer}).
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @param count the number of occurrences to add (not negative)
+	 */
+	public void add(char[] chars, int length, long count) {
+		addHash(HyperLogLog.hash(chars, length), count);
+	}
+
+
+	/**
+	 * Adds occurrences of a word.
+	 * @param word the word
+	 * @param count the number of occurrences to add (not negative)
+	 */
+	public void add(String word, long count) {
+		addHash(HyperLogLog.hash(word), count);
+	}
+
+
+	/**
+	 * Estimates the number of occurrences of a word.
+	 * @param word the word
+	 * @return an upper bound on the word's count; see getErrorBound() for how far above it may be
+	 */
+	public long estimate(String word) {
+		return estimateHash(HyperLogLog.hash(word));
+	}
+
+
+	/**
+	 * Estimates the number of occurrences of the word held in a char buffer.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return an upper bound on the word's count; see getErrorBound() for how far above it may be
+	 */
+	public long estimate(char[] chars, int length) {
+		return estimateHash(HyperLogLog.hash(chars, length));
+	}
+
+
+	/**
+	 * @return the total of all counts added
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+
+	/**
+	 * @return the most an estimate exceeds the true count, with probability at least getConfidence()
+	 */
+	public long getErrorBound() {
+		return (long) Math.ceil(epsilon * totalCount);
+	}
+
+
+	/**
+	 * @return the probability that an estimate is within getErrorBound() of the true count
+	 */
+	public double getConfidence() {
+		return 1 - delta;
+	}
+
+
+	/**
+	 * Adds to one counter per row, chosen from two halves of a 64-bit hash (double hashing).
+	 * @param hash the word's hash
+	 * @param count the number of occurrences to add
+	 */
+	private void addHash(long hash, long count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("negative count: " + count);
+		}
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int row = 0; row < depth; row++) {
+			counters[row * width + column(h1 + row * h2)] += count;
+		}
+		totalCount += count;
+	}
+
+
+	/**
+	 * @param hash the word's hash
+	 * @return the smallest of the word's counters
+	 */
+	private long estimateHash(long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters[row * width + column(h1 + row * h2)]);
+		}
+		return estimate;
+	}
+
+
+	/**
+	 * @param rowHash a word's hash for one row
+	 * @return the counter the hash picks within the row
+	 */
+	private int column(int rowHash) {
+		return (rowHash & Integer.MAX_VALUE) % width;
+	}
+}
@@ -0,0 +1,62 @@
+package textAnalysis;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Frees direct buffers as soon as their owner is closed, instead of whenever the garbage collector notices they are
+ * unreachable. Java 17 has no public API for this, so sun.misc.Unsafe.invokeCleaner (in the jdk.unsupported module)
+ * is looked up reflectively; if it is missing, freeing is left to the garbage collector as before.
+ * @author Leo Mishlove
+ *
+ */
+final class DirectMemory {
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			unsafe = null;										//not available: the garbage collector frees buffers
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+
+	private DirectMemory() {
+	}
+
+
+	/**
+	 * Releases the memory of a direct buffer now. The buffer must not be used afterwards, and must not be a slice or
+	 * duplicate of another buffer.
+	 * @param buffer the buffer to free; heap buffers and null are ignored
+	 */
+	static void free(ByteBuffer buffer) {
+		if (INVOKE_CLEANER == null || buffer == null || !buffer.isDirect()) {
+			return;
+		}
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package textAnalysis;
+
+
+/**
+ * HyperLogLog sketch: estimates the number of distinct words seen in a fixed amount of memory, however many words are
+ * added. Each word is hashed to 64 bits; the top [precision] bits pick one of 2^precision registers, and the register
+ * keeps the longest run of leading zeros seen in the remaining bits. The relative standard error of the estimate is
+ * about 1.04 / sqrt(2^precision), e.g. 0.8% at precision 14 (16 KB of registers). Sketches with the same precision
+ * can be merged, e.g. to combine the sketches of several files or of several threads. A sketch is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public class HyperLogLog {
+
+	/** smallest precision: 16 registers, about 26% error */
+	public static final int MIN_PRECISION = 4;
+
+	/** largest precision: 256 KB of registers, about 0.2% error */
+	public static final int MAX_PRECISION = 18;
+
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	private final int precision;
+	private final byte[] registers;
+
+
+	/**
+	 * Creates an empty sketch.
+	 * @param precision the number of hash bits that pick a register, between MIN_PRECISION and MAX_PRECISION
+	 */
+	public HyperLogLog(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and "
+					+ MAX_PRECISION + ": " + precision);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+
+	/**
+	 * Creates an empty sketch with the smallest precision whose relative standard error is at most [relativeError].
+	 * @param relativeError the largest acceptable relative standard error, e.g. 0.01 for 1%
+	 * @return the sketch
+	 * @throws IllegalArgumentException if no supported precision is that accurate
+	 */
+	public static HyperLogLog withRelativeError(double relativeError) {
+		if (!(relativeError > 0)) {
+			throw new IllegalArgumentException("relative error must be positive: " + relativeError);
+		}
+		int precision = MIN_PRECISION;
+		while (precision < MAX_PRECISION && relativeError(precision) > relativeError) {
+			precision++;
+		}
+		if (relativeError(precision) > relativeError) {
+			throw new IllegalArgumentException("relative error below " + relativeError(MAX_PRECISION)
+					+ " is not supported: " + relativeError);
+		}
+		return new HyperLogLog(precision);
+	}
+
+
+	/**
+	 * Adds the word held in a char buffer (e.g. from a {@link WordNormalizer}).
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 */
+	public void add(char[] chars, int length) {
+		addHash(hash(chars, length));
+	}
+
+
+	/**
+	 * Adds a word.
+	 * @param word the word
+	 */
+	public void add(String word) {
+		addHash(hash(word));
+	}
+
+
+	/**
+	 * Adds a 64-bit hash of a word.
+	 * @param hash the hash, whose bits must be uniformly distributed
+	 */
+	void addHash(long hash) {
+		int register = (int) (hash >>> (64 - precision));
+		int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+		if (rank > registers[register]) {
+			registers[register] = (byte) rank;
+		}
+	}
+
+
+	/**
+	 * @return the estimated number of distinct words added so far
+	 */
+	public long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int emptyRegisters = 0;
+		for (byte rank : registers) {
+			sum += 1.0 / (1L << rank);
+			if (rank == 0) {
+				emptyRegisters++;
+			}
+		}
+
+		double estimate = alpha(m) * m * (double) m / sum;
+		if (estimate <= 2.5 * m && emptyRegisters > 0) {		//few words: linear counting is more accurate
+			estimate = m * Math.log(m / (double) emptyRegisters);
+		}
+		return Math.round(estimate);
+	}
+
+
+	/**
+	 * Adds every word added to another sketch to this one. The result is the same as if all words had been added to
+	 * this sketch.
+	 * @param other a sketch with the same precision
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("cannot merge precision " + other.precision + " into " + precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+
+	/**
+	 * @return the number of hash bits that pick a register
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+
+	/**
+	 * @return the relative standard error of this sketch's estimates
+	 */
+	public double getRelativeError() {
+		return relativeError(precision);
+	}
+
+
+	/**
+	 * @param precision a precision
+	 * @return the relative standard error of a sketch with that precision
+	 */
+	private static double relativeError(int precision) {
+		return 1.04 / Math.sqrt(1 << precision);
+	}
+
+
+	/**
+	 * @param m the number of registers
+	 * @return the bias correction constant for [m] registers
+	 */
+	private static double alpha(int m) {
+		switch (m) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+
+
+	/**
+	 * Hashes the word in a char buffer to 64 bits, the same as hash(String) would hash its String.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the hash
+	 */
+	static long hash(char[] chars, int length) {
+		long h = FNV_OFFSET_BASIS;								//FNV-1a over the chars...
+		for (int i = 0; i < length; i++) {
+			h = (h ^ chars[i]) * FNV_PRIME;
+		}
+		return finish(h);
+	}
+
+
+	/**
+	 * Hashes a word to 64 bits, the same as hash(char[], int) would hash its chars.
+	 * @param word the word
+	 * @return the hash
+	 */
+	static long hash(String word) {
+		long h = FNV_OFFSET_BASIS;
+		for (int i = 0; i < word.length(); i++) {
+			h = (h ^ word.charAt(i)) * FNV_PRIME;
+		}
+		return finish(h);
+	}
+
+
+	/**
+	 * @param h a hash
+	 * @return the hash with every input bit mixed into every output bit (MurmurHash3's finalizer), so that the
+	 * leading bits HyperLogLog relies on are uniform
+	 */
+	private static long finish(long h) {
+		h ^= h >>> 33;											//...then avalanche
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+}
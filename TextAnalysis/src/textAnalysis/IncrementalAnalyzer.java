@@ -0,0 +1,296 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Keeps the analysis of a file that is continuously appended to (e.g. a log) up to date. Each call to update() reads
+ * only the bytes appended since the previous call and folds them into the existing results, so the cost of an update
+ * is proportional to the new data, not to the whole file.
+ *
+ * Between updates the analyzer remembers the byte offset it has read up to, any bytes of a multi-byte character cut
+ * off by the end of the data, and the word and sentence in progress, so a word or sentence split across two updates
+ * is counted exactly once. Queries always reflect all data read so far, as if the file ended at the current offset:
+ * bytes of a character cut off there are answered for as the replacement characters a reader reaching the end of the
+ * file would decode them to (on a copy of the results, made only when the data ends inside a character).
+ * If the file shrinks, is replaced by another file (a different file key, i.e. inode, as after rotation), or no longer
+ * holds the bytes last read just before the offset (truncated and regrown past it), the analysis starts over from the
+ * beginning. The most frequent words are computed at most once per update that reads new data.
+ * @author Leo Mishlove
+ *
+ */
+public class IncrementalAnalyzer {
+
+	/* bytes read from the file at a time */
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	/* bytes just before the offset that are re-read on each update to detect a file rewritten in place */
+	private static final int CHECKED_TAIL_SIZE = 64;
+
+	private final File sourceFile;
+	private final Charset charset;
+
+	private TextAnalyzer analyzer;
+	private TextAnalyzer view;									//answers queries; null until needed after an update
+	private CharsetDecoder decoder;
+	private long offset;
+	private Object fileKey;											//identifies the file read so far, if supported
+	private final byte[] tail = new byte[CHECKED_TAIL_SIZE];		//the last bytes read, ending at [offset]
+	private int tailLength;
+
+	/* the most frequent words as of the last update, computed on demand */
+	private long generation;
+	private long topWordsGeneration = -1;
+	private int topWordsDesired;
+	private List<String> topWords;
+
+	private final ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_SIZE);	//may hold a partial character
+	private final CharBuffer chars = CharBuffer.allocate(READ_BUFFER_SIZE);
+
+
+	/**
+	 * Creates an analyzer for a file in UTF-8 (the same charset as analyze(File) and the other file-based analyses).
+	 * Nothing is read until the first call to update().
+	 * @param sourceFile the file to analyze
+	 */
+	public IncrementalAnalyzer(File sourceFile) {
+		this(sourceFile, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Creates an analyzer for a file in a given charset. Nothing is read until the first call to update().
+	 * @param sourceFile the file to analyze
+	 * @param charset the encoding of the file
+	 */
+	public IncrementalAnalyzer(File sourceFile, Charset charset) {
+		this.sourceFile = sourceFile;
+		this.charset = charset;
+		reset();
+	}
+
+
+	/**
+	 * Folds everything appended to the file since the previous update into the results.
+	 * @return the number of new bytes read
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public long update() throws IOException {
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+
+		try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)) {
+			Object currentFileKey = Files.readAttributes(sourceFile.toPath(), BasicFileAttributes.class).fileKey();
+			long size = channel.size();
+			if (offset > 0
+					&& (size < offset || !Objects.equals(currentFileKey, fileKey) || !tailUnchanged(channel))) {
+				reset();								//truncated, rotated or rewritten: the old results no longer apply
+			}
+			fileKey = currentFileKey;
+
+			long start = offset;
+			while (offset < size) {
+				bytes.limit((int) Math.min(bytes.capacity(), bytes.position() + (size - offset)));
+				int bytesRead = channel.read(bytes, offset);
+				if (bytesRead <= 0) {
+					break;
+				}
+				offset += bytesRead;
+
+				bytes.flip();
+				CoderResult result;
+				do {									//an incomplete character stays in [bytes] for next time
+					result = decoder.decode(bytes, chars, false);
+					feedChars();
+				} while (result.isOverflow());
+				bytes.compact();
+			}
+			if (offset != start) {
+				rememberTail(channel);
+				generation++;
+				view = null;
+			}
+			return offset - start;
+		}
+	}
+
+
+	/**
+	 * @return the number of bytes of the file read so far
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+
+	/**
+	 * @return the word count of the file as of the last update
+	 * @throws ArithmeticException if the file has more than Integer.MAX_VALUE words (use getWordCountLong)
+	 */
+	public int getWordCount() {
+		return view().getWordCount();
+	}
+
+
+	/**
+	 * @return the word count of the file as of the last update, as a 64-bit count
+	 */
+	public long getWordCountLong() {
+		return view().getWordCountLong();
+	}
+
+
+	/**
+	 * Finds the frequency of a word in the file as of the last update.
+	 * @param word the compatible-format word to look up
+	 * @return the number of times the word occurs
+	 */
+	public int getCount(String word) {
+		return view().getCount(word);
+	}
+
+
+	/**
+	 * Finds the last sentence containing a word as of the last update. The sentence at the end of the file counts
+	 * even if it has not been ended by punctuation yet.
+	 * @param word the word to search for
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it
+	 */
+	public String lastOccurrence(String word) {
+		return view().lastOccurrence(word);
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words as of the last update.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		if (topWordsGeneration != generation || wordsDesired < 0 || wordsDesired > topWordsDesired) {
+			topWords = view().findMostFrequentWords(wordsDesired);
+			topWordsGeneration = generation;
+			topWordsDesired = wordsDesired;
+		}
+		return new ArrayList<String>(topWords.subList(0, Math.min(wordsDesired, topWords.size())));
+	}
+
+
+	/**
+	 * Copies the full results as of the last update. Takes time proportional to the vocabulary.
+	 * @return the word count, word frequencies and last sentence per word of the file so far
+	 */
+	public AnalysisResult snapshot() {
+		return view().snapshot();
+	}
+
+
+	/**
+	 * Finds the engine to answer queries from: the engine itself, unless the data read so far ends inside a character,
+	 * in which case a copy of it with those bytes decoded as at the end of the input.
+	 * @return the engine to query
+	 */
+	private TextAnalyzer view() {
+		if (view == null) {
+			if (bytes.position() == 0) {
+				view = analyzer;
+			} else {
+				ByteBuffer cutOff = bytes.duplicate().flip();
+				CharBuffer replacements = CharBuffer.allocate(cutOff.remaining() * 2 + 2);
+				CharsetDecoder endDecoder = newDecoder();
+				endDecoder.decode(cutOff, replacements, true);
+				endDecoder.flush(replacements);
+				replacements.flip();
+				view = analyzer.copy();
+				view.accept(replacements.array(), replacements.position(), replacements.remaining());
+			}
+		}
+		return view;
+	}
+
+
+	/**
+	 * @return a decoder for the file's charset that replaces malformed input, as InputStreamReader does
+	 */
+	private CharsetDecoder newDecoder() {
+		return charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+
+	/**
+	 * Feeds the decoded characters into the analysis engine and empties the char buffer.
+	 */
+	private void feedChars() {
+		chars.flip();
+		analyzer.accept(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+		chars.clear();
+	}
+
+
+	/**
+	 * Determines if the file still holds the bytes last read just before the offset.
+	 * @param channel the open file
+	 * @return false if those bytes have changed (or can no longer be read)
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean tailUnchanged(FileChannel channel) throws IOException {
+		ByteBuffer current = ByteBuffer.allocate(tailLength);
+		while (current.hasRemaining()) {
+			if (channel.read(current, offset - tailLength + current.position()) < 0) {
+				return false;
+			}
+		}
+		return Arrays.equals(current.array(), 0, tailLength, tail, 0, tailLength);
+	}
+
+
+	/**
+	 * Keeps a copy of the last bytes read, ending at the offset, for tailUnchanged.
+	 * @param channel the open file
+	 * @throws IOException if the file cannot be read
+	 */
+	private void rememberTail(FileChannel channel) throws IOException {
+		ByteBuffer current = ByteBuffer.wrap(tail, 0, (int) Math.min(CHECKED_TAIL_SIZE, offset));
+		while (current.hasRemaining()) {
+			if (channel.read(current, offset - current.limit() + current.position()) < 0) {
+				throw new IOException("source file shrank while being read");
+			}
+		}
+		tailLength = current.limit();
+	}
+
+
+	/**
+	 * Forgets all results and starts again from the beginning of the file.
+	 */
+	private void reset() {
+		analyzer = new TextAnalyzer();
+		view = null;
+		decoder = newDecoder();
+		offset = 0;
+		tailLength = 0;
+		generation++;
+		bytes.clear();
+		chars.clear();
+	}
+}
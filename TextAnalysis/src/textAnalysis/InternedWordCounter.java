@@ -0,0 +1,157 @@
+package textAnalysis;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+
+/**
+ * Counts word frequencies as an int array indexed by {@link Vocabulary} ID. Counting a word costs one vocabulary
+ * lookup and an array increment, and the counts of all words lie in one contiguous array, so passes over them (e.g.
+ * finding the most frequent words) touch no Strings or map entries except to return results. A count that would
+ * pass Integer.MAX_VALUE throws ArithmeticException, as in {@link WordCounter}. A counter is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public class InternedWordCounter {
+
+	private final Vocabulary vocabulary;
+	private int[] counts = new int[16];			//ID -> count; IDs interned elsewhere and not counted here have 0
+
+
+	/**
+	 * Creates an empty counter with a vocabulary of its own.
+	 */
+	public InternedWordCounter() {
+		this(new Vocabulary());
+	}
+
+
+	/**
+	 * Creates an empty counter that shares a vocabulary (and therefore its IDs) with other structures.
+	 * @param vocabulary the vocabulary to intern words in
+	 */
+	public InternedWordCounter(Vocabulary vocabulary) {
+		this.vocabulary = vocabulary;
+	}
+
+
+	/**
+	 * Adds one occurrence of a word.
+	 * @param word the word to count
+	 * @return the word's new count
+	 */
+	public int increment(String word) {
+		return incrementId(vocabulary.intern(word));
+	}
+
+
+	/**
+	 * Adds one occurrence of the word held in a char buffer (e.g. from a {@link WordNormalizer}). A String is only
+	 * created if the word has not been seen before.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the word's new count
+	 */
+	public int increment(char[] chars, int length) {
+		return incrementId(vocabulary.intern(chars, length));
+	}
+
+
+	/**
+	 * Adds one occurrence of the word with a given ID.
+	 * @param id the word's ID in this counter's vocabulary
+	 * @return the word's new count
+	 */
+	public int incrementId(int id) {
+		if (id >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+		}
+		return counts[id] = Math.incrementExact(counts[id]);
+	}
+
+
+	/**
+	 * @param word the word to look up
+	 * @return the word's count, or 0 if it has not been counted
+	 */
+	public int getCount(String word) {
+		return getCountOfId(vocabulary.getId(word));
+	}
+
+
+	/**
+	 * @param id a word's ID in this counter's vocabulary
+	 * @return the word's count, or 0 if it has not been counted
+	 */
+	public int getCountOfId(int id) {
+		return id >= 0 && id < counts.length ? counts[id] : 0;
+	}
+
+
+	/**
+	 * @return the number of unique words counted
+	 */
+	public int size() {
+		int size = 0;
+		for (int id = 0; id < Math.min(counts.length, vocabulary.size()); id++) {
+			if (counts[id] > 0) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+
+	/**
+	 * @return the vocabulary this counter interns words in
+	 */
+	public Vocabulary getVocabulary() {
+		return vocabulary;
+	}
+
+
+	/**
+	 * Passes every (word, count) pair to a consumer without boxing the counts, in ID order.
+	 * @param action the consumer to receive each pair
+	 */
+	public void forEachCount(ObjIntConsumer<String> action) {
+		for (int id = 0; id < Math.min(counts.length, vocabulary.size()); id++) {
+			if (counts[id] > 0) {
+				action.accept(vocabulary.getWord(id), counts[id]);
+			}
+		}
+	}
+
+
+	/**
+	 * Copies the counts onto a copy of this counter's vocabulary (see {@link Vocabulary#copy}).
+	 * @param vocabulary the copy of the vocabulary
+	 * @return a new counter holding each word's count under the same ID
+	 */
+	InternedWordCounter copy(Vocabulary vocabulary) {
+		InternedWordCounter copy = new InternedWordCounter(vocabulary);
+		copy.counts = Arrays.copyOf(counts, counts.length);
+		return copy;
+	}
+
+
+	/**
+	 * Copies the counts into a {@link WordCounter}, e.g. where a Map<String, Integer> is expected.
+	 * @return a new counter holding each word's count
+	 */
+	public WordCounter toWordCounter() {
+		WordCounter wordCounter = new WordCounter(size());
+		forEachCount(wordCounter::add);
+		return wordCounter;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words, ranked as by {@link TextAnalysis#findMostFrequentWords}.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		return TopWords.select(this::forEachCount, size(), wordsDesired);
+	}
+}
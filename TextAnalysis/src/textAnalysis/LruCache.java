@@ -0,0 +1,349 @@
+package textAnalysis;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+
+/**
+ * A thread-safe, least-recently-used cache bounded by total weight rather than by entry count: each entry is weighed
+ * (e.g. by its approximate size in bytes) when it is added, and the least recently used entries are evicted until the
+ * total is back under the limit. Hits, misses and evictions are counted.
+ * @author Leo Mishlove
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class LruCache<K, V> {
+
+	/**
+	 * Computes a value for a key that is not cached.
+	 * @param <K> the type of keys
+	 * @param <V> the type of values
+	 * @param <X> the type of exception the computation may throw
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V, X extends Exception> {
+
+		/**
+		 * @param key the key that was not cached
+		 * @return the key's value (not null)
+		 * @throws X if the value cannot be computed
+		 */
+		V load(K key) throws X;
+	}
+
+	private final long maximumWeight;
+	private final ToLongBiFunction<? super K, ? super V> weigher;
+
+	/* guarded by this; in access order, so the eldest entry is the least recently used */
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+	private long weight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/* guarded by this; keys whose values are being computed by get(key, loader) */
+	private final HashMap<K, Load<V>> loads = new HashMap<K, Load<V>>();
+
+
+	/**
+	 * Creates an empty cache.
+	 * @param maximumWeight the largest total weight of the cached entries
+	 * @param weigher computes the weight of an entry (not negative); an entry heavier than [maximumWeight] is not cached
+	 */
+	public LruCache(long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("negative maximum weight: " + maximumWeight);
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+	}
+
+
+	/**
+	 * Looks up a key, marking its entry as the most recently used.
+	 * @param key the key
+	 * @return the cached value, or null if the key is not cached
+	 */
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.value;
+	}
+
+
+	/**
+	 * Looks up a key, computing and caching its value if it is not cached. The value is computed without holding the
+	 * cache's lock, so other keys can be looked up meanwhile. Threads that miss a key while another thread is
+	 * computing it wait for that computation instead of repeating it (if it fails, one of them tries again). Each call
+	 * counts as exactly one hit or one miss, however many times it has to wait. A value whose computation began before
+	 * the key was invalidated is returned to the threads that asked for it, but not cached.
+	 * @param <X> the type of exception the computation may throw
+	 * @param key the key
+	 * @param loader computes the value (not null) if the key is not cached
+	 * @return the cached or computed value
+	 * @throws X if the value has to be computed and the computation fails (nothing is cached)
+	 */
+	public <X extends Exception> V get(K key, Loader<? super K, ? extends V, X> loader) throws X {
+		return get(key, loader, false);
+	}
+
+
+	/**
+	 * Caches a value, replacing any value cached for the key, and evicts the least recently used entries if the
+	 * cache is now too heavy.
+	 * @param key the key
+	 * @param value the value (not null)
+	 */
+	public void put(K key, V value) {
+		put(key, value, null);
+	}
+
+
+	/**
+	 * Removes a key's entry, if it is cached. A value being computed for the key will not be cached.
+	 * @param key the key
+	 */
+	public synchronized void invalidate(K key) {
+		Entry<V> entry = entries.remove(key);
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+		Load<V> load = loads.remove(key);
+		if (load != null) {
+			load.invalidated = true;
+		}
+	}
+
+
+	/**
+	 * Removes every entry whose key matches a condition. Values being computed for matching keys will not be cached.
+	 * @param condition selects the keys to remove
+	 */
+	public synchronized void invalidateIf(Predicate<? super K> condition) {
+		Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<K, Entry<V>> entry = iterator.next();
+			if (condition.test(entry.getKey())) {
+				weight -= entry.getValue().weight;
+				iterator.remove();
+			}
+		}
+		Iterator<Map.Entry<K, Load<V>>> loading = loads.entrySet().iterator();
+		while (loading.hasNext()) {
+			Map.Entry<K, Load<V>> load = loading.next();
+			if (condition.test(load.getKey())) {
+				load.getValue().invalidated = true;
+				loading.remove();
+			}
+		}
+	}
+
+
+	/**
+	 * Removes every entry. Values being computed will not be cached. The hit, miss and eviction counts are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+		for (Load<V> load : loads.values()) {
+			load.invalidated = true;
+		}
+		loads.clear();
+	}
+
+
+	/**
+	 * @return the number of cached entries
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+
+	/**
+	 * @return the total weight of the cached entries
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+
+	/**
+	 * @return the largest total weight of the cached entries
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+
+	/**
+	 * @return the number of lookups that found a cached value
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+
+	/**
+	 * @return the number of lookups that found no cached value
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+
+	/**
+	 * @return the fraction of lookups that found a cached value (0 if there have been none)
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : hitCount / (double) lookups;
+	}
+
+
+	/**
+	 * @return the number of entries evicted to keep the cache under its maximum weight
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+
+	/**
+	 * Looks up a key as get(key, loader) does.
+	 * @param <X> the type of exception the computation may throw
+	 * @param key the key
+	 * @param loader computes the value (not null) if the key is not cached
+	 * @param counted true if this call was already counted, as a miss, before waiting for a failed computation
+	 * @return the cached or computed value
+	 * @throws X if the value has to be computed and the computation fails (nothing is cached)
+	 */
+	private <X extends Exception> V get(K key, Loader<? super K, ? extends V, X> loader, boolean counted) throws X {
+		Load<V> load;
+		boolean loading;
+		synchronized (this) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (!counted) {
+					hitCount++;
+				}
+				return entry.value;
+			}
+			if (!counted) {
+				missCount++;
+			}
+			load = loads.get(key);
+			loading = load == null;
+			if (loading) {
+				load = new Load<V>();
+				loads.put(key, load);
+			}
+		}
+
+		if (!loading) {
+			V value = load.await();
+			if (value != null) {
+				return value;
+			}
+			return Thread.currentThread().isInterrupted() ? loader.load(key) : get(key, loader, true);	//or try again
+		}
+		try {
+			V value = loader.load(key);
+			put(key, value, load);					//cached before the load is removed, so no thread misses both
+			load.value = value;
+			return value;
+		} finally {
+			synchronized (this) {
+				loads.remove(key, load);			//unless an invalidation already removed it
+			}
+			load.done.countDown();
+		}
+	}
+
+
+	/**
+	 * Caches a value as put(key, value) does, unless it was computed by a load that has since been invalidated.
+	 * @param key the key
+	 * @param value the value (not null)
+	 * @param load the load that computed the value, or null if it was not computed by get(key, loader)
+	 */
+	private void put(K key, V value, Load<V> load) {
+		if (value == null) {
+			throw new NullPointerException("null value for key " + key);
+		}
+		long entryWeight = weigher.applyAsLong(key, value);		//weighed outside the lock: may be slow
+		if (entryWeight < 0) {
+			throw new IllegalArgumentException("negative weight " + entryWeight + " for key " + key);
+		}
+
+		synchronized (this) {
+			if (load != null && load.invalidated) {					//may predate the invalidation: not cached
+				return;
+			}
+			Entry<V> previous = entries.remove(key);
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+			if (entryWeight > maximumWeight) {
+				return;
+			}
+			entries.put(key, new Entry<V>(value, entryWeight));
+			weight += entryWeight;
+
+			Iterator<Entry<V>> eldest = entries.values().iterator();
+			while (weight > maximumWeight) {
+				weight -= eldest.next().weight;
+				eldest.remove();
+				evictionCount++;
+			}
+		}
+	}
+
+
+	/**
+	 * A cached value and its weight.
+	 * @param <V> the type of values
+	 */
+	private static final class Entry<V> {
+		final V value;
+		final long weight;
+
+		Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+
+	/**
+	 * A value being computed by one thread, which other threads missing the same key wait for.
+	 * @param <V> the type of values
+	 */
+	private static final class Load<V> {
+		final CountDownLatch done = new CountDownLatch(1);
+		volatile V value;						//null until computed, and if the computation fails
+		boolean invalidated = false;			//guarded by the cache; set if the key was invalidated meanwhile
+
+		/**
+		 * @return the computed value, or null if the computation failed or the waiting thread was interrupted
+		 */
+		V await() {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,556 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+
+/**
+ * Splits a file into whitespace-delimited tokens by walking its bytes directly through a memory mapping, without
+ * regular expressions and without creating a String per token. Token boundaries are the same as those of a Scanner
+ * with its default delimiter (Character.isWhitespace), assuming the file is UTF-8 (or plain ASCII).
+ * Files larger than the window size (1 GB by default) are mapped one window at a time.
+ *
+ * Runs of bytes inside a token or word are skipped many at a time by a {@link ByteClassifier}: with the Vector API
+ * when the jdk.incubator.vector module and VectorByteClassifier (the vector source root) are available, eight bytes
+ * per long otherwise. Setting the system property textAnalysis.vector to false forces the fallback. Either way, the
+ * boundaries found are those of the byte-by-byte scan.
+ * @author Leo Mishlove
+ *
+ */
+public class MappedTokenizer {
+
+	/** default number of bytes mapped at once; a single mapping cannot exceed 2 GB */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	/* a multi-byte UTF-8 character starting at the end of a window may need up to 3 more bytes to decode */
+	private static final int LOOKAHEAD = 3;
+
+	private static final ByteClassifier CLASSIFIER = loadClassifier();
+
+	private final File sourceFile;
+	private final int windowSize;
+
+
+	/**
+	 * Receives the tokens found by {@link MappedTokenizer#forEachToken}.
+	 */
+	public interface TokenVisitor {
+
+		/**
+		 * Called once per token, in order. The buffer is only valid for the duration of the call.
+		 * @param text the buffer holding the token's bytes
+		 * @param start index of the token's first byte (absolute, not relative to the buffer's position)
+		 * @param end index one past the token's last byte
+		 */
+		void visitToken(ByteBuffer text, int start, int end);
+	}
+
+
+	/**
+	 * Receives the sentences found by {@link MappedTokenizer#forEachSentence}, one word at a time.
+	 */
+	public interface SentenceVisitor {
+
+		/**
+		 * Called for each word of the current sentence, in order. Words are split at the same whitespace as
+		 * containsWord (space, tab, line feed, vertical tab, form feed, carriage return) and are not normalized.
+		 * The buffer is only valid for the duration of the call.
+		 * @param text the buffer holding the word's bytes
+		 * @param start index of the word's first byte (absolute)
+		 * @param end index one past the word's last byte
+		 */
+		void visitWord(ByteBuffer text, int start, int end);
+
+		/**
+		 * Called at the end of each sentence, after all of its words.
+		 * @param start the file offset of the sentence's first byte
+		 * @param end the file offset of the punctuation ending the sentence (or of the end of the file)
+		 */
+		void endSentence(long start, long end);
+	}
+
+
+	/**
+	 * Creates a tokenizer with the default window size.
+	 * @param sourceFile the file containing the source text
+	 */
+	public MappedTokenizer(File sourceFile) {
+		this(sourceFile, DEFAULT_WINDOW_SIZE);
+	}
+
+
+	/**
+	 * Creates a tokenizer that maps at most [windowSize] bytes at a time.
+	 * @param sourceFile the file containing the source text
+	 * @param windowSize the maximum number of bytes to map at once
+	 */
+	public MappedTokenizer(File sourceFile, int windowSize) {
+		if (windowSize <= 0 || windowSize > Integer.MAX_VALUE - LOOKAHEAD) {
+			throw new IllegalArgumentException("invalid window size: " + windowSize);
+		}
+		this.sourceFile = sourceFile;
+		this.windowSize = windowSize;
+	}
+
+
+	/**
+	 * Counts the tokens in the file. No objects are created per token.
+	 * @return the number of whitespace-delimited tokens
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public long countTokens() throws IOException {
+		long tokenCount = 0;
+		boolean inToken = false;			//carried across windows, so a token split by a window is counted once
+
+		try (FileChannel channel = openChannel()) {
+			long size = channel.size();
+			long position = 0;
+
+			while (position < size) {
+				MappedByteBuffer window = mapWindow(channel, position, size);
+				int scanLimit = Math.min(windowSize, window.limit());
+				int i = 0;
+
+				while (i < scanLimit) {
+					int charLength = whitespaceLength(window, i);
+					if (charLength > 0) {						//whitespace: ends any token in progress
+						inToken = false;
+						i += charLength;
+					} else {
+						if (!inToken) {							//first byte of a new token
+							tokenCount++;
+							inToken = true;
+						}
+						i += characterLength(window, i);
+						i = CLASSIFIER.skipTokenBytes(window, i, scanLimit);	//the rest of an ASCII run
+					}
+				}
+				position += i;
+			}
+		}
+		return tokenCount;
+	}
+
+
+	/**
+	 * Passes every token in the file to a visitor, in order. A token that straddles two windows is copied into a
+	 * single heap buffer before being visited; all other tokens are visited in place in the mapping.
+	 * @param visitor the visitor to receive each token
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public void forEachToken(TokenVisitor visitor) throws IOException {
+		forEachToken(0, Long.MAX_VALUE, visitor);
+	}
+
+
+	/**
+	 * Passes every token in a byte range of the file to a visitor, in order. The range must start and end on token
+	 * boundaries (at whitespace, or at the start or end of the file), as chosen by e.g. {@link WordCountTask}.
+	 * @param from the file offset where the range starts
+	 * @param to the file offset where the range ends (exclusive); clamped to the file size
+	 * @param visitor the visitor to receive each token
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public void forEachToken(long from, long to, TokenVisitor visitor) throws IOException {
+		byte[] carry = new byte[64];			//bytes of a token begun in a previous window
+		int carryLength = 0;
+
+		try (FileChannel channel = openChannel()) {
+			long end = Math.min(to, channel.size());
+			long position = from;
+
+			while (position < end) {
+				MappedByteBuffer window = mapWindow(channel, position, end);
+				int scanLimit = Math.min(windowSize, window.limit());
+				int tokenStart = carryLength > 0 ? 0 : -1;		//-1 when no token is in progress
+				int i = 0;
+
+				while (i < scanLimit) {
+					int charLength = whitespaceLength(window, i);
+					if (charLength > 0) {
+						if (tokenStart >= 0) {
+							if (carryLength > 0) {						//finish a token begun in an earlier window
+								carry = append(carry, carryLength, window, tokenStart, i);
+								carryLength += i - tokenStart;
+								visitor.visitToken(ByteBuffer.wrap(carry), 0, carryLength);
+								carryLength = 0;
+							} else {
+								visitor.visitToken(window, tokenStart, i);
+							}
+							tokenStart = -1;
+						}
+						i += charLength;
+					} else {
+						if (tokenStart < 0) {
+							tokenStart = i;
+						}
+						i += characterLength(window, i);
+						i = CLASSIFIER.skipTokenBytes(window, i, scanLimit);
+					}
+				}
+
+				if (tokenStart >= 0) {									//token continues into the next window
+					carry = append(carry, carryLength, window, tokenStart, i);
+					carryLength += i - tokenStart;
+				}
+				position += i;
+			}
+		}
+
+		if (carryLength > 0) {											//token at the very end of the file
+			visitor.visitToken(ByteBuffer.wrap(carry), 0, carryLength);
+		}
+	}
+
+
+	/**
+	 * Passes every sentence in the file to a visitor, word by word. Sentences end at ., ? or ! exactly as in
+	 * lastOccurrence, so consecutive punctuation produces empty sentences, and text after the last punctuation is a
+	 * sentence of its own. All delimiters are ASCII, so they can be found without decoding the UTF-8 around them.
+	 * @param visitor the visitor to receive each word and sentence
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public void forEachSentence(SentenceVisitor visitor) throws IOException {
+		byte[] carry = new byte[64];			//bytes of a word begun in a previous window
+		int carryLength = 0;
+		long sentenceStart = 0;
+		long size;
+
+		try (FileChannel channel = openChannel()) {
+			size = channel.size();
+			long position = 0;
+
+			while (position < size) {
+				MappedByteBuffer window = mapWindow(channel, position, size);
+				int scanLimit = Math.min(windowSize, window.limit());
+				int wordStart = carryLength > 0 ? 0 : -1;			//-1 when no word is in progress
+
+				for (int i = 0; i < scanLimit; i++) {
+					byte b = window.get(i);
+					boolean sentenceEnd = isSentenceEnd(b);
+					if (!sentenceEnd && !isSplitWhitespace(b)) {	//part of a word
+						if (wordStart < 0) {
+							wordStart = i;
+						}
+						i = CLASSIFIER.skipWordBytes(window, i + 1, scanLimit) - 1;	//the rest of the word
+						continue;
+					}
+
+					if (wordStart >= 0) {							//end of a word
+						if (carryLength > 0) {
+							carry = append(carry, carryLength, window, wordStart, i);
+							carryLength += i - wordStart;
+							visitor.visitWord(ByteBuffer.wrap(carry), 0, carryLength);
+							carryLength = 0;
+						} else {
+							visitor.visitWord(window, wordStart, i);
+						}
+						wordStart = -1;
+					}
+					if (sentenceEnd) {								//end of a sentence
+						visitor.endSentence(sentenceStart, position + i);
+						sentenceStart = position + i + 1;
+					}
+				}
+
+				if (wordStart >= 0) {								//word continues into the next window
+					carry = append(carry, carryLength, window, wordStart, scanLimit);
+					carryLength += scanLimit - wordStart;
+				}
+				position += scanLimit;
+			}
+		}
+
+		if (carryLength > 0) {
+			visitor.visitWord(ByteBuffer.wrap(carry), 0, carryLength);
+		}
+		if (sentenceStart < size) {								//text after the last punctuation
+			visitor.endSentence(sentenceStart, size);
+		}
+	}
+
+
+	/**
+	 * Passes every token and every sentence in the file to two visitors in a single pass, so that a caller needing
+	 * both (e.g. {@link AnalysisIndex}) reads the file once. The tokens are those of forEachToken and the sentences
+	 * those of forEachSentence; calls to the two visitors are interleaved in file order.
+	 * @param tokenVisitor the visitor to receive each token
+	 * @param sentenceVisitor the visitor to receive each word and sentence
+	 * @param checksum a checksum to update with every byte of the file, in order, or null
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public void forEachTokenAndSentence(TokenVisitor tokenVisitor, SentenceVisitor sentenceVisitor,
+			Checksum checksum) throws IOException {
+		byte[] tokenCarry = new byte[64];		//bytes of a token begun in a previous window
+		int tokenCarryLength = 0;
+		byte[] wordCarry = new byte[64];		//bytes of a word begun in a previous window
+		int wordCarryLength = 0;
+		long sentenceStart = 0;
+		long size;
+
+		try (FileChannel channel = openChannel()) {
+			size = channel.size();
+			long position = 0;
+
+			while (position < size) {
+				MappedByteBuffer window = mapWindow(channel, position, size);
+				int scanLimit = Math.min(windowSize, window.limit());
+				int tokenStart = tokenCarryLength > 0 ? 0 : -1;		//-1 when no token is in progress
+				int wordStart = wordCarryLength > 0 ? 0 : -1;			//-1 when no word is in progress
+				int i = 0;
+
+				while (i < scanLimit) {
+					byte b = window.get(i);
+					int charLength;
+					boolean tokenEnd;
+					boolean wordEnd;
+					boolean sentenceEnd = false;
+					if (b >= 0) {									//ASCII: may end a token, a word or both
+						charLength = 1;
+						tokenEnd = isAsciiWhitespace(b);
+						sentenceEnd = isSentenceEnd(b);
+						wordEnd = sentenceEnd || isSplitWhitespace(b);
+					} else {										//non-ASCII whitespace only ends a token
+						int whitespaceLength = whitespaceLength(window, i);
+						charLength = whitespaceLength > 0 ? whitespaceLength : characterLength(window, i);
+						tokenEnd = whitespaceLength > 0;
+						wordEnd = false;
+					}
+
+					if (tokenEnd) {
+						if (tokenStart >= 0) {
+							if (tokenCarryLength > 0) {
+								tokenCarry = append(tokenCarry, tokenCarryLength, window, tokenStart, i);
+								tokenCarryLength += i - tokenStart;
+								tokenVisitor.visitToken(ByteBuffer.wrap(tokenCarry), 0, tokenCarryLength);
+								tokenCarryLength = 0;
+							} else {
+								tokenVisitor.visitToken(window, tokenStart, i);
+							}
+							tokenStart = -1;
+						}
+					} else if (tokenStart < 0) {
+						tokenStart = i;
+					}
+
+					if (wordEnd) {
+						if (wordStart >= 0) {
+							if (wordCarryLength > 0) {
+								wordCarry = append(wordCarry, wordCarryLength, window, wordStart, i);
+								wordCarryLength += i - wordStart;
+								sentenceVisitor.visitWord(ByteBuffer.wrap(wordCarry), 0, wordCarryLength);
+								wordCarryLength = 0;
+							} else {
+								sentenceVisitor.visitWord(window, wordStart, i);
+							}
+							wordStart = -1;
+						}
+						if (sentenceEnd) {
+							sentenceVisitor.endSentence(sentenceStart, position + i);
+							sentenceStart = position + i + 1;
+						}
+					} else if (wordStart < 0) {
+						wordStart = i;
+					}
+
+					i += charLength;
+					if (!tokenEnd && !wordEnd) {					//inside both: skip what continues both
+						i = CLASSIFIER.skipWordBytes(window, i, CLASSIFIER.skipTokenBytes(window, i, scanLimit));
+					}
+				}
+
+				if (tokenStart >= 0) {								//token continues into the next window
+					tokenCarry = append(tokenCarry, tokenCarryLength, window, tokenStart, i);
+					tokenCarryLength += i - tokenStart;
+				}
+				if (wordStart >= 0) {								//word continues into the next window
+					wordCarry = append(wordCarry, wordCarryLength, window, wordStart, i);
+					wordCarryLength += i - wordStart;
+				}
+				if (checksum != null) {
+					checksum.update(window.duplicate().position(0).limit(i));
+				}
+				position += i;
+			}
+		}
+
+		if (tokenCarryLength > 0) {
+			tokenVisitor.visitToken(ByteBuffer.wrap(tokenCarry), 0, tokenCarryLength);
+		}
+		if (wordCarryLength > 0) {
+			sentenceVisitor.visitWord(ByteBuffer.wrap(wordCarry), 0, wordCarryLength);
+		}
+		if (sentenceStart < size) {								//text after the last punctuation
+			sentenceVisitor.endSentence(sentenceStart, size);
+		}
+	}
+
+
+	/**
+	 * Loads VectorByteClassifier if the Vector API module and the class are both present and not disabled, and the
+	 * scalar fallback otherwise. The class is looked up by name so that this source root compiles without the
+	 * incubator module.
+	 * @return the classifier to use
+	 */
+	private static ByteClassifier loadClassifier() {
+		if (Boolean.parseBoolean(System.getProperty("textAnalysis.vector", "true"))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				return (ByteClassifier) Class.forName("textAnalysis.VectorByteClassifier")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				//not compiled or not on the class path: fall back
+			}
+		}
+		return new ScalarByteClassifier();
+	}
+
+
+	/**
+	 * Opens a read-only channel to the source file.
+	 * @return the open channel
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be opened
+	 */
+	private FileChannel openChannel() throws IOException {
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		return FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ);
+	}
+
+
+	/**
+	 * Maps the next window of the file, plus a few bytes of lookahead so that a character starting inside the window
+	 * can always be decoded.
+	 * @param channel the channel to map
+	 * @param position the file offset where the window starts
+	 * @param end the file offset where the text being scanned ends (at most the size of the file)
+	 * @return the mapped window
+	 * @throws IOException if the mapping fails
+	 */
+	private MappedByteBuffer mapWindow(FileChannel channel, long position, long end) throws IOException {
+		long mapLength = Math.min((long) windowSize + LOOKAHEAD, end - position);
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, mapLength);
+	}
+
+
+	/**
+	 * Appends the bytes [start, end) of a buffer to a growable byte array.
+	 * @param array the array to append to
+	 * @param length the number of bytes already in the array
+	 * @param source the buffer holding the bytes to append
+	 * @param start index of the first byte to append
+	 * @param end index one past the last byte to append
+	 * @return the array holding the appended bytes (the same array unless it had to grow)
+	 */
+	private static byte[] append(byte[] array, int length, ByteBuffer source, int start, int end) {
+		int needed = length + (end - start);
+		if (needed > array.length) {
+			array = Arrays.copyOf(array, Math.max(needed, array.length * 2));
+		}
+		for (int i = start; i < end; i++) {
+			array[length++] = source.get(i);
+		}
+		return array;
+	}
+
+
+	/**
+	 * Determines if the UTF-8 character at a given index is whitespace (as defined by Character.isWhitespace).
+	 * @param text the buffer holding the text
+	 * @param index the index of the character's first byte
+	 * @return the length in bytes of the whitespace character, or 0 if the character is not whitespace
+	 */
+	static int whitespaceLength(ByteBuffer text, int index) {
+		byte b = text.get(index);
+		if (b >= 0) {												//ASCII: single byte
+			return isAsciiWhitespace(b) ? 1 : 0;
+		}
+		if (b != (byte) 0xE1 && b != (byte) 0xE2 && b != (byte) 0xE3) {
+			return 0;			//all non-ASCII whitespace (U+1680, U+2000-U+205F, U+3000) is 3 bytes, E1-E3 lead
+		}
+		int charLength = characterLength(text, index);
+		if (charLength != 3) {
+			return 0;
+		}
+		int codePoint = ((b & 0x0F) << 12) | ((text.get(index + 1) & 0x3F) << 6) | (text.get(index + 2) & 0x3F);
+		return Character.isWhitespace(codePoint) ? 3 : 0;
+	}
+
+
+	/**
+	 * Determines if an ASCII byte is whitespace (as defined by Character.isWhitespace).
+	 * @param b the byte to check
+	 * @return true for tab, line feed, vertical tab, form feed, carriage return, the file/group/record/unit
+	 * separators, and space
+	 */
+	static boolean isAsciiWhitespace(byte b) {
+		return (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x20);
+	}
+
+
+	/**
+	 * Determines if a byte ends a sentence (., ?, or !), matching the delimiter used by lastOccurrence.
+	 * @param b the byte to check
+	 * @return true if the byte is end-of-sentence punctuation
+	 */
+	static boolean isSentenceEnd(byte b) {
+		return b == '.' || b == '?' || b == '!';
+	}
+
+
+	/**
+	 * Determines if a byte separates the words of a sentence, matching the \s split used by containsWord.
+	 * @param b the byte to check
+	 * @return true if the byte is a space, tab, line feed, vertical tab, form feed or carriage return
+	 */
+	static boolean isSplitWhitespace(byte b) {
+		return b == ' ' || (b >= 0x09 && b <= 0x0D);
+	}
+
+
+	/**
+	 * Finds the length of the UTF-8 character starting at a given index. Malformed or truncated sequences are
+	 * treated as single-byte characters, as a decoder would replace each with U+FFFD.
+	 * @param text the buffer holding the text
+	 * @param index the index of the character's first byte
+	 * @return the number of bytes in the character (1 to 4)
+	 */
+	static int characterLength(ByteBuffer text, int index) {
+		int lead = text.get(index) & 0xFF;
+		int charLength;
+		if (lead < 0xC2) {									//ASCII, stray continuation byte, or overlong lead
+			return 1;
+		} else if (lead < 0xE0) {
+			charLength = 2;
+		} else if (lead < 0xF0) {
+			charLength = 3;
+		} else if (lead < 0xF5) {
+			charLength = 4;
+		} else {
+			return 1;
+		}
+
+		if (index + charLength > text.limit()) {
+			return 1;
+		}
+		for (int i = 1; i < charLength; i++) {				//every following byte must be a continuation byte
+			if ((text.get(index + i) & 0xC0) != 0x80) {
+				return 1;
+			}
+		}
+		return charLength;
+	}
+}
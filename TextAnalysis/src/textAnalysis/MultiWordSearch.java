@@ -0,0 +1,351 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Finds the sentences containing any of a set of words in one pass over a file, however many words there are. The
+ * words are compiled into an Aho-Corasick automaton, and the text of each sentence is fed through it as its
+ * compatible-format words separated by spaces, so every occurrence of every word is found with one transition per
+ * char. Each word is searched for as " word ", and a space separates every two words of a sentence and ends its
+ * last, so a match always covers one whole word: the same test as containsWord in {@link TextAnalysis#lastOccurrence},
+ * with sentences and words split exactly as there.
+ *
+ * Words are matched as given, so they should already be in compatible format; like containsWord, a word with capital
+ * letters, leading or trailing punctuation or whitespace never matches. Every word given is still answered for, with
+ * no sentences. That includes the empty string, which is never searched for: unlike lastOccurrence, where a sentence
+ * containing a piece that converts to "" (e.g. "--", or an extra space) contains "", it always maps to no sentence.
+ * Sentence text is read back from the source file (UTF-8), as in {@link SentenceIndex}. A search can be reused for
+ * any number of files, and by several threads at once.
+ * @author Leo Mishlove
+ *
+ */
+public class MultiWordSearch {
+
+	/* separates the words fed to the automaton; never part of a word, since words are split at whitespace */
+	private static final char SEPARATOR = ' ';
+
+	private static final int ROOT = 0;
+
+	private final String[] requested;			//every distinct word given, in order
+	private final int[] requestedPatterns;		//requested index -> pattern number, or -1 if it can never match
+	private final String[] words;				//pattern number -> word
+
+	/* the automaton, in arrays indexed by state: the edges of a state are edgeLabels/edgeTargets[firstEdge[state]]
+	 * to [firstEdge[state + 1]], sorted by label */
+	private final int[] firstEdge;
+	private final char[] edgeLabels;
+	private final int[] edgeTargets;
+	private final int[] failures;				//state -> state of the longest proper suffix that is also a prefix
+	private final int[] patterns;				//state -> number of the word ending there, or -1
+	private final int[] outputLinks;			//state -> nearest state along the failure chain that ends a word, or -1
+
+
+	/**
+	 * Compiles the automaton for a set of words.
+	 * @param searchWords the words to search for (duplicates are ignored)
+	 */
+	public MultiWordSearch(Collection<String> searchWords) {
+		this.requested = new LinkedHashSet<String>(searchWords).toArray(new String[0]);
+		this.requestedPatterns = new int[requested.length];
+		List<String> searchable = new ArrayList<String>();
+		for (int i = 0; i < requested.length; i++) {
+			String word = requested[i];
+			boolean matchable = !word.isEmpty() && word.indexOf(SEPARATOR) < 0;	//others never match a single word
+			requestedPatterns[i] = matchable ? searchable.size() : -1;
+			if (matchable) {
+				searchable.add(word);
+			}
+		}
+		this.words = searchable.toArray(new String[0]);
+
+		/* build the trie of " word " for every word */
+		List<TreeMap<Character, Integer>> trie = new ArrayList<TreeMap<Character, Integer>>();
+		List<Integer> trieWords = new ArrayList<Integer>();
+		trie.add(new TreeMap<Character, Integer>());
+		trieWords.add(-1);
+		for (int pattern = 0; pattern < words.length; pattern++) {
+			String text = SEPARATOR + words[pattern] + SEPARATOR;
+			int state = ROOT;
+			for (int i = 0; i < text.length(); i++) {
+				Integer next = trie.get(state).get(text.charAt(i));
+				if (next == null) {
+					next = trie.size();
+					trie.add(new TreeMap<Character, Integer>());
+					trieWords.add(-1);
+					trie.get(state).put(text.charAt(i), next);
+				}
+				state = next;
+			}
+			trieWords.set(state, pattern);
+		}
+
+		/* flatten it into arrays */
+		int stateCount = trie.size();
+		this.firstEdge = new int[stateCount + 1];
+		this.edgeLabels = new char[stateCount - 1];				//every state but the root has one incoming edge
+		this.edgeTargets = new int[stateCount - 1];
+		this.patterns = new int[stateCount];
+		int edge = 0;
+		for (int state = 0; state < stateCount; state++) {
+			firstEdge[state] = edge;
+			for (Map.Entry<Character, Integer> child : trie.get(state).entrySet()) {
+				edgeLabels[edge] = child.getKey();
+				edgeTargets[edge++] = child.getValue();
+			}
+			patterns[state] = trieWords.get(state);
+		}
+		firstEdge[stateCount] = edge;
+
+		/* failure and output links, breadth first so that a state's failure is linked before its children's */
+		this.failures = new int[stateCount];
+		this.outputLinks = new int[stateCount];
+		Arrays.fill(outputLinks, -1);
+		int[] queue = new int[stateCount];
+		int head = 0;
+		int tail = 0;
+		for (int e = firstEdge[ROOT]; e < firstEdge[ROOT + 1]; e++) {
+			queue[tail++] = edgeTargets[e];							//children of the root fail to the root
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			for (int e = firstEdge[state]; e < firstEdge[state + 1]; e++) {
+				int child = edgeTargets[e];
+				int failure = failures[state];
+				while (failure != ROOT && transition(failure, edgeLabels[e]) < 0) {
+					failure = failures[failure];
+				}
+				int next = transition(failure, edgeLabels[e]);
+				failures[child] = next >= 0 && next != child ? next : ROOT;
+				outputLinks[child] = patterns[failures[child]] >= 0 ? failures[child] : outputLinks[failures[child]];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+
+	/**
+	 * @return the number of distinct words searched for (not counting ones that can never match, such as "", which
+	 * are still answered for)
+	 */
+	public int size() {
+		return words.length;
+	}
+
+
+	/**
+	 * Finds the last sentence containing each word, in one pass over the file.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return each distinct word given, in order, mapped to the last sentence containing it (the empty string if none
+	 * does), as lastOccurrence would find it; the empty string and words containing a space map to the empty string
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public Map<String, String> lastOccurrences(File sourceFile) throws IOException {
+		Scan scan = new Scan(false);
+		new MappedTokenizer(sourceFile).forEachSentence(scan);
+
+		Map<String, String> lastOccurrences = new LinkedHashMap<String, String>();
+		try (SentenceReader reader = new SentenceReader(sourceFile)) {
+			for (int i = 0; i < requested.length; i++) {
+				int pattern = requestedPatterns[i];
+				lastOccurrences.put(requested[i], pattern < 0 || scan.matchCounts[pattern] == 0 ? ""
+						: reader.read(scan.matchStarts[pattern][0], scan.matchEnds[pattern][0]));
+			}
+		}
+		return lastOccurrences;
+	}
+
+
+	/**
+	 * Finds every sentence containing each word, in one pass over the file.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return each distinct word given, in order, mapped to the sentences containing it in the order they appear
+	 * (each sentence once; an empty list if none does, and for the empty string and words containing a space)
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public Map<String, List<String>> allOccurrences(File sourceFile) throws IOException {
+		Scan scan = new Scan(true);
+		new MappedTokenizer(sourceFile).forEachSentence(scan);
+
+		Map<String, List<String>> allOccurrences = new LinkedHashMap<String, List<String>>();
+		try (SentenceReader reader = new SentenceReader(sourceFile)) {
+			for (int i = 0; i < requested.length; i++) {
+				int pattern = requestedPatterns[i];
+				int matches = pattern < 0 ? 0 : scan.matchCounts[pattern];
+				List<String> sentences = new ArrayList<String>(matches);
+				for (int match = 0; match < matches; match++) {
+					sentences.add(reader.read(scan.matchStarts[pattern][match], scan.matchEnds[pattern][match]));
+				}
+				allOccurrences.put(requested[i], sentences);
+			}
+		}
+		return allOccurrences;
+	}
+
+
+	/**
+	 * Follows a state's edge for a char, without failure links.
+	 * @param state the state
+	 * @param c the char
+	 * @return the target state, or -1 if the state has no edge for the char
+	 */
+	private int transition(int state, char c) {
+		int low = firstEdge[state];
+		int high = firstEdge[state + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (edgeLabels[middle] < c) {
+				low = middle + 1;
+			} else if (edgeLabels[middle] > c) {
+				high = middle - 1;
+			} else {
+				return edgeTargets[middle];
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * One pass of the automaton over a file. Holds the matching state, so each search gets its own.
+	 */
+	private class Scan implements MappedTokenizer.SentenceVisitor {
+		private final boolean keepAll;			//every matching sentence, or only the last
+		private final WordNormalizer normalizer = new WordNormalizer();
+		private int state;
+
+		/* per word: the offsets of the sentences found (only [0], overwritten, unless keepAll) */
+		final long[][] matchStarts = new long[words.length][];
+		final long[][] matchEnds = new long[words.length][];
+		final int[] matchCounts = new int[words.length];
+
+		/* the words found in the current sentence, and for each word the last sentence it was found in */
+		private int[] sentenceMatches = new int[16];
+		private int sentenceMatchCount = 0;
+		private final int[] lastMatchedSentence = new int[words.length];
+		private int sentence = 0;
+
+		Scan(boolean keepAll) {
+			this.keepAll = keepAll;
+			Arrays.fill(lastMatchedSentence, -1);
+			state = step(ROOT, SEPARATOR);
+		}
+
+		@Override
+		public void visitWord(ByteBuffer text, int start, int end) {
+			int length = normalizer.normalize(text, start, end);
+			if (length == 0) {						//containsWord's "" never equals a search word
+				return;
+			}
+			char[] chars = normalizer.getChars();
+			for (int i = 0; i < length; i++) {
+				state = step(state, chars[i]);
+			}
+			state = step(state, SEPARATOR);
+		}
+
+		@Override
+		public void endSentence(long start, long end) {
+			for (int i = 0; i < sentenceMatchCount; i++) {
+				int pattern = sentenceMatches[i];
+				int match = keepAll ? matchCounts[pattern] : 0;
+				if (matchStarts[pattern] == null || match == matchStarts[pattern].length) {
+					int capacity = matchStarts[pattern] == null ? (keepAll ? 4 : 1) : match * 2;
+					matchStarts[pattern] = matchStarts[pattern] == null ? new long[capacity]
+							: Arrays.copyOf(matchStarts[pattern], capacity);
+					matchEnds[pattern] = matchEnds[pattern] == null ? new long[capacity]
+							: Arrays.copyOf(matchEnds[pattern], capacity);
+				}
+				matchStarts[pattern][match] = start;
+				matchEnds[pattern][match] = end;
+				matchCounts[pattern] = keepAll ? match + 1 : 1;
+			}
+			sentenceMatchCount = 0;
+			sentence++;
+			state = step(ROOT, SEPARATOR);			//a match never spans two sentences
+		}
+
+		/**
+		 * Feeds one char to the automaton and records every word that ends with it.
+		 * @param from the current state
+		 * @param c the char
+		 * @return the next state
+		 */
+		private int step(int from, char c) {
+			int next = transition(from, c);
+			while (next < 0 && from != ROOT) {
+				from = failures[from];
+				next = transition(from, c);
+			}
+			int to = next >= 0 ? next : ROOT;
+
+			for (int output = patterns[to] >= 0 ? to : outputLinks[to]; output >= 0; output = outputLinks[output]) {
+				int pattern = patterns[output];
+				if (lastMatchedSentence[pattern] != sentence) {		//each sentence once per word
+					lastMatchedSentence[pattern] = sentence;
+					if (sentenceMatchCount == sentenceMatches.length) {
+						sentenceMatches = Arrays.copyOf(sentenceMatches, sentenceMatchCount * 2);
+					}
+					sentenceMatches[sentenceMatchCount++] = pattern;
+				}
+			}
+			return to;
+		}
+	}
+
+
+	/**
+	 * Reads sentence text back from the source file, decoding each sentence only once however many words it matched.
+	 */
+	private static class SentenceReader implements AutoCloseable {
+		private final FileChannel channel;
+		private final Map<Long, String> sentences = new HashMap<Long, String>();
+
+		SentenceReader(File sourceFile) throws IOException {
+			this.channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ);
+		}
+
+		/**
+		 * @param start the file offset of the sentence's first byte
+		 * @param end the file offset one past its last byte
+		 * @return the sentence text
+		 * @throws IOException if the source file cannot be read
+		 */
+		String read(long start, long end) throws IOException {
+			String sentence = sentences.get(start);
+			if (sentence != null) {
+				return sentence;
+			}
+			ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+			while (bytes.hasRemaining()) {
+				if (channel.read(bytes, start + bytes.position()) < 0) {
+					throw new IOException("source file is shorter than when it was searched");
+				}
+			}
+			sentence = new String(bytes.array(), StandardCharsets.UTF_8);
+			sentences.put(start, sentence);
+			return sentence;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
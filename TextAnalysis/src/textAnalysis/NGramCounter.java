@@ -0,0 +1,517 @@
+package textAnalysis;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Counts the frequencies of n-grams (runs of [n] consecutive words, e.g. bigrams for n = 2) without building a String
+ * for any of them. Each word is interned to a dense int ID, and an n-gram is stored as the IDs of its words packed
+ * into one long, in an open-addressing table (linear probing) with primitive int counts. An n-gram with a word whose
+ * ID does not fit in its share of the long (past 2^21 distinct words for trigrams) goes to a second table instead,
+ * keyed by two longs with 31 bits per ID, so any vocabulary size is supported. Words are fed in order with
+ * add(); n-grams never span a sentence end (see endSentence()). Words should already be in compatible format (see
+ * {@link TextAnalysis#convertWordToCompatible}). The vocabulary can be shared with other structures (e.g. an
+ * {@link InternedWordCounter}) so that they agree on word IDs. A counter is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public class NGramCounter {
+
+	/** largest n supported: a trigram packs three 21-bit IDs into 63 bits, or three 31-bit IDs into two longs */
+	public static final int MAX_N = 3;
+
+	/* bits per word ID in a wide key: every ID fits */
+	private static final int WIDE_ID_BITS = Integer.SIZE - 1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/* kept at or below one half, as in WordCounter */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private final int n;
+	private final int idBits;						//bits per word ID in a packed n-gram
+	private final long nGramMask;					//the n * idBits bits a packed n-gram uses
+	private final Vocabulary vocabulary;
+
+	/* parallel arrays indexed by slot; a key is the packed n-gram plus one, so that 0 marks an empty slot */
+	private long[] keys;
+	private int[] counts;
+	private int size = 0;
+	private int resizeThreshold;
+
+	/* n-grams with an ID too wide for idBits, allocated on first use; wideKeys holds two longs per slot: the first
+	 * n - 2 IDs, then the last two IDs plus one (so that 0 marks an empty slot) */
+	private long[] wideKeys;
+	private int[] wideCounts;
+	private int wideSize = 0;
+	private int wideResizeThreshold;
+
+	/* the IDs of the last words added in this sentence, oldest first, and how many there have been */
+	private final int[] window;
+	private int windowLength = 0;
+
+
+	/**
+	 * Creates an empty counter with a vocabulary of its own.
+	 * @param n the number of words per n-gram, between 1 and MAX_N
+	 */
+	public NGramCounter(int n) {
+		this(n, new Vocabulary());
+	}
+
+
+	/**
+	 * Creates an empty counter that shares a vocabulary (and therefore its IDs) with other structures.
+	 * @param n the number of words per n-gram, between 1 and MAX_N
+	 * @param vocabulary the vocabulary to intern words in
+	 */
+	public NGramCounter(int n, Vocabulary vocabulary) {
+		if (n < 1 || n > MAX_N) {
+			throw new IllegalArgumentException("n must be between 1 and " + MAX_N + ": " + n);
+		}
+		this.n = n;
+		this.vocabulary = vocabulary;
+		this.idBits = Math.min(Integer.SIZE - 1, (Long.SIZE - 1) / n);
+		this.nGramMask = (1L << (idBits * n)) - 1;
+		this.window = new int[n];
+		allocate(MINIMUM_CAPACITY);
+	}
+
+
+	/**
+	 * Adds the next word of the text.
+	 * @param word the word, in compatible format
+	 */
+	public void add(String word) {
+		char[] chars = word.toCharArray();
+		add(chars, chars.length);
+	}
+
+
+	/**
+	 * Adds the next word of the text, held in a char buffer (e.g. from a {@link WordNormalizer}). A String is only
+	 * created if the word has not been seen before.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 */
+	public void add(char[] chars, int length) {
+		System.arraycopy(window, 1, window, 0, n - 1);
+		window[n - 1] = vocabulary.intern(chars, length);
+		if (++windowLength >= n) {
+			if (fitsNarrow(window)) {
+				increment(pack(window));
+			} else {
+				incrementWide(packWideHigh(window), packWideLow(window));
+			}
+		}
+	}
+
+
+	/**
+	 * Marks the end of a sentence: the next word starts a new n-gram instead of continuing the last one.
+	 */
+	public void endSentence() {
+		windowLength = 0;
+	}
+
+
+	/**
+	 * Finds the number of times an n-gram has been counted.
+	 * @param words the n-gram's words in order, in compatible format
+	 * @return the n-gram's count, or 0 if it has not been counted
+	 */
+	public int getCount(String... words) {
+		if (words.length != n) {
+			throw new IllegalArgumentException("expected " + n + " words, got " + words.length);
+		}
+		int[] ids = new int[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = vocabulary.getId(words[i]);
+			if (ids[i] < 0) {								//never seen
+				return 0;
+			}
+		}
+		if (fitsNarrow(ids)) {
+			int slot = findSlot(pack(ids) + 1);
+			return keys[slot] != 0 ? counts[slot] : 0;
+		}
+		if (wideKeys == null) {
+			return 0;
+		}
+		int slot = findWideSlot(packWideHigh(ids), packWideLow(ids) + 1);
+		return wideKeys[2 * slot + 1] != 0 ? wideCounts[slot] : 0;
+	}
+
+
+	/**
+	 * @return the number of words per n-gram
+	 */
+	public int getN() {
+		return n;
+	}
+
+
+	/**
+	 * @return the number of distinct n-grams counted
+	 */
+	public int size() {
+		return size + wideSize;
+	}
+
+
+	/**
+	 * @return the number of distinct words seen
+	 */
+	public int getVocabularySize() {
+		return vocabulary.size();
+	}
+
+
+	/**
+	 * @return the vocabulary this counter interns words in
+	 */
+	public Vocabulary getVocabulary() {
+		return vocabulary;
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent n-grams, ranked as words are by {@link TextAnalysis#findMostFrequentWords}: by
+	 * descending frequency, and alphabetically (word by word) among n-grams with the same frequency.
+	 * @param nGramsDesired the cutoff point for the number of most frequent n-grams
+	 * @return the top [nGramsDesired] most frequent n-grams, each as its words separated by single spaces, in
+	 * descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentNGrams(int nGramsDesired) {
+		if (nGramsDesired < 0) {
+			throw new IllegalArgumentException("negative number of n-grams desired: " + nGramsDesired);
+		}
+		int selected = Math.min(nGramsDesired, size());
+
+		/* bounded min-heap of n-grams (see idOf), the worst of the best [selected] so far at the root */
+		int[] heap = new int[selected];
+		int heapSize = 0;
+		int wideSlots = wideKeys != null ? wideCounts.length : 0;
+		for (int i = 0; i < keys.length + wideSlots && selected > 0; i++) {
+			int nGram = i < keys.length ? i : ~(i - keys.length);
+			if (nGram >= 0 ? keys[nGram] == 0 : wideKeys[2 * ~nGram + 1] == 0) {
+				continue;
+			}
+			if (heapSize < selected) {
+				heap[heapSize] = nGram;
+				siftUp(heap, heapSize++);
+			} else if (ranksBefore(nGram, heap[0])) {
+				heap[0] = nGram;
+				siftDown(heap, heapSize, 0);
+			}
+		}
+
+		String[] mostFrequentNGrams = new String[heapSize];
+		while (heapSize > 0) {										//pop the worst first, filling from the back
+			mostFrequentNGrams[heapSize - 1] = toPhrase(heap[0]);
+			heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize, 0);
+		}
+		return new ArrayList<String>(Arrays.asList(mostFrequentNGrams));
+	}
+
+
+	/**
+	 * @param ids the IDs of an n-gram's words
+	 * @return true if every ID fits in idBits, so that the n-gram can be packed into one long
+	 */
+	private boolean fitsNarrow(int[] ids) {
+		int bits = 0;
+		for (int id : ids) {
+			bits |= id;
+		}
+		return bits >>> idBits == 0;
+	}
+
+
+	/**
+	 * @param ids the IDs of an n-gram's words, each fitting in idBits
+	 * @return the n-gram packed into one long, first word in the highest bits
+	 */
+	private long pack(int[] ids) {
+		long nGram = 0;
+		for (int id : ids) {
+			nGram = (nGram << idBits) | id;
+		}
+		return nGram & nGramMask;
+	}
+
+
+	/**
+	 * @param ids the IDs of an n-gram's words
+	 * @return the first n - 2 IDs packed at 31 bits each (0 for n <= 2)
+	 */
+	private long packWideHigh(int[] ids) {
+		long high = 0;
+		for (int i = 0; i < n - 2; i++) {
+			high = (high << WIDE_ID_BITS) | ids[i];
+		}
+		return high;
+	}
+
+
+	/**
+	 * @param ids the IDs of an n-gram's words
+	 * @return the last (up to) two IDs packed at 31 bits each
+	 */
+	private long packWideLow(int[] ids) {
+		long low = 0;
+		for (int i = Math.max(0, n - 2); i < n; i++) {
+			low = (low << WIDE_ID_BITS) | ids[i];
+		}
+		return low;
+	}
+
+
+	/**
+	 * Counts one occurrence of an n-gram, inserting it if it has not been seen before.
+	 * @param nGram the packed n-gram
+	 */
+	private void increment(long nGram) {
+		int slot = findSlot(nGram + 1);
+		if (keys[slot] != 0) {
+			counts[slot] = Math.incrementExact(counts[slot]);
+			return;
+		}
+		keys[slot] = nGram + 1;
+		counts[slot] = 1;
+		if (++size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+	}
+
+
+	/**
+	 * Counts one occurrence of an n-gram with a wide ID, inserting it if it has not been seen before.
+	 * @param high the n-gram's first n - 2 IDs (see packWideHigh)
+	 * @param low the n-gram's last two IDs (see packWideLow)
+	 */
+	private void incrementWide(long high, long low) {
+		if (wideKeys == null) {
+			allocateWide(MINIMUM_CAPACITY);
+		}
+		int slot = findWideSlot(high, low + 1);
+		if (wideKeys[2 * slot + 1] != 0) {
+			wideCounts[slot] = Math.incrementExact(wideCounts[slot]);
+			return;
+		}
+		wideKeys[2 * slot] = high;
+		wideKeys[2 * slot + 1] = low + 1;
+		wideCounts[slot] = 1;
+		if (++wideSize > wideResizeThreshold) {
+			resizeWide(wideCounts.length * 2);
+		}
+	}
+
+
+	/**
+	 * Finds the slot holding a key, or the empty slot where it would be inserted.
+	 * @param key a packed n-gram plus one
+	 * @return the slot
+	 */
+	private int findSlot(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	/**
+	 * Finds the wide slot holding a key, or the empty slot where it would be inserted.
+	 * @param high the n-gram's first n - 2 IDs
+	 * @param lowKey the n-gram's last two IDs, plus one
+	 * @return the slot
+	 */
+	private int findWideSlot(long high, long lowKey) {
+		int mask = wideCounts.length - 1;
+		int slot = hash(high * 31 + lowKey) & mask;
+		while (wideKeys[2 * slot + 1] != 0 && (wideKeys[2 * slot + 1] != lowKey || wideKeys[2 * slot] != high)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	/**
+	 * Moves every n-gram into a new table.
+	 * @param capacity the new number of slots (a power of two)
+	 */
+	private void resize(int capacity) {
+		if (capacity > MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("too many distinct " + n + "-grams: " + size());
+		}
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = findSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Moves every wide n-gram into a new table.
+	 * @param capacity the new number of slots (a power of two)
+	 */
+	private void resizeWide(int capacity) {
+		if (capacity > MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("too many distinct " + n + "-grams: " + size());
+		}
+		long[] oldKeys = wideKeys;
+		int[] oldCounts = wideCounts;
+		allocateWide(capacity);
+		for (int i = 0; i < oldCounts.length; i++) {
+			if (oldKeys[2 * i + 1] != 0) {
+				int slot = findWideSlot(oldKeys[2 * i], oldKeys[2 * i + 1]);
+				wideKeys[2 * slot] = oldKeys[2 * i];
+				wideKeys[2 * slot + 1] = oldKeys[2 * i + 1];
+				wideCounts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Replaces the wide table with an empty one.
+	 * @param capacity the number of slots (a power of two)
+	 */
+	private void allocateWide(int capacity) {
+		wideKeys = new long[2 * capacity];
+		wideCounts = new int[capacity];
+		wideResizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+
+	/**
+	 * Replaces the table with an empty one.
+	 * @param capacity the number of slots (a power of two)
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		counts = new int[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+
+	/**
+	 * @param key a packed n-gram plus one
+	 * @return a hash whose low bits depend on every bit of the key (Fibonacci hashing, as in WordCounter)
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+
+	/**
+	 * @param nGram a counted n-gram: its slot, or the complement (~) of its slot in the wide table
+	 * @param i the position of a word in the n-gram, 0 for the first
+	 * @return the ID of that word
+	 */
+	private int idOf(int nGram, int i) {
+		if (nGram >= 0) {
+			return (int) (((keys[nGram] - 1) >>> ((n - 1 - i) * idBits)) & ((1L << idBits) - 1));
+		}
+		int slot = ~nGram;
+		int fromEnd = n - 1 - i;									//0 for the last word
+		long packed = fromEnd < 2 ? wideKeys[2 * slot + 1] - 1 : wideKeys[2 * slot];
+		return (int) ((packed >>> ((fromEnd < 2 ? fromEnd : fromEnd - 2) * WIDE_ID_BITS)) & Integer.MAX_VALUE);
+	}
+
+
+	/**
+	 * @param nGram a counted n-gram (see idOf)
+	 * @return its count
+	 */
+	private int countOf(int nGram) {
+		return nGram >= 0 ? counts[nGram] : wideCounts[~nGram];
+	}
+
+
+	/**
+	 * @param nGram a counted n-gram (see idOf)
+	 * @return its words separated by single spaces
+	 */
+	private String toPhrase(int nGram) {
+		StringBuilder phrase = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				phrase.append(' ');
+			}
+			phrase.append(vocabulary.getWord(idOf(nGram, i)));
+		}
+		return phrase.toString();
+	}
+
+
+	/**
+	 * Determines if one counted n-gram ranks before another: it is more frequent, or as frequent and alphabetically
+	 * first, comparing word by word.
+	 * @param nGram the first n-gram (see idOf)
+	 * @param other the second n-gram
+	 * @return true if the first ranks before the second
+	 */
+	private boolean ranksBefore(int nGram, int other) {
+		if (countOf(nGram) != countOf(other)) {
+			return countOf(nGram) > countOf(other);
+		}
+		for (int i = 0; i < n; i++) {
+			int id = idOf(nGram, i);
+			int otherId = idOf(other, i);
+			if (id != otherId) {
+				return vocabulary.getWord(id).compareTo(vocabulary.getWord(otherId)) < 0;
+			}
+		}
+		return false;
+	}
+
+
+	private void siftUp(int[] heap, int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (!ranksBefore(heap[parent], heap[index])) {
+				return;
+			}
+			int nGram = heap[parent];
+			heap[parent] = heap[index];
+			heap[index] = nGram;
+			index = parent;
+		}
+	}
+
+
+	private void siftDown(int[] heap, int heapSize, int index) {
+		while (true) {
+			int worst = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if (left < heapSize && ranksBefore(heap[worst], heap[left])) {
+				worst = left;
+			}
+			if (right < heapSize && ranksBefore(heap[worst], heap[right])) {
+				worst = right;
+			}
+			if (worst == index) {
+				return;
+			}
+			int nGram = heap[worst];
+			heap[worst] = heap[index];
+			heap[index] = nGram;
+			index = worst;
+		}
+	}
+}
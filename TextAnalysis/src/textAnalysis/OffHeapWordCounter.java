@@ -0,0 +1,640 @@
+package textAnalysis;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+
+/**
+ * Counts word frequencies like {@link WordCounter}, but keeps the whole vocabulary outside the Java heap, for
+ * vocabularies of tens of millions of unique words. Each word is stored once as UTF-8 bytes in a direct-memory arena,
+ * and the hash table (key reference, long count and hash per slot) is itself made of direct buffers, so the table
+ * adds no objects for the garbage collector to trace, however many words it holds. Strings are only created when
+ * words are read back out (forEachCount, findMostFrequentWords).
+ *
+ * The table is split into pages of direct buffers, so it is not limited by the 2 GB size of one buffer: it grows to
+ * 2^32 slots (over two billion words), where the 32-bit hashes run out. Direct memory is limited by
+ * -XX:MaxDirectMemorySize (by default the maximum heap size); close() releases it at once, rather than when the
+ * garbage collector finds the counter unreachable. A counter is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public class OffHeapWordCounter implements Closeable {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	/* every slot must be reachable from a 32-bit hash */
+	private static final long MAXIMUM_CAPACITY = 1L << 32;
+
+	/* slots per page of the table's direct buffers (128 MB of key references or counts, 64 MB of hashes) */
+	private static final int PAGE_SHIFT = 24;
+	private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+	/* kept at or below one half, as in WordCounter */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/* words are appended to arena chunks of this size; a longer word gets a chunk of its own */
+	private static final int ARENA_CHUNK_SIZE = 1 << 24;
+
+	/* parallel pages of direct buffers indexed by slot; a key reference of 0 marks an empty slot */
+	private ByteBuffer[] keyReferences;			//long: (chunk << 32 | offset in chunk) + 1
+	private ByteBuffer[] counts;				//long
+	private ByteBuffer[] hashes;				//int
+	private long capacity;
+	private long size = 0;
+	private long resizeThreshold;
+	private boolean closed = false;
+
+	/* the arena: each word is stored as [int length][UTF-8 bytes] */
+	private final List<ByteBuffer> arenaChunks = new ArrayList<ByteBuffer>();
+
+	/* scratch space for the word being looked up, as chars and as UTF-8 */
+	private char[] wordChars = new char[32];
+	private byte[] encoded = new byte[64];
+
+
+	/**
+	 * Creates an empty counter.
+	 */
+	public OffHeapWordCounter() {
+		allocate(MINIMUM_CAPACITY);
+	}
+
+
+	/**
+	 * Adds one occurrence of a word.
+	 * @param word the word to count
+	 * @return the word's new count
+	 */
+	public long increment(String word) {
+		return add(word, 1);
+	}
+
+
+	/**
+	 * Adds [amount] occurrences of a word.
+	 * @param word the word to count
+	 * @param amount the number of occurrences to add
+	 * @return the word's new count
+	 */
+	public long add(String word, long amount) {
+		return add(encode(word), amount);
+	}
+
+
+	/**
+	 * Adds one occurrence of the word held in a char buffer (e.g. from a {@link WordNormalizer}). Nothing is allocated
+	 * on the heap unless the scratch buffer has to grow.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the word's new count
+	 */
+	public long increment(char[] chars, int length) {
+		return add(encode(chars, length), 1);
+	}
+
+
+	/**
+	 * Finds the frequency of a word.
+	 * @param word the word to look up
+	 * @return the number of times the word was counted, or 0 if it never was
+	 */
+	public long getCount(String word) {
+		int length = encode(word);
+		long slot = findSlot(length, hash(length));
+		return keyReference(slot) != 0 ? count(slot) : 0;
+	}
+
+
+	/**
+	 * @return the number of unique words
+	 * @throws ArithmeticException if there are more than Integer.MAX_VALUE unique words (use sizeLong)
+	 */
+	public int size() {
+		return Math.toIntExact(size);
+	}
+
+
+	/**
+	 * @return the number of unique words, as a 64-bit count
+	 */
+	public long sizeLong() {
+		return size;
+	}
+
+
+	/**
+	 * @return the direct memory held by the table and the arena, in bytes
+	 */
+	public long getOffHeapBytes() {
+		long arenaCapacity = 0;
+		for (ByteBuffer chunk : arenaChunks) {
+			arenaCapacity += chunk.capacity();
+		}
+		return capacity * 20L + arenaCapacity;
+	}
+
+
+	/**
+	 * Frees the direct memory held by the table and the arena. The counter cannot be used afterwards. Closing a
+	 * closed counter has no effect.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		free(keyReferences);
+		free(counts);
+		free(hashes);
+		for (ByteBuffer chunk : arenaChunks) {
+			DirectMemory.free(chunk);
+		}
+		arenaChunks.clear();
+		keyReferences = null;
+		counts = null;
+		hashes = null;
+		capacity = 0;
+		size = 0;
+	}
+
+
+	/**
+	 * Passes each word and its count to an action, in no particular order. A String is created for every word.
+	 * @param action the consumer to receive each (word, count) pair
+	 */
+	public void forEachCount(ObjLongConsumer<String> action) {
+		checkOpen();
+		for (long slot = 0; slot < capacity; slot++) {
+			long reference = keyReference(slot);
+			if (reference != 0) {
+				action.accept(decode(reference), count(slot));
+			}
+		}
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words, ranked exactly as by {@link TextAnalysis#findMostFrequentWords}: by
+	 * descending frequency, and alphabetically (String.compareTo order) among words with the same frequency. The
+	 * words are ranked by their off-heap bytes in a size-[n] heap, so Strings are only created for the [n] results.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		if (wordsDesired < 0) {
+			throw new IllegalArgumentException("negative number of words desired: " + wordsDesired);
+		}
+
+		checkOpen();
+
+		/* min-heap of the highest-ranked words so far; the lowest-ranked of them sits at the root */
+		int heapCapacity = (int) Math.min(wordsDesired, size);
+		long[] heapCounts = new long[heapCapacity];
+		long[] heapReferences = new long[heapCapacity];
+		int heapSize = 0;
+		for (long slot = 0; slot < capacity && heapCapacity > 0; slot++) {
+			long reference = keyReference(slot);
+			if (reference == 0) {
+				continue;
+			}
+			long count = count(slot);
+			if (heapSize < heapCapacity) {
+				heapCounts[heapSize] = count;
+				heapReferences[heapSize] = reference;
+				siftUp(heapCounts, heapReferences, heapSize++);
+			} else if (ranksAbove(count, reference, heapCounts[0], heapReferences[0])) {
+				heapCounts[0] = count;
+				heapReferences[0] = reference;
+				siftDown(heapCounts, heapReferences, 0, heapSize);
+			}
+		}
+
+		String[] sortedWords = new String[heapSize];
+		while (heapSize > 0) {						//the root is always the lowest-ranked remaining
+			sortedWords[--heapSize] = decode(heapReferences[0]);
+			heapCounts[0] = heapCounts[heapSize];
+			heapReferences[0] = heapReferences[heapSize];
+			siftDown(heapCounts, heapReferences, 0, heapSize);
+		}
+		List<String> mostFrequentWords = new ArrayList<String>(sortedWords.length);
+		for (String word : sortedWords) {
+			mostFrequentWords.add(word);
+		}
+		return mostFrequentWords;
+	}
+
+
+	/**
+	 * Adds [amount] occurrences of the word in the scratch buffer, storing the word in the arena if it is new.
+	 * @param length the number of UTF-8 bytes in the word
+	 * @param amount the number of occurrences to add
+	 * @return the word's new count
+	 */
+	private long add(int length, long amount) {
+		int hash = hash(length);
+		long slot = findSlot(length, hash);
+		if (keyReference(slot) != 0) {
+			long count = count(slot) + amount;
+			setCount(slot, count);
+			return count;
+		}
+
+		set(slot, store(length) + 1, hash, amount);
+		if (++size > resizeThreshold) {
+			resize(capacity * 2);
+		}
+		return amount;
+	}
+
+
+	/**
+	 * Finds the slot holding the word in the scratch buffer, or the empty slot where it would be inserted.
+	 * @param length the number of UTF-8 bytes in the word
+	 * @param hash the word's spread hash
+	 * @return the slot
+	 */
+	private long findSlot(int length, int hash) {
+		checkOpen();
+		long mask = capacity - 1;
+		long slot = Integer.toUnsignedLong(hash) & mask;
+		long reference;
+		while ((reference = keyReference(slot)) != 0) {
+			if (hash(slot) == hash && storedWordEquals(reference, length)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	/**
+	 * @param slot a slot of the table
+	 * @return the slot's key reference, or 0 if the slot is empty
+	 */
+	private long keyReference(long slot) {
+		return keyReferences[(int) (slot >>> PAGE_SHIFT)].getLong(((int) slot & PAGE_MASK) * 8);
+	}
+
+
+	private long count(long slot) {
+		return counts[(int) (slot >>> PAGE_SHIFT)].getLong(((int) slot & PAGE_MASK) * 8);
+	}
+
+
+	private int hash(long slot) {
+		return hashes[(int) (slot >>> PAGE_SHIFT)].getInt(((int) slot & PAGE_MASK) * 4);
+	}
+
+
+	private void setCount(long slot, long count) {
+		counts[(int) (slot >>> PAGE_SHIFT)].putLong(((int) slot & PAGE_MASK) * 8, count);
+	}
+
+
+	/**
+	 * Fills a slot.
+	 * @param slot the slot
+	 * @param reference the key reference (+ 1)
+	 * @param hash the word's spread hash
+	 * @param count the word's count
+	 */
+	private void set(long slot, long reference, int hash, long count) {
+		int page = (int) (slot >>> PAGE_SHIFT);
+		int index = (int) slot & PAGE_MASK;
+		keyReferences[page].putLong(index * 8, reference);
+		hashes[page].putInt(index * 4, hash);
+		counts[page].putLong(index * 8, count);
+	}
+
+
+	/**
+	 * @throws IllegalStateException if the counter has been closed
+	 */
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("counter is closed");
+		}
+	}
+
+
+	/**
+	 * Compares a stored word with the word in the scratch buffer.
+	 * @param reference the stored word's key reference
+	 * @param length the number of UTF-8 bytes in the scratch word
+	 * @return true if the two words have the same bytes
+	 */
+	private boolean storedWordEquals(long reference, int length) {
+		ByteBuffer chunk = chunkOf(reference);
+		int offset = offsetOf(reference);
+		if (chunk.getInt(offset) != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (chunk.get(offset + 4 + i) != encoded[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Copies the word in the scratch buffer to the end of the arena.
+	 * @param length the number of UTF-8 bytes in the word
+	 * @return the word's key reference (without the + 1 that marks a slot as occupied)
+	 */
+	private long store(int length) {
+		int entrySize = 4 + length;
+		ByteBuffer chunk = arenaChunks.isEmpty() ? null : arenaChunks.get(arenaChunks.size() - 1);
+		if (chunk == null || chunk.remaining() < entrySize) {
+			chunk = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, entrySize)).order(ByteOrder.nativeOrder());
+			arenaChunks.add(chunk);
+		}
+
+		long reference = ((long) (arenaChunks.size() - 1) << 32) | chunk.position();
+		chunk.putInt(length);
+		chunk.put(encoded, 0, length);
+		return reference;
+	}
+
+
+	/**
+	 * Reads a stored word back into a String.
+	 * @param reference the word's key reference
+	 * @return the word
+	 */
+	private String decode(long reference) {
+		ByteBuffer chunk = chunkOf(reference);
+		int offset = offsetOf(reference);
+		byte[] bytes = new byte[chunk.getInt(offset)];
+		chunk.get(offset + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	private ByteBuffer chunkOf(long reference) {
+		return arenaChunks.get((int) ((reference - 1) >>> 32));
+	}
+
+
+	private static int offsetOf(long reference) {
+		return (int) (reference - 1);
+	}
+
+
+	/**
+	 * Encodes a String into the scratch buffer as UTF-8, through the scratch char buffer.
+	 * @param word the word
+	 * @return the number of UTF-8 bytes
+	 */
+	private int encode(String word) {
+		if (wordChars.length < word.length()) {
+			wordChars = new char[word.length()];
+		}
+		word.getChars(0, word.length(), wordChars, 0);
+		return encode(wordChars, word.length());
+	}
+
+
+	/**
+	 * Encodes a word into the scratch buffer as UTF-8, exactly as String.getBytes(UTF_8) would (an unpaired surrogate
+	 * becomes '?').
+	 * @param word the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the number of UTF-8 bytes
+	 */
+	private int encode(char[] word, int length) {
+		if (encoded.length < length * 3) {
+			encoded = new byte[length * 3];
+		}
+
+		int n = 0;
+		for (int i = 0; i < length; i++) {
+			char c = word[i];
+			if (c < 0x80) {
+				encoded[n++] = (byte) c;
+			} else if (c < 0x800) {
+				encoded[n++] = (byte) (0xC0 | (c >> 6));
+				encoded[n++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(word[i + 1])) {
+					int codePoint = Character.toCodePoint(c, word[++i]);
+					encoded[n++] = (byte) (0xF0 | (codePoint >> 18));
+					encoded[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					encoded[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					encoded[n++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else {
+					encoded[n++] = '?';
+				}
+			} else {
+				encoded[n++] = (byte) (0xE0 | (c >> 12));
+				encoded[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				encoded[n++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return n;
+	}
+
+
+	/**
+	 * Hashes the word in the scratch buffer.
+	 * @param length the number of UTF-8 bytes in the word
+	 * @return the spread hash
+	 */
+	private int hash(int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + encoded[i];
+		}
+		h *= 0x9E3779B9;								//spread as in WordCounter
+		return h ^ (h >>> 16);
+	}
+
+
+	/**
+	 * Determines if one (count, word) pair ranks strictly higher than another, as TopWords.ranksAbove does.
+	 * @param countA the first pair's count
+	 * @param referenceA the first pair's key reference
+	 * @param countB the second pair's count
+	 * @param referenceB the second pair's key reference
+	 * @return true if the first pair has the higher count or, for equal counts, the alphabetically earlier word
+	 */
+	private boolean ranksAbove(long countA, long referenceA, long countB, long referenceB) {
+		if (countA != countB) {
+			return countA > countB;
+		}
+		return compareWords(referenceA, referenceB) < 0;
+	}
+
+
+	/**
+	 * Compares two stored words in the order of String.compareTo (UTF-16 code units), without decoding them. UTF-8
+	 * bytes sort in code point order, which only differs from UTF-16 order when a supplementary character (stored
+	 * as a surrogate pair in a String) meets a character from U+E000 to U+FFFF, so only the first differing
+	 * character is decoded and compared as UTF-16.
+	 * @param referenceA the first word's key reference
+	 * @param referenceB the second word's key reference
+	 * @return a negative number, zero or a positive number as the first word sorts before, with or after the second
+	 */
+	private int compareWords(long referenceA, long referenceB) {
+		ByteBuffer chunkA = chunkOf(referenceA);
+		ByteBuffer chunkB = chunkOf(referenceB);
+		int startA = offsetOf(referenceA) + 4;
+		int startB = offsetOf(referenceB) + 4;
+		int lengthA = chunkA.getInt(startA - 4);
+		int lengthB = chunkB.getInt(startB - 4);
+
+		int i = 0;
+		int common = Math.min(lengthA, lengthB);
+		while (i < common && chunkA.get(startA + i) == chunkB.get(startB + i)) {
+			i++;
+		}
+		if (i == common) {											//one word is a prefix of the other
+			return lengthA - lengthB;
+		}
+		while (i > 0 && (chunkA.get(startA + i) & 0xC0) == 0x80) {	//back up to the start of the differing character
+			i--;
+		}
+
+		int codePointA = decodeCodePoint(chunkA, startA + i);
+		int codePointB = decodeCodePoint(chunkB, startB + i);
+		int unitA = codePointA < 0x10000 ? codePointA : Character.highSurrogate(codePointA);
+		int unitB = codePointB < 0x10000 ? codePointB : Character.highSurrogate(codePointB);
+		return unitA != unitB ? unitA - unitB : codePointA - codePointB;
+	}
+
+
+	/**
+	 * Decodes the UTF-8 character starting at a given index.
+	 * @param chunk the arena chunk holding the character
+	 * @param index the index of the character's first byte
+	 * @return the character's code point
+	 */
+	private static int decodeCodePoint(ByteBuffer chunk, int index) {
+		int lead = chunk.get(index) & 0xFF;
+		if (lead < 0x80) {
+			return lead;
+		} else if (lead < 0xE0) {
+			return ((lead & 0x1F) << 6) | (chunk.get(index + 1) & 0x3F);
+		} else if (lead < 0xF0) {
+			return ((lead & 0x0F) << 12) | ((chunk.get(index + 1) & 0x3F) << 6) | (chunk.get(index + 2) & 0x3F);
+		}
+		return ((lead & 0x07) << 18) | ((chunk.get(index + 1) & 0x3F) << 12) | ((chunk.get(index + 2) & 0x3F) << 6)
+				| (chunk.get(index + 3) & 0x3F);
+	}
+
+
+	private void siftUp(long[] heapCounts, long[] heapReferences, int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (!ranksAbove(heapCounts[parent], heapReferences[parent], heapCounts[index], heapReferences[index])) {
+				return;
+			}
+			swap(heapCounts, heapReferences, parent, index);
+			index = parent;
+		}
+	}
+
+
+	private void siftDown(long[] heapCounts, long[] heapReferences, int index, int heapSize) {
+		while (true) {
+			int lowest = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if (left < heapSize
+					&& ranksAbove(heapCounts[lowest], heapReferences[lowest], heapCounts[left], heapReferences[left])) {
+				lowest = left;
+			}
+			if (right < heapSize
+					&& ranksAbove(heapCounts[lowest], heapReferences[lowest], heapCounts[right], heapReferences[right])) {
+				lowest = right;
+			}
+			if (lowest == index) {
+				return;
+			}
+			swap(heapCounts, heapReferences, index, lowest);
+			index = lowest;
+		}
+	}
+
+
+	private static void swap(long[] heapCounts, long[] heapReferences, int i, int j) {
+		long count = heapCounts[i];
+		heapCounts[i] = heapCounts[j];
+		heapCounts[j] = count;
+		long reference = heapReferences[i];
+		heapReferences[i] = heapReferences[j];
+		heapReferences[j] = reference;
+	}
+
+
+	/**
+	 * Rehashes every word into a table with a given number of slots. Only the slots move; the arena is untouched.
+	 * @param newCapacity the number of slots (a power of two)
+	 */
+	private void resize(long newCapacity) {
+		if (newCapacity > MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("vocabulary too large for an off-heap counter: " + size + " words");
+		}
+		ByteBuffer[] oldKeyReferences = keyReferences;
+		ByteBuffer[] oldCounts = counts;
+		ByteBuffer[] oldHashes = hashes;
+		allocate(newCapacity);
+
+		long mask = newCapacity - 1;
+		for (int page = 0; page < oldKeyReferences.length; page++) {
+			int pageSlots = oldHashes[page].capacity() / 4;
+			for (int index = 0; index < pageSlots; index++) {
+				long reference = oldKeyReferences[page].getLong(index * 8);
+				if (reference != 0) {						//keys are unique, so only an empty slot is needed
+					int hash = oldHashes[page].getInt(index * 4);
+					long slot = Integer.toUnsignedLong(hash) & mask;
+					while (keyReference(slot) != 0) {
+						slot = (slot + 1) & mask;
+					}
+					set(slot, reference, hash, oldCounts[page].getLong(index * 8));
+				}
+			}
+			DirectMemory.free(oldKeyReferences[page]);		//release each old page as soon as it is rehashed
+			DirectMemory.free(oldCounts[page]);
+			DirectMemory.free(oldHashes[page]);
+		}
+	}
+
+
+	/**
+	 * Allocates empty (zeroed) pages of direct buffers with a given number of slots.
+	 * @param newCapacity the number of slots (a power of two)
+	 */
+	private void allocate(long newCapacity) {
+		int pageSlots = (int) Math.min(newCapacity, 1 << PAGE_SHIFT);
+		int pages = (int) (newCapacity / pageSlots);
+		keyReferences = new ByteBuffer[pages];
+		counts = new ByteBuffer[pages];
+		hashes = new ByteBuffer[pages];
+		for (int page = 0; page < pages; page++) {
+			keyReferences[page] = ByteBuffer.allocateDirect(pageSlots * 8).order(ByteOrder.nativeOrder());
+			counts[page] = ByteBuffer.allocateDirect(pageSlots * 8).order(ByteOrder.nativeOrder());
+			hashes[page] = ByteBuffer.allocateDirect(pageSlots * 4).order(ByteOrder.nativeOrder());
+		}
+		capacity = newCapacity;
+		resizeThreshold = (long) (newCapacity * LOAD_FACTOR);
+	}
+
+
+	/**
+	 * Frees the pages of one of the table's arrays.
+	 * @param pages the pages
+	 */
+	private static void free(ByteBuffer[] pages) {
+		for (ByteBuffer page : pages) {
+			DirectMemory.free(page);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Finds the last sentence containing a word by reading the file backwards, block by block, with positional reads,
+ * and stopping at the first (i.e. last) sentence that contains the word. A match near the end of a large file is
+ * found after reading only the end of it; a word that does not occur still costs a full read. Sentences and words
+ * are split as in {@link TextAnalysis#lastOccurrence}: sentences end at ., ? or !, all ASCII, so they can be found
+ * scanning backwards without decoding the UTF-8 around them.
+ * @author Leo Mishlove
+ *
+ */
+final class ReverseSentenceScanner {
+
+	/* bytes read per positional read */
+	static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final int blockSize;
+	private final char[] word;
+	private final WordNormalizer normalizer = new WordNormalizer();
+
+
+	private ReverseSentenceScanner(FileChannel channel, int blockSize, String word) {
+		this.channel = channel;
+		this.blockSize = blockSize;
+		this.word = word.toCharArray();
+	}
+
+
+	/**
+	 * Finds the last sentence in a text file that contains a given word.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param word the word to search for, matched as containsWord does (it is not normalized)
+	 * @param blockSize the number of bytes to read at a time (positive)
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws IllegalArgumentException if blockSize is not positive
+	 */
+	static String lastOccurrence(File sourceFile, String word, int blockSize) throws IOException {
+		if (blockSize <= 0) {									//an empty block would never move back
+			throw new IllegalArgumentException("block size must be positive: " + blockSize);
+		}
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)) {
+			return new ReverseSentenceScanner(channel, blockSize, word).scan();
+		}
+	}
+
+
+	/**
+	 * Walks the sentences from the last to the first.
+	 * @return the first sentence found that contains the word, or the empty string
+	 * @throws IOException if the source file cannot be read
+	 */
+	private String scan() throws IOException {
+		ByteBuffer block = ByteBuffer.allocate(blockSize);
+
+		/* the part of the current sentence already read from later blocks, last part first */
+		List<byte[]> laterParts = new ArrayList<byte[]>();
+
+		/* Scanner drops an empty piece after the last delimiter, so an empty last sentence is not tested */
+		boolean lastSentence = true;
+
+		long blockEnd = channel.size();
+		while (blockEnd > 0) {
+			long blockStart = Math.max(0, blockEnd - blockSize);
+			int length = (int) (blockEnd - blockStart);
+			block.clear().limit(length);
+			while (block.hasRemaining()) {
+				if (channel.read(block, blockStart + block.position()) < 0) {
+					throw new IOException("source file shrank while being read");
+				}
+			}
+
+			int sentenceEnd = length;								//exclusive, within the block
+			for (int i = length - 1; i >= 0; i--) {
+				if (!MappedTokenizer.isSentenceEnd(block.get(i))) {
+					continue;
+				}
+				if (!lastSentence || i + 1 < sentenceEnd || !laterParts.isEmpty()) {
+					String match = test(block, i + 1, sentenceEnd, laterParts);
+					if (match != null) {
+						return match;
+					}
+				}
+				lastSentence = false;
+				laterParts.clear();
+				sentenceEnd = i;
+			}
+
+			if (blockStart == 0) {									//the first sentence of the file
+				String match = test(block, 0, sentenceEnd, laterParts);
+				return match != null ? match : "";
+			}
+			byte[] part = new byte[sentenceEnd];					//the sentence continues in the block before
+			block.get(0, part);
+			laterParts.add(part);
+			blockEnd = blockStart;
+		}
+		return "";
+	}
+
+
+	/**
+	 * Tests a sentence made of a block's bytes [start, end) followed by the parts of it read earlier.
+	 * @param block the current block
+	 * @param start index of the sentence's first byte in the block
+	 * @param end index one past the sentence's last byte in the block
+	 * @param laterParts the rest of the sentence, last part first
+	 * @return the sentence text if it contains the word, or null
+	 */
+	private String test(ByteBuffer block, int start, int end, List<byte[]> laterParts) {
+		ByteBuffer sentence = block;
+		if (!laterParts.isEmpty()) {								//spans blocks: join it up
+			int length = end - start;
+			for (byte[] part : laterParts) {
+				length += part.length;
+			}
+			byte[] joined = new byte[length];
+			block.get(start, joined, 0, end - start);
+			int position = end - start;
+			for (int i = laterParts.size() - 1; i >= 0; i--) {
+				byte[] part = laterParts.get(i);
+				System.arraycopy(part, 0, joined, position, part.length);
+				position += part.length;
+			}
+			sentence = ByteBuffer.wrap(joined);
+			start = 0;
+			end = length;
+		}
+
+		if (!containsWord(sentence, start, end)) {
+			return null;
+		}
+		byte[] text = new byte[end - start];
+		sentence.get(start, text);
+		return new String(text, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Determines if a sentence contains the word, exactly as containsWord does: the sentence is split at each
+	 * whitespace char and every piece is converted to compatible format before it is compared. That includes the
+	 * empty pieces split produces between adjacent whitespace, except those after the last non-empty piece, which
+	 * split drops. An empty sentence splits into one empty piece.
+	 * @param sentence the buffer holding the sentence's bytes
+	 * @param start index of the sentence's first byte
+	 * @param end index one past the sentence's last byte
+	 * @return true if the sentence contains the word
+	 */
+	private boolean containsWord(ByteBuffer sentence, int start, int end) {
+		if (start == end) {
+			return word.length == 0;
+		}
+		boolean pendingEmptyPiece = false;				//an empty piece that counts if a non-empty one follows
+		int pieceStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i < end && !MappedTokenizer.isSplitWhitespace(sentence.get(i))) {
+				continue;
+			}
+			if (i == pieceStart) {
+				pendingEmptyPiece = true;
+			} else {
+				if (pendingEmptyPiece && word.length == 0) {
+					return true;
+				}
+				int length = normalizer.normalize(sentence, pieceStart, i);
+				if (length == word.length && matches(length)) {
+					return true;
+				}
+			}
+			pieceStart = i + 1;
+		}
+		return false;
+	}
+
+
+	/**
+	 * @param length the length of the word in the normalizer's buffer
+	 * @return true if the normalized word equals the word searched for
+	 */
+	private boolean matches(int length) {
+		char[] chars = normalizer.getChars();
+		for (int i = 0; i < length; i++) {
+			if (chars[i] != word[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
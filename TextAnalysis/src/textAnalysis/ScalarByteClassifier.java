@@ -0,0 +1,69 @@
+package textAnalysis;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Classifies eight bytes per step in a long ("SIMD within a register"), using the standard bit tricks for finding a
+ * byte below a bound or equal to a value in a word. Borrows between bytes can flag a byte that does not match, but
+ * only after (at a higher address than) one that does, so the lowest flagged byte is always a real match. This is
+ * the fallback when the Vector API is not available (see {@link MappedTokenizer}).
+ * @author Leo Mishlove
+ *
+ */
+final class ScalarByteClassifier implements ByteClassifier {
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+
+	@Override
+	public int skipTokenBytes(ByteBuffer text, int from, int to) {
+		int i = from;
+		while (i + Long.BYTES <= to) {
+			long bytes = Long.reverseBytes(text.getLong(i));		//lowest address in the lowest byte
+			long stops = ((bytes - 0x21 * ONES) | bytes) & HIGH_BITS;	//below '!' (incl. whitespace), or non-ASCII
+			if (stops != 0) {
+				return i + (Long.numberOfTrailingZeros(stops) >>> 3);
+			}
+			i += Long.BYTES;
+		}
+		while (i < to && text.get(i) >= 0x21) {						//signed: non-ASCII bytes are negative
+			i++;
+		}
+		return i;
+	}
+
+
+	@Override
+	public int skipWordBytes(ByteBuffer text, int from, int to) {
+		int i = from;
+		while (i + Long.BYTES <= to) {
+			long bytes = Long.reverseBytes(text.getLong(i));
+			long stops = (bytes - 0x22 * ONES) & ~bytes;				//ASCII below '"' (incl. '!' and whitespace)
+			stops |= hasZeroByte(bytes ^ ('.' * ONES));
+			stops |= hasZeroByte(bytes ^ ('?' * ONES));
+			stops &= HIGH_BITS;
+			if (stops != 0) {
+				return i + (Long.numberOfTrailingZeros(stops) >>> 3);
+			}
+			i += Long.BYTES;
+		}
+		while (i < to) {
+			byte b = text.get(i);
+			if (MappedTokenizer.isSentenceEnd(b) || MappedTokenizer.isSplitWhitespace(b)) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * @param bytes eight bytes
+	 * @return the high bit of each zero byte set (and possibly of higher bytes, after the first zero byte)
+	 */
+	private static long hasZeroByte(long bytes) {
+		return (bytes - ONES) & ~bytes & HIGH_BITS;
+	}
+}
@@ -0,0 +1,265 @@
+package textAnalysis;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Inverted index from each compatible-format word to the sentences containing it, built in one pass over a file.
+ * Sentences and words are split exactly as in {@link TextAnalysis#lastOccurrence}, so lastOccurrence on the index
+ * gives the same answer as on the file, but as a lookup: the last, first or [i]-th sentence containing a word is
+ * found in O(1) and all [k] of them in O(k), plus reading the sentences' text back from the file.
+ *
+ * Only the byte offsets of each sentence are kept in memory; the text of a matching sentence is read from the source
+ * file (UTF-8) when it is asked for, through a channel that stays open until the index is closed. The file must not
+ * change while the index is in use.
+ * @author Leo Mishlove
+ *
+ */
+public class SentenceIndex implements Closeable {
+
+	private final FileChannel sourceChannel;
+
+	/* byte offsets [start, end) of each sentence containing at least one word, in file order */
+	private final long[] sentenceStarts;
+	private final long[] sentenceEnds;
+
+	/* postings[ID] lists the sentences containing the word with that vocabulary ID, ascending */
+	private final Vocabulary vocabulary;
+	private final int[][] postings;
+
+
+	private SentenceIndex(FileChannel sourceChannel, long[] sentenceStarts, long[] sentenceEnds,
+			Vocabulary vocabulary, int[][] postings) {
+		this.sourceChannel = sourceChannel;
+		this.sentenceStarts = sentenceStarts;
+		this.sentenceEnds = sentenceEnds;
+		this.vocabulary = vocabulary;
+		this.postings = postings;
+	}
+
+
+	/**
+	 * Builds the index for a file in a single pass.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return the index, which must be closed after use
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static SentenceIndex build(File sourceFile) throws IOException {
+		Builder builder = new Builder();
+		new MappedTokenizer(sourceFile).forEachSentence(builder);
+		return builder.build(FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ));
+	}
+
+
+	/**
+	 * Finds the last sentence in the text that contains a given word.
+	 * @param word the word to search for
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it
+	 * @throws IOException if the source file cannot be read
+	 */
+	public String lastOccurrence(String word) throws IOException {
+		int[] sentences = postingsOf(word);
+		return sentences.length > 0 ? readSentence(sentences[sentences.length - 1]) : "";
+	}
+
+
+	/**
+	 * Finds the first sentence in the text that contains a given word.
+	 * @param word the word to search for
+	 * @return the first sentence containing the word, or the empty string if no sentence contains it
+	 * @throws IOException if the source file cannot be read
+	 */
+	public String firstOccurrence(String word) throws IOException {
+		int[] sentences = postingsOf(word);
+		return sentences.length > 0 ? readSentence(sentences[0]) : "";
+	}
+
+
+	/**
+	 * Finds every sentence in the text that contains a given word.
+	 * @param word the word to search for
+	 * @return the sentences containing the word, in the order they appear (each sentence once)
+	 * @throws IOException if the source file cannot be read
+	 */
+	public List<String> allOccurrences(String word) throws IOException {
+		int[] sentences = postingsOf(word);
+		List<String> occurrences = new ArrayList<String>(sentences.length);
+		for (int sentence : sentences) {
+			occurrences.add(readSentence(sentence));
+		}
+		return occurrences;
+	}
+
+
+	/**
+	 * Counts the sentences containing a word, without reading any text.
+	 * @param word the word to search for
+	 * @return the number of sentences containing the word
+	 */
+	public int countOccurrences(String word) {
+		return postingsOf(word).length;
+	}
+
+
+	/**
+	 * @return the number of indexed sentences (sentences containing at least one word)
+	 */
+	public int getSentenceCount() {
+		return sentenceStarts.length;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		sourceChannel.close();
+	}
+
+
+	/**
+	 * Finds the sentences containing a word.
+	 * @param word the word to look up, matched exactly as containsWord does (it is not normalized)
+	 * @return the numbers of the sentences containing it, ascending; empty if there are none
+	 */
+	private int[] postingsOf(String word) {
+		int id = vocabulary.getId(word);
+		return id >= 0 ? postings[id] : new int[0];
+	}
+
+
+	/**
+	 * Reads the text of a sentence back from the source file.
+	 * @param sentence the number of the sentence
+	 * @return the sentence text, without its ending punctuation
+	 * @throws IOException if the source file cannot be read
+	 */
+	private String readSentence(int sentence) throws IOException {
+		long start = sentenceStarts[sentence];
+		ByteBuffer bytes = ByteBuffer.allocate((int) (sentenceEnds[sentence] - start));
+		while (bytes.hasRemaining()) {
+			if (sourceChannel.read(bytes, start + bytes.position()) < 0) {
+				throw new IOException("source file is shorter than when it was indexed");
+			}
+		}
+		return new String(bytes.array(), StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Collects sentence offsets and postings while the tokenizer walks the file.
+	 */
+	static class Builder implements MappedTokenizer.SentenceVisitor {
+		private WordNormalizer normalizer = new WordNormalizer();
+		private final Vocabulary vocabulary;
+		private int[][] postings = new int[16][];
+		private int[] postingSizes = new int[16];
+		private long[] sentenceStarts = new long[16];
+		private long[] sentenceEnds = new long[16];
+		private int sentenceCount = 0;				//also the number the current sentence gets if it has a word
+		private boolean sentenceHasWords = false;
+
+		Builder() {
+			this(new Vocabulary());
+		}
+
+		/**
+		 * @param vocabulary the vocabulary to intern words in, which may be shared with e.g. a word counter
+		 */
+		Builder(Vocabulary vocabulary) {
+			this.vocabulary = vocabulary;
+		}
+
+		@Override
+		public void visitWord(ByteBuffer text, int start, int end) {
+			int length = normalizer.normalize(text, start, end);
+			if (length == 0) {
+				return;
+			}
+			int id = vocabulary.intern(normalizer.getChars(), length);
+			if (id >= postings.length) {				//IDs may skip ahead if the vocabulary is shared
+				int capacity = Math.max(id + 1, postings.length * 2);
+				postings = Arrays.copyOf(postings, capacity);
+				postingSizes = Arrays.copyOf(postingSizes, capacity);
+			}
+			if (postings[id] == null) {
+				postings[id] = new int[2];
+			}
+
+			int[] sentences = postings[id];
+			int size = postingSizes[id];
+			if (size > 0 && sentences[size - 1] == sentenceCount) {	//already listed for this sentence
+				return;
+			}
+			if (size == sentences.length) {
+				sentences = postings[id] = Arrays.copyOf(sentences, size * 2);
+			}
+			sentences[size] = sentenceCount;
+			postingSizes[id]++;
+			sentenceHasWords = true;
+		}
+
+		@Override
+		public void endSentence(long start, long end) {
+			if (!sentenceHasWords) {					//nothing can ever be looked up in it
+				return;
+			}
+			if (sentenceCount == sentenceStarts.length) {
+				sentenceStarts = Arrays.copyOf(sentenceStarts, sentenceCount * 2);
+				sentenceEnds = Arrays.copyOf(sentenceEnds, sentenceCount * 2);
+			}
+			sentenceStarts[sentenceCount] = start;
+			sentenceEnds[sentenceCount] = end;
+			sentenceCount++;
+			sentenceHasWords = false;
+		}
+
+		/**
+		 * Trims every array to its final size.
+		 * @param sourceChannel the channel to read sentence text through
+		 * @return the finished index
+		 */
+		SentenceIndex build(FileChannel sourceChannel) {
+			int[][] trimmedPostings = new int[vocabulary.size()][];
+			for (int i = 0; i < trimmedPostings.length; i++) {
+				trimmedPostings[i] = getPostings(i);
+			}
+			return new SentenceIndex(sourceChannel, getSentenceStarts(), getSentenceEnds(), vocabulary,
+					trimmedPostings);
+		}
+
+		/**
+		 * @return the byte offset where each indexed sentence so far starts, in file order
+		 */
+		long[] getSentenceStarts() {
+			return Arrays.copyOf(sentenceStarts, sentenceCount);
+		}
+
+		/**
+		 * @return the byte offset where each indexed sentence so far ends (exclusive), in file order
+		 */
+		long[] getSentenceEnds() {
+			return Arrays.copyOf(sentenceEnds, sentenceCount);
+		}
+
+		/**
+		 * @param id a vocabulary ID
+		 * @return the sentences containing the word with that ID, ascending; empty if it is in none (e.g. if it was
+		 * interned by another structure sharing the vocabulary)
+		 */
+		int[] getPostings(int id) {
+			if (id >= postings.length || postings[id] == null) {
+				return new int[0];
+			}
+			return Arrays.copyOf(postings[id], postingSizes[id]);
+		}
+	}
+}
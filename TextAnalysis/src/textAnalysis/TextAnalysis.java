@@ -1,56 +1,155 @@
 package textAnalysis;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Scanner;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
-import java.util.stream.*;
-import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
  * Provides various functions for analyzing a section of English text.
+ *
+ * Word totals are 64-bit (countWordsLong, getWordCountLong). Per-word counts are 64-bit only in
+ * {@link OffHeapWordCounter}; the other counters (HashMap, WordCounter, InternedWordCounter, AnalysisResult) keep int
+ * counts and throw ArithmeticException rather than wrap around if a single word occurs more than Integer.MAX_VALUE
+ * times.
+ *
+ * Every method that reads a File decodes it as UTF-8, whatever the platform's default charset, so the Scanner-based
+ * methods, the mapped byte-level scans and analyze(File) always agree on the same file. Streams and channels are
+ * decoded in the charset given with them; readers are taken as already decoded.
  * @author Leo Mishlove
  *
  */
 public class TextAnalysis {
 	
+	/* smallest chunk of a file worth counting on its own thread */
+	private static final long MIN_PARALLEL_CHUNK_SIZE = 1 << 20;
+	
+	/* encoding of every file read, by name for Scanner(File, String), which throws FileNotFoundException */
+	private static final String FILE_CHARSET = "UTF-8";
+	
+	/* chars read at a time from streaming sources */
+	private static final int READ_BUFFER_SIZE = 8192;
+	
+	/* largest table calculateWordFrequencies presizes; past this, occasional rehashing costs far less than a table
+	 * sized as if every one of billions of words were unique */
+	private static final int MAX_PRESIZED_CAPACITY = 1 << 24;
+	
+	/* headroom over the estimated vocabulary size, so an estimate a little too low does not cause a rehash */
+	private static final double VOCABULARY_ESTIMATE_PADDING = 1.1;
+	
 	/**
-	 * Counts the number of words in a piece of text. (Note: not the number of unique words.)
-	 * @param sourceFile the file containing the source text
+	 * Counts the number of words in a piece of text. (Note: not the number of unique words.) The file is read through
+	 * a memory mapping and scanned byte by byte, so no String is created for any word.
+	 * @param sourceFile the file containing the source text (UTF-8)
 	 * @return the word count for the text
-	 * @throws FileNotFoundException
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws UncheckedIOException if the source file cannot be read
+	 * @throws ArithmeticException if the text has more than Integer.MAX_VALUE words (use countWordsLong)
 	 */
 	public static int countWords(File sourceFile) throws FileNotFoundException{
-		Scanner sourceScanner = new Scanner(sourceFile);		//default delimiter (whitespace)
-		int wordCount = 0;
-		while (sourceScanner.hasNext()) {						//count each word found.
-			wordCount++;
-			sourceScanner.next();
+		return Math.toIntExact(countWordsLong(sourceFile));
+	}
+	
+	
+	/**
+	 * Counts the number of words in a piece of text, like countWords, as a 64-bit count for texts with more than
+	 * Integer.MAX_VALUE words.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return the word count for the text
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws UncheckedIOException if the source file cannot be read
+	 */
+	public static long countWordsLong(File sourceFile) throws FileNotFoundException{
+		try {
+			return new MappedTokenizer(sourceFile).countTokens();		//same boundaries as Scanner's default delimiter
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		sourceScanner.close();
-		return wordCount;
 	}
 	
 
+	/**
+	 * Initializes a HashMap with the frequencies of each unique word in the text (case-insensitive), like
+	 * calculateWordFrequencies(File, long), without needing the word count first. For a large file, the map is sized
+	 * from an estimate of the number of unique words taken from a sample of the text (see {@link VocabularyEstimator}).
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return a hash map containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws UncheckedIOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static HashMap<String, Integer> calculateWordFrequencies(File sourceFile) throws FileNotFoundException {
+		return calculateWordFrequencies(sourceFile, Long.MAX_VALUE);		//no bound from the word count
+	}
+	
+	
+	/**
+	 * Initializes a HashMap with the frequencies of each unique word in the text (case-insensitive), like
+	 * calculateWordFrequencies(File, long). Kept so that code compiled against the int signature still links.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param wordCount the total number of words in the source text (not necessarily the number of unique words)
+	 * @return a hash map containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws UncheckedIOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static HashMap<String, Integer> calculateWordFrequencies(File sourceFile, int wordCount) throws FileNotFoundException {
+		return calculateWordFrequencies(sourceFile, (long) wordCount);
+	}
+	
+	
 	/**
 	 * Initializes a HashMap with the frequencies of each unique word in the text (case-insensitive). Note: hyphenated
 	 * and compounded words (e.g. "e-mail", "ascending-order") are treated as a single word.
-	 * @param sourceFile the file containing the source text
+	 * @param sourceFile the file containing the source text (UTF-8)
 	 * @param wordCount the total number of words in the source text (not necessarily the number of unique words)
 	 * @return a hash map containing each unique word in the text and the number of times it occurs
 	 * @throws FileNotFoundException if source file is not found
+	 * @throws UncheckedIOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
 	 */
-	public static HashMap<String, Integer> calculateWordFrequencies(File sourceFile, int wordCount) throws FileNotFoundException {
+	public static HashMap<String, Integer> calculateWordFrequencies(File sourceFile, long wordCount) throws FileNotFoundException {
 		/* HashMap chosen b/c retrieving current count (get) and adding new count (put) are constant-time */
 	
-		Scanner sourceScanner = new Scanner(sourceFile);
 		float loadFactor = 0.75f;
 		
-		/* # unique words will not exceed total word count, so set initial capacity to avoid rehashing.
-		 * add extra padding for the edge case where there are few-to-none repeated words. */
-		HashMap<String, Integer> wordFrequencies = new HashMap<String, Integer>((int) (wordCount / loadFactor), loadFactor);	
+		/* # unique words will not exceed total word count, but is usually far smaller. For a large file, size the map
+		 * for the vocabulary estimated from a sample spread over it (with some padding for the estimate's error) to
+		 * avoid rehashing; a small file would be read in full for the sample, so its map just grows as needed.
+		 * computed in floating point so huge counts cannot wrap negative, and capped (see MAX_PRESIZED_CAPACITY). */
+		long expectedUniqueWords = 0;
+		if (VocabularyEstimator.isWorthSampling(sourceFile)) {
+			try {
+				expectedUniqueWords = Math.min(Math.max(wordCount, 0),
+						(long) (VocabularyEstimator.estimate(sourceFile) * VOCABULARY_ESTIMATE_PADDING));
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		int initialCapacity = (int) Math.min(expectedUniqueWords / (double) loadFactor, MAX_PRESIZED_CAPACITY);
+		HashMap<String, Integer> wordFrequencies = new HashMap<String, Integer>(initialCapacity, loadFactor);	
+		
+		Scanner sourceScanner = new Scanner(sourceFile, FILE_CHARSET);
 		
 		while (sourceScanner.hasNext()) {
 			String currentWord = sourceScanner.next();
@@ -58,7 +157,7 @@ public class TextAnalysis {
 			
 			if (!currentWord.equals("") && wordFrequencies.containsKey(currentWord)) {	
 				Integer frequency = wordFrequencies.get(currentWord);	//if word has been seen before, increase its count
-				wordFrequencies.put(currentWord, frequency + 1);		//note: put overwrites previous value for that key
+				wordFrequencies.put(currentWord, Math.addExact(frequency, 1));	//note: put overwrites previous value for that key
 			} else if (!currentWord.equals("")){						//if word hasn't been seen before, add it
 				wordFrequencies.put(currentWord, 1);					
 			} else {													//if word is the empty string, do nothing
@@ -70,32 +169,272 @@ public class TextAnalysis {
 	}
 	
 	
+	/**
+	 * Counts the frequencies of each unique word in the text (case-insensitive), with the same rules as
+	 * calculateWordFrequencies. The counts are kept in a WordCounter, which increments in place without boxing, and the
+	 * file is read through a memory mapping (see {@link MappedTokenizer}), so no word count pass is needed beforehand.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static WordCounter countWordFrequencies(File sourceFile) throws IOException {
+		WordCounter wordFrequencies = new WordCounter();
+		WordNormalizer normalizer = new WordNormalizer();
+		
+		new MappedTokenizer(sourceFile).forEachToken(
+				(text, start, end) -> countToken(wordFrequencies, normalizer, text, start, end));
+		return wordFrequencies;
+	}
+	
+	
+	/**
+	 * Counts the frequencies of each unique word in the text in parallel, using the common fork/join pool. The result
+	 * is identical to that of countWordFrequencies.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static WordCounter countWordFrequenciesParallel(File sourceFile) throws IOException {
+		return countWordFrequenciesParallel(sourceFile, ForkJoinPool.commonPool());
+	}
+	
+	
+	/**
+	 * Counts the frequencies of each unique word in the text in parallel. The file is split into chunks at whitespace
+	 * boundaries, each chunk is counted on the given pool, and the partial counts are merged, so the result is
+	 * identical to that of countWordFrequencies.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param pool the fork/join pool to count on
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static WordCounter countWordFrequenciesParallel(File sourceFile, ForkJoinPool pool) throws IOException {
+		if (!sourceFile.isFile()) {
+			throw new FileNotFoundException(sourceFile.getPath());
+		}
+		
+		/* a few chunks per thread evens out the load; tiny chunks would cost more to merge than to count */
+		long size = sourceFile.length();
+		long chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, size / (pool.getParallelism() * 4L));
+		
+		try {
+			return pool.invoke(new WordCountTask(sourceFile, 0, size, chunkSize));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	
+	/**
+	 * Counts the frequencies of each unique word in the text, with the same rules as countWordFrequencies, into an
+	 * OffHeapWordCounter. For texts with tens of millions of unique words, the vocabulary then lives in direct memory
+	 * instead of the heap, and counts are 64-bit. The caller should close the counter to free that memory.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return an off-heap counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static OffHeapWordCounter countWordFrequenciesOffHeap(File sourceFile) throws IOException {
+		OffHeapWordCounter wordFrequencies = new OffHeapWordCounter();
+		try {
+			forEachWord(sourceFile, wordFrequencies::increment);
+		} catch (IOException | RuntimeException e) {
+			wordFrequencies.close();								//do not leave the direct memory to the GC
+			throw e;
+		}
+		return wordFrequencies;
+	}
+	
+	
+	/**
+	 * Counts the frequencies of each unique word in the text, with the same rules as countWordFrequencies, into an
+	 * InternedWordCounter: each word gets a dense ID in a {@link Vocabulary} and its count lives in an int array
+	 * indexed by that ID, which further ID-based structures (e.g. an {@link NGramCounter}) can share.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static InternedWordCounter countWordFrequenciesInterned(File sourceFile) throws IOException {
+		return countWordFrequenciesInterned(sourceFile, new Vocabulary());
+	}
+
+
+	/**
+	 * Counts the frequencies of each unique word in the text as countWordFrequenciesInterned(sourceFile) does,
+	 * interning words in a given vocabulary that other structures may share.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param vocabulary the vocabulary to intern words in
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static InternedWordCounter countWordFrequenciesInterned(File sourceFile, Vocabulary vocabulary)
+			throws IOException {
+		InternedWordCounter wordFrequencies = new InternedWordCounter(vocabulary);
+		forEachWord(sourceFile, wordFrequencies::increment);
+		return wordFrequencies;
+	}
+
+
+	/**
+	 * Estimates the number of unique words in the text (case-insensitive, with the same rules as
+	 * calculateWordFrequencies) in a single pass and constant memory, without building a frequency map. Words are
+	 * normalized as by convertWordToCompatible and added to a {@link HyperLogLog} sketch, whose size depends only on
+	 * the error asked for (e.g. 16 KB for 1%), not on the text.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param relativeError the largest acceptable relative standard error, e.g. 0.01 for 1%
+	 * @return the estimated number of unique words
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws IllegalArgumentException if [relativeError] is not positive or is below what the sketch supports
+	 */
+	public static long estimateDistinctWords(File sourceFile, double relativeError) throws IOException {
+		HyperLogLog sketch = HyperLogLog.withRelativeError(relativeError);
+		forEachWord(sourceFile, sketch::add);
+		return sketch.estimate();
+	}
+
+
+	/**
+	 * Counts approximate word frequencies in the text (case-insensitive, with the same rules as
+	 * calculateWordFrequencies) in fixed memory, however large the text and its vocabulary. The [capacity] most
+	 * frequent words are tracked with error bounds and can be ranked like findMostFrequentWords does; see
+	 * {@link ApproximateWordCounter}.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param capacity the number of words to track; any word occurring more than (word count / capacity) times is
+	 * guaranteed to be among them
+	 * @return the approximate counts
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static ApproximateWordCounter countWordFrequenciesApproximate(File sourceFile, int capacity)
+			throws IOException {
+		ApproximateWordCounter wordFrequencies = new ApproximateWordCounter(capacity);
+		forEachWord(sourceFile, wordFrequencies::increment);
+		return wordFrequencies;
+	}
+
+
+	/**
+	 * Counts the frequency of every n-gram (run of [n] consecutive words, e.g. "of the" for n = 2) in a piece of
+	 * text. Words are split and converted to compatible format as by countWordFrequencies, and an n-gram never spans
+	 * a sentence end (., ?, or !, as split by lastOccurrence); see {@link NGramCounter}.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param n the number of words per n-gram, between 1 and NGramCounter.MAX_N
+	 * @return the n-gram counts
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static NGramCounter countNGrams(File sourceFile, int n) throws IOException {
+		return countNGrams(sourceFile, n, new Vocabulary());
+	}
+
+
+	/**
+	 * Counts the frequency of every n-gram in a piece of text, as countNGrams(sourceFile, n) does, interning words in
+	 * a given vocabulary, so that the n-grams' word IDs agree with those of other structures sharing it (e.g. the
+	 * counter from countWordFrequenciesInterned(sourceFile, vocabulary)).
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param n the number of words per n-gram, between 1 and NGramCounter.MAX_N
+	 * @param vocabulary the vocabulary to intern words in
+	 * @return the n-gram counts
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static NGramCounter countNGrams(File sourceFile, int n, Vocabulary vocabulary) throws IOException {
+		NGramCounter nGrams = new NGramCounter(n, vocabulary);
+		WordNormalizer normalizer = new WordNormalizer();
+		new MappedTokenizer(sourceFile).forEachToken((text, start, end) -> {
+			int length = normalizer.normalize(text, start, end);
+			if (length > 0) {
+				nGrams.add(normalizer.getChars(), length);
+			}
+			for (int i = start; i < end; i++) {
+				if (MappedTokenizer.isSentenceEnd(text.get(i))) {		//e.g. "end." or "end.Next"
+					nGrams.endSentence();
+					break;
+				}
+			}
+		});
+		return nGrams;
+	}
+
+
+	/**
+	 * Converts a token to compatible format and counts it, unless it is empty after conversion. The token is
+	 * normalized in the normalizer's buffer, so no String is created unless the word is new.
+	 * @param wordFrequencies the counter to count the token in
+	 * @param normalizer the normalizer to convert the token with
+	 * @param text the buffer holding the token's UTF-8 bytes
+	 * @param start index of the token's first byte (absolute)
+	 * @param end index one past the token's last byte
+	 */
+	static void countToken(WordCounter wordFrequencies, WordNormalizer normalizer, ByteBuffer text, int start,
+			int end) {
+		int length = normalizer.normalize(text, start, end);
+		if (length > 0) {											//if word is the empty string, do nothing
+			wordFrequencies.increment(normalizer.getChars(), length);
+		}
+	}
+	
+	
 	/**
 	 * Given a map of words to the frequency with which they appear, finds the top [n] most frequent words, where [n]
-	 * is the number of most-frequent words desired.
-	 * @param wordFrequencies a hashmap containing (word, frequency) pairs, indexed by word
+	 * is the number of most-frequent words desired. Only [n] words are ever kept in order (a size-[n] min-heap, or
+	 * quickselect when [n] is a large part of the vocabulary), so the whole map is not sorted. Words with the same
+	 * frequency are listed alphabetically.
+	 * @param wordFrequencies a map containing (word, frequency) pairs, indexed by word (e.g. a HashMap from
+	 * calculateWordFrequencies or a WordCounter from countWordFrequencies)
+	 * @param wordsDesired the cutoff point for the the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public static List<String> findMostFrequentWords(Map<String, Integer> wordFrequencies, int wordsDesired) {
+		return TopWords.select(wordFrequencies, wordsDesired);
+	}
+	
+	
+	/**
+	 * Finds the top [n] most frequent words, like findMostFrequentWords(Map, int). Kept so that code compiled against
+	 * the HashMap signature still links.
+	 * @param wordFrequencies a hash map containing (word, frequency) pairs, indexed by word
 	 * @param wordsDesired the cutoff point for the the number of most frequent words
 	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
 	 */
 	public static List<String> findMostFrequentWords(HashMap<String, Integer> wordFrequencies, int wordsDesired) {
-		List<String> mostFrequentWords = wordFrequencies.entrySet().stream()		// get set of entries, convert to stream
-				.sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))		// sort by frequency in descending order
-				.limit(wordsDesired)												// limit to only [n] most-frequent words
-				.map(e -> e.getKey())												// reduce to only the words themselves
-				.collect(Collectors.toList());										// convert to list
-		return mostFrequentWords;
+		return findMostFrequentWords((Map<String, Integer>) wordFrequencies, wordsDesired);
+	}
+	
+	
+	/**
+	 * Same as findMostFrequentWords, but the map is split into partitions whose top [n] words are found in parallel
+	 * (one min-heap per partition) and then merged. Worthwhile for vocabularies of millions of words.
+	 * @param wordFrequencies a map containing (word, frequency) pairs, indexed by word
+	 * @param wordsDesired the cutoff point for the the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public static List<String> findMostFrequentWordsParallel(Map<String, Integer> wordFrequencies, int wordsDesired) {
+		return TopWords.selectParallel(wordFrequencies, wordsDesired);
 	}
 	
 	
 	/**
 	 * Finds the last sentence in a text file that contains a given word
-	 * @param sourceFile the file containing the source text
+	 * @param sourceFile the file containing the source text (UTF-8)
 	 * @param word the word to search for
 	 * @return the last sentence containing the word
 	 * @throws FileNotFoundException if source file is not found
 	 */
 	public static String lastOccurrence(File sourceFile, String word) throws FileNotFoundException {
-		Scanner sourceScanner = new Scanner(sourceFile);  
+		Scanner sourceScanner = new Scanner(sourceFile, FILE_CHARSET);  
 		sourceScanner.useDelimiter("\\.|\\?|!");			//split by ., ?, or ! (end-of-sentence punctuation)
 		
 		String lastMatch = "";								//most recent sentence found with the given word.
@@ -111,6 +450,50 @@ public class TextAnalysis {
 		return lastMatch;
 	}
 	
+	/**
+	 * Finds the last sentence in a text file that contains a given word, with the same result as lastOccurrence, by
+	 * reading the file backwards and stopping at the first match found (see {@link ReverseSentenceScanner}). Only
+	 * the part of the file after the match is read, so a word used near the end of a large file is found quickly.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param word the word to search for
+	 * @return the last sentence containing the word
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static String lastOccurrenceReverse(File sourceFile, String word) throws IOException {
+		return ReverseSentenceScanner.lastOccurrence(sourceFile, word, ReverseSentenceScanner.DEFAULT_BLOCK_SIZE);
+	}
+	
+	
+	/**
+	 * Finds the last sentence in a text file that contains each of a set of words, in a single pass over the file
+	 * however many words there are (see {@link MultiWordSearch}). Each answer is the one lastOccurrence would give,
+	 * except for the empty string, which maps to the empty string rather than to the last sentence with an empty piece.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param words the words to search for
+	 * @return each distinct word, in the order given, mapped to the last sentence containing it (the empty string if
+	 * none does)
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static Map<String, String> lastOccurrences(File sourceFile, Collection<String> words) throws IOException {
+		return new MultiWordSearch(words).lastOccurrences(sourceFile);
+	}
+	
+	
+	/**
+	 * Builds an inverted index from each word to the sentences containing it, so that lastOccurrence (and first or
+	 * all occurrences) can be answered for any number of words without rescanning the file.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return the index, which must be closed after use
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	public static SentenceIndex buildSentenceIndex(File sourceFile) throws IOException {
+		return SentenceIndex.build(sourceFile);
+	}
+	
+	
 	/**
 	 * Determines if a sentence contains a particular word.
 	 * @param sentence a string containing one or more words separated by whitespace
@@ -131,13 +514,315 @@ public class TextAnalysis {
 	}
 	
 	
+	/**
+	 * Analyzes a piece of text in a single pass, producing the word count, the word frequencies and the last sentence
+	 * containing each word. Equivalent to calling countWords, calculateWordFrequencies and lastOccurrence, but the
+	 * file is only read once.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return the results of the analysis
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static AnalysisResult analyze(File sourceFile) throws IOException {
+		try (Reader sourceReader = new InputStreamReader(new FileInputStream(sourceFile), StandardCharsets.UTF_8)) {
+			return analyze(sourceReader);
+		}
+	}
+	
+	
+	/**
+	 * Analyzes text from a stream in a single pass, like analyze(File). The stream is decoded incrementally, read to
+	 * the end and not closed, so data from sockets, compressed streams, etc. does not have to be spooled to disk.
+	 * @param source the stream containing the source text
+	 * @param charset the encoding of the source text
+	 * @return the results of the analysis
+	 * @throws IOException if the stream cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static AnalysisResult analyze(InputStream source, Charset charset) throws IOException {
+		return analyze(new InputStreamReader(source, charset));
+	}
+	
+	
+	/**
+	 * Analyzes text from a channel in a single pass, like analyze(File). The channel is decoded incrementally, read
+	 * to the end and not closed.
+	 * @param source the channel containing the source text
+	 * @param charset the encoding of the source text
+	 * @return the results of the analysis
+	 * @throws IOException if the channel cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static AnalysisResult analyze(ReadableByteChannel source, Charset charset) throws IOException {
+		return analyze(Channels.newReader(source, charset));
+	}
+	
+	
+	/**
+	 * Analyzes text from a reader in a single pass, like analyze(File). The reader is consumed one buffer at a time,
+	 * read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @return the results of the analysis
+	 * @throws IOException if the reader cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static AnalysisResult analyze(Reader source) throws IOException {
+		TextAnalyzer analyzer = new TextAnalyzer();
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		
+		int charsRead;
+		while ((charsRead = source.read(buffer)) != -1) {
+			analyzer.accept(buffer, 0, charsRead);
+		}
+		return analyzer.finish();
+	}
+	
+	
+	/**
+	 * Counts the number of words in text from a reader, with the same word boundaries as countWords(File). Only one
+	 * buffer of text is held in memory at a time. The reader is read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @return the word count for the text
+	 * @throws IOException if the reader cannot be read
+	 */
+	public static long countWords(Reader source) throws IOException {
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		long wordCount = 0;
+		boolean inWord = false;								//carried across buffers
+		
+		int charsRead;
+		while ((charsRead = source.read(buffer)) != -1) {
+			for (int i = 0; i < charsRead; i++) {
+				if (Character.isWhitespace(buffer[i])) {
+					inWord = false;
+				} else if (!inWord) {							//first character of a new word
+					wordCount++;
+					inWord = true;
+				}
+			}
+		}
+		return wordCount;
+	}
+	
+	
+	/**
+	 * Counts the frequencies of each unique word in text from a reader, with the same rules as
+	 * calculateWordFrequencies. Memory is bounded by one buffer plus the longest word and the vocabulary. The reader is
+	 * read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @return a counter containing each unique word in the text and the number of times it occurs
+	 * @throws IOException if the reader cannot be read
+	 * @throws ArithmeticException if a word occurs more than Integer.MAX_VALUE times (use countWordFrequenciesOffHeap)
+	 */
+	public static WordCounter countWordFrequencies(Reader source) throws IOException {
+		WordCounter wordFrequencies = new WordCounter();
+		forEachWord(source, wordFrequencies::increment);
+		return wordFrequencies;
+	}
+	
+	
+	/**
+	 * Estimates the number of unique words in text from a reader, like estimateDistinctWords(File, double). Memory is
+	 * bounded by one buffer plus the longest word and the sketch. The reader is read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @param relativeError the largest acceptable relative standard error, e.g. 0.01 for 1%
+	 * @return the estimated number of unique words
+	 * @throws IOException if the reader cannot be read
+	 * @throws IllegalArgumentException if [relativeError] is not positive or is below what the sketch supports
+	 */
+	public static long estimateDistinctWords(Reader source, double relativeError) throws IOException {
+		HyperLogLog sketch = HyperLogLog.withRelativeError(relativeError);
+		forEachWord(source, sketch::add);
+		return sketch.estimate();
+	}
+	
+	
+	/**
+	 * Counts approximate word frequencies in text from a reader, like countWordFrequenciesApproximate(File, int), for
+	 * streams too long for an exact frequency map. Memory is fixed by [capacity], apart from one buffer and the
+	 * longest word. The reader is read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @param capacity the number of words to track; any word occurring more than (word count / capacity) times is
+	 * guaranteed to be among them
+	 * @return the approximate counts
+	 * @throws IOException if the reader cannot be read
+	 */
+	public static ApproximateWordCounter countWordFrequenciesApproximate(Reader source, int capacity)
+			throws IOException {
+		ApproximateWordCounter wordFrequencies = new ApproximateWordCounter(capacity);
+		forEachWord(source, wordFrequencies::increment);
+		return wordFrequencies;
+	}
+	
+	
+	/**
+	 * Finds the last sentence in text from a reader that contains a given word, with the same sentence and word
+	 * splitting as lastOccurrence(File). Only the current sentence and the last match are held in memory. The reader
+	 * is read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @param word the word to search for
+	 * @return the last sentence containing the word
+	 * @throws IOException if the reader cannot be read
+	 */
+	public static String lastOccurrence(Reader source, String word) throws IOException {
+		WordNormalizer normalizer = new WordNormalizer();
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		StringBuilder sentence = new StringBuilder();		//the sentence in progress, which may span buffers
+		char[] piece = new char[32];						//the \s-delimited piece of it in progress
+		int pieceLength = 0;
+		boolean sentenceMatches = false;
+		String lastMatch = "";
+		
+		int charsRead;
+		while ((charsRead = source.read(buffer)) != -1) {
+			for (int i = 0; i < charsRead; i++) {
+				char c = buffer[i];
+				boolean sentenceEnd = TextAnalyzer.isSentenceEnd(c);
+				if (!sentenceEnd && !TextAnalyzer.isSplitWhitespace(c)) {	//part of a piece
+					sentence.append(c);
+					if (pieceLength == piece.length) {
+						piece = Arrays.copyOf(piece, pieceLength * 2);
+					}
+					piece[pieceLength++] = c;
+					continue;
+				}
+				
+				if (!sentenceMatches && pieceLength > 0) {					//end of a piece: is it the word?
+					sentenceMatches = matchesWord(normalizer, piece, pieceLength, word);
+				}
+				pieceLength = 0;
+				
+				if (sentenceEnd) {											//end of a sentence
+					if (sentenceMatches) {
+						lastMatch = sentence.toString();					//overwrite any previous match
+					}
+					sentence.setLength(0);
+					sentenceMatches = false;
+				} else {
+					sentence.append(c);
+				}
+			}
+		}
+		
+		/* text after the last punctuation is a sentence of its own */
+		if (!sentenceMatches && pieceLength > 0) {
+			sentenceMatches = matchesWord(normalizer, piece, pieceLength, word);
+		}
+		return sentenceMatches ? sentence.toString() : lastMatch;
+	}
+	
+	
+	/**
+	 * Determines if a sentence piece is a given word once converted to compatible format, as in containsWord.
+	 * @param normalizer the normalizer to convert the piece with
+	 * @param piece the buffer holding the piece
+	 * @param pieceLength the number of chars in the piece
+	 * @param searchWord the word to compare with
+	 * @return true if the converted piece equals the word
+	 */
+	private static boolean matchesWord(WordNormalizer normalizer, char[] piece, int pieceLength, String searchWord) {
+		int length = normalizer.normalize(piece, 0, pieceLength);
+		if (length != searchWord.length()) {
+			return false;
+		}
+		char[] chars = normalizer.getChars();
+		for (int i = 0; i < length; i++) {
+			if (chars[i] != searchWord.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Receives the compatible-format words found by forEachWord.
+	 */
+	private interface WordVisitor {
+
+		/**
+		 * Called once per non-empty word, in order. The buffer is reused for the next word.
+		 * @param chars the buffer holding the normalized word
+		 * @param length the number of chars in the word
+		 */
+		void visitWord(char[] chars, int length);
+	}
+	
+	
+	/**
+	 * Splits a file into words as calculateWordFrequencies does (through a memory mapping), converts each to
+	 * compatible format in a reusable buffer, and passes the non-empty ones to a visitor.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @param visitor the visitor to receive each word
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	private static void forEachWord(File sourceFile, WordVisitor visitor) throws IOException {
+		WordNormalizer normalizer = new WordNormalizer();
+		new MappedTokenizer(sourceFile).forEachToken((text, start, end) -> {
+			int length = normalizer.normalize(text, start, end);
+			if (length > 0) {										//if word is the empty string, do nothing
+				visitor.visitWord(normalizer.getChars(), length);
+			}
+		});
+	}
+	
+	
+	/**
+	 * Splits text from a reader into words as calculateWordFrequencies does, converts each to compatible format in a
+	 * reusable buffer, and passes the non-empty ones to a visitor. The reader is read to the end and not closed.
+	 * @param source the reader containing the source text
+	 * @param visitor the visitor to receive each word
+	 * @throws IOException if the reader cannot be read
+	 */
+	private static void forEachWord(Reader source, WordVisitor visitor) throws IOException {
+		WordNormalizer normalizer = new WordNormalizer();
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		char[] word = new char[32];							//the word in progress, which may span buffers
+		int wordLength = 0;
+		
+		int charsRead = 0;
+		while (charsRead != -1) {
+			charsRead = source.read(buffer);
+			for (int i = 0; i < charsRead; i++) {
+				if (!Character.isWhitespace(buffer[i])) {
+					if (wordLength == word.length) {
+						word = Arrays.copyOf(word, wordLength * 2);
+					}
+					word[wordLength++] = buffer[i];
+					continue;
+				}
+				visitWord(normalizer, word, wordLength, visitor);
+				wordLength = 0;
+			}
+		}
+		visitWord(normalizer, word, wordLength, visitor);			//word at the very end of the text
+	}
+	
+	
+	/**
+	 * Normalizes a word held in a char buffer and passes it to a visitor, unless it is empty after conversion.
+	 * @param normalizer the normalizer to convert the word with
+	 * @param word the buffer holding the word
+	 * @param wordLength the number of chars in the word (may be 0)
+	 * @param visitor the visitor to receive the word
+	 */
+	private static void visitWord(WordNormalizer normalizer, char[] word, int wordLength, WordVisitor visitor) {
+		int length = normalizer.normalize(word, 0, wordLength);
+		if (length > 0) {
+			visitor.visitWord(normalizer.getChars(), length);
+		}
+	}
+	
+	
 	/**
 	 * Converts word to a search- and comparison-compatible format by removing leading and trailing punctuation 
 	 * and converting all letters to lowercase. Ensures equivalence of strings such as "word," and "\"Word".
 	 * @param word the word to be converted to compatible format
 	 * @return the input word in compatible format (no leading/trailing punctuation, all lowercase)
 	 */
-	private static String convertWordToCompatible(String word) {
+	static String convertWordToCompatible(String word) {
 		word = removeLeadingPunctuation(word);
 		word = removeTrailingPunctuation(word);
 		word = word.toLowerCase();		//de-capitalize so that "Word" and "word" are considered equivalent
@@ -193,14 +878,11 @@ public class TextAnalysis {
 		int wordsDesired = 10;						 	 // only the top 10 most frequent words are desired
 		
 		try {
-			int wordCount = countWords(sourceFile);
-			System.out.println("Total words: " + wordCount);
-		
-			//generate the word/frequency pairs
-			HashMap<String, Integer> wordFrequencies = calculateWordFrequencies(sourceFile, wordCount);
+			AnalysisResult analysis = analyze(sourceFile);			// count, frequencies and sentences in one pass
+			System.out.println("Total words: " + analysis.getWordCountLong());
 			
 			// get the most-used words
-			List<String> mostUsedWords = findMostFrequentWords(wordFrequencies, wordsDesired);
+			List<String> mostUsedWords = analysis.findMostFrequentWords(wordsDesired);
 			
 
 			System.out.println("Most used words are:");
@@ -209,11 +891,13 @@ public class TextAnalysis {
 			}
 		
 			String mostUsedWord = mostUsedWords.get(0);	 // mostUsedWords is ordered high-low; so #1 most used is first in the list
-			String lastOccurrence = lastOccurrence(sourceFile, mostUsedWord);
+			String lastOccurrence = analysis.lastOccurrence(mostUsedWord);
 			System.out.println("The last sentence containing \"" + mostUsedWord + "\" is: " + lastOccurrence);
 		
 		} catch (FileNotFoundException e) {
 			System.out.println("File not found");
+		} catch (IOException e) {
+			System.out.println("File could not be read");
 		}
 	}
 	
@@ -0,0 +1,358 @@
+package textAnalysis;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Single-pass analysis engine. Text is pushed in as characters and, in one traversal, the engine tracks the word
+ * count, the frequency of each unique word, and the last sentence containing each word. The results are identical
+ * to those of the separate {@link TextAnalysis#countWords}, {@link TextAnalysis#calculateWordFrequencies} and
+ * {@link TextAnalysis#lastOccurrence} scans. The results so far can also be queried while more text is still to come
+ * (see {@link IncrementalAnalyzer}). Every word, whether met in a token or in a sentence, is interned once in a
+ * {@link Vocabulary}; the counts and the last sentences are arrays indexed by its ID.
+ * @author Leo Mishlove
+ *
+ */
+public class TextAnalyzer {
+
+	private long wordCount = 0;
+	private final Vocabulary vocabulary;
+	private final InternedWordCounter wordFrequencies;
+	private String[] lastSentences = new String[16];		//ID -> last sentence containing the word, or null
+
+	/* word state: the whitespace-delimited token currently being read (same delimiter as the Scanner in countWords) */
+	private char[] currentToken = new char[32];
+	private int tokenLength = 0;
+
+	/* sentence state: the raw sentence currently being read, the \s-delimited piece of it currently being read, and
+	 * the IDs of the compatible words found so far in the sentence (same splitting as lastOccurrence/containsWord) */
+	private StringBuilder currentSentence = new StringBuilder();
+	private char[] currentPiece = new char[32];
+	private int pieceLength = 0;
+	private int[] sentenceWords = new int[16];
+	private int sentenceWordCount = 0;
+
+	/* tokens and pieces are normalized in place; Strings are only created for words not seen before */
+	private WordNormalizer normalizer = new WordNormalizer();
+
+	private boolean finished = false;
+
+
+	/**
+	 * Creates an engine with a vocabulary of its own.
+	 */
+	public TextAnalyzer() {
+		this(new Vocabulary());
+	}
+
+
+	/**
+	 * Creates an engine that shares a vocabulary (and therefore its IDs) with other structures, e.g. an
+	 * {@link NGramCounter}.
+	 * @param vocabulary the vocabulary to intern words in
+	 */
+	public TextAnalyzer(Vocabulary vocabulary) {
+		this(vocabulary, new InternedWordCounter(vocabulary));
+	}
+
+
+	private TextAnalyzer(Vocabulary vocabulary, InternedWordCounter wordFrequencies) {
+		this.vocabulary = vocabulary;
+		this.wordFrequencies = wordFrequencies;
+	}
+
+
+	/**
+	 * Feeds a block of characters into the engine. Blocks may split words and sentences at any point.
+	 * @param text the buffer holding the characters
+	 * @param offset index of the first character to read
+	 * @param length number of characters to read
+	 */
+	public void accept(char[] text, int offset, int length) {
+		if (finished) {
+			throw new IllegalStateException("analysis already finished");
+		}
+
+		for (int i = offset; i < offset + length; i++) {
+			char c = text[i];
+
+			if (Character.isWhitespace(c)) {			//end of token (Scanner's default delimiter)
+				endToken();
+			} else {
+				if (tokenLength == currentToken.length) {
+					currentToken = Arrays.copyOf(currentToken, tokenLength * 2);
+				}
+				currentToken[tokenLength++] = c;
+			}
+
+			if (isSentenceEnd(c)) {						//end of sentence (and of the piece it was in)
+				endPiece();
+				endSentence();
+			} else {
+				currentSentence.append(c);
+				if (isSplitWhitespace(c)) {				//end of piece, but the sentence goes on
+					endPiece();
+				} else {
+					if (pieceLength == currentPiece.length) {
+						currentPiece = Arrays.copyOf(currentPiece, pieceLength * 2);
+					}
+					currentPiece[pieceLength++] = c;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Flushes the trailing word and sentence and returns the results of the analysis. No more text may be fed in
+	 * afterwards.
+	 * @return the word count, word frequencies and last sentence per word for all text fed in
+	 */
+	public AnalysisResult finish() {
+		if (!finished) {
+			endToken();
+			endPiece();
+			endSentence();
+			finished = true;
+		}
+		return new AnalysisResult(wordCount, wordFrequencies, lastSentences);
+	}
+
+
+	/**
+	 * Copies the engine, including the word and sentence in progress, so that more text can be fed into the copy
+	 * without affecting this engine. Takes time proportional to the vocabulary.
+	 * @return the copy, with a copy of the vocabulary
+	 * @throws IllegalStateException if the analysis has already finished
+	 */
+	TextAnalyzer copy() {
+		if (finished) {
+			throw new IllegalStateException("analysis already finished");
+		}
+		Vocabulary words = vocabulary.copy();
+		TextAnalyzer copy = new TextAnalyzer(words, wordFrequencies.copy(words));
+		copy.wordCount = wordCount;
+		copy.lastSentences = Arrays.copyOf(lastSentences, lastSentences.length);
+		copy.currentToken = Arrays.copyOf(currentToken, currentToken.length);
+		copy.tokenLength = tokenLength;
+		copy.currentSentence = new StringBuilder(currentSentence);
+		copy.currentPiece = Arrays.copyOf(currentPiece, currentPiece.length);
+		copy.pieceLength = pieceLength;
+		copy.sentenceWords = Arrays.copyOf(sentenceWords, sentenceWords.length);
+		copy.sentenceWordCount = sentenceWordCount;
+		return copy;
+	}
+
+
+	/**
+	 * @return the vocabulary this engine interns words in
+	 */
+	public Vocabulary getVocabulary() {
+		return vocabulary;
+	}
+
+
+	/**
+	 * Finds the word count of all text fed in so far, counting a word still in progress (i.e. not yet followed by
+	 * whitespace), as countWords would if the text ended here.
+	 * @return the word count so far
+	 * @throws ArithmeticException if more than Integer.MAX_VALUE words have been fed in (use getWordCountLong)
+	 */
+	public int getWordCount() {
+		return Math.toIntExact(getWordCountLong());
+	}
+
+
+	/**
+	 * Finds the word count of all text fed in so far, like getWordCount, as a 64-bit count.
+	 * @return the word count so far
+	 */
+	public long getWordCountLong() {
+		return tokenLength > 0 ? wordCount + 1 : wordCount;
+	}
+
+
+	/**
+	 * Finds the frequency of a word in all text fed in so far, counting a word still in progress.
+	 * @param word the compatible-format word to look up
+	 * @return the number of times the word has occurred so far
+	 */
+	public int getCount(String word) {
+		int count = wordFrequencies.getCount(word);
+		return pendingTokenEquals(word) ? Math.addExact(count, 1) : count;
+	}
+
+
+	/**
+	 * Finds the last sentence containing a word in all text fed in so far. A sentence still in progress (i.e. not yet
+	 * ended by punctuation) counts, as it would in lastOccurrence if the text ended here.
+	 * @param word the word to search for
+	 * @return the last sentence containing the word, or the empty string if no sentence contains it yet
+	 */
+	public String lastOccurrence(String word) {
+		if (pendingSentenceContains(word)) {
+			return currentSentence.toString();
+		}
+		int id = vocabulary.getId(word);
+		return id >= 0 && id < lastSentences.length && lastSentences[id] != null ? lastSentences[id] : "";
+	}
+
+
+	/**
+	 * Finds the top [n] most frequent words in all text fed in so far, counting a word still in progress, without
+	 * copying the frequencies as snapshot() does.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the top [wordsDesired] most frequent words, in descending order with the most-frequent first
+	 */
+	public List<String> findMostFrequentWords(int wordsDesired) {
+		int length = normalizer.normalize(currentToken, 0, tokenLength);
+		if (length == 0) {
+			return wordFrequencies.findMostFrequentWords(wordsDesired);
+		}
+		String pendingWord = new String(normalizer.getChars(), 0, length);
+		boolean seen = wordFrequencies.getCount(pendingWord) > 0;
+		int size = wordFrequencies.size();
+		return TopWords.select(action -> {
+			wordFrequencies.forEachCount(
+					(word, count) -> action.accept(word, word.equals(pendingWord) ? Math.addExact(count, 1) : count));
+			if (!seen) {
+				action.accept(pendingWord, 1);
+			}
+		}, seen ? size : size + 1, wordsDesired);
+	}
+
+
+	/**
+	 * Copies the results for all text fed in so far, as finish() would return them if the text ended here, while
+	 * leaving the engine open for more text. Takes time proportional to the vocabulary.
+	 * @return the word count, word frequencies and last sentence per word so far
+	 */
+	public AnalysisResult snapshot() {
+		Vocabulary words = vocabulary.copy();				//the engine goes on interning into its own
+		InternedWordCounter frequencies = wordFrequencies.copy(words);
+
+		int length = normalizer.normalize(currentToken, 0, tokenLength);
+		if (length > 0) {
+			frequencies.increment(normalizer.getChars(), length);
+		}
+		int[] pendingWords = Arrays.copyOf(sentenceWords, sentenceWordCount + 1);
+		int pendingWordCount = sentenceWordCount;
+		length = normalizer.normalize(currentPiece, 0, pieceLength);
+		if (length > 0) {
+			pendingWords[pendingWordCount++] = words.intern(normalizer.getChars(), length);
+		}
+		String[] sentences = Arrays.copyOf(lastSentences, Math.max(lastSentences.length, words.size()));
+		if (pendingWordCount > 0) {
+			String sentence = currentSentence.toString();
+			for (int i = 0; i < pendingWordCount; i++) {
+				sentences[pendingWords[i]] = sentence;
+			}
+		}
+		return new AnalysisResult(getWordCountLong(), frequencies, sentences);
+	}
+
+
+	/**
+	 * Determines if the word in progress, once converted to compatible format, is a given word.
+	 * @param word the word to compare with
+	 * @return true if a word is in progress and equals [word]
+	 */
+	private boolean pendingTokenEquals(String word) {
+		int length = normalizer.normalize(currentToken, 0, tokenLength);
+		return length > 0 && word.contentEquals(CharBuffer.wrap(normalizer.getChars(), 0, length));
+	}
+
+
+	/**
+	 * Determines if the sentence in progress contains a given word, including its piece in progress.
+	 * @param word the word to search for
+	 * @return true if the sentence so far contains the word
+	 */
+	private boolean pendingSentenceContains(String word) {
+		int id = vocabulary.getId(word);
+		for (int i = 0; i < sentenceWordCount && id >= 0; i++) {
+			if (sentenceWords[i] == id) {
+				return true;
+			}
+		}
+		int length = normalizer.normalize(currentPiece, 0, pieceLength);
+		return length > 0 && word.contentEquals(CharBuffer.wrap(normalizer.getChars(), 0, length));
+	}
+
+
+	/**
+	 * Counts the token just completed and adds it to the frequencies, if a token was in progress.
+	 */
+	private void endToken() {
+		if (tokenLength == 0) {
+			return;
+		}
+		wordCount++;
+
+		int length = normalizer.normalize(currentToken, 0, tokenLength);
+		if (length > 0) {
+			wordFrequencies.increment(normalizer.getChars(), length);
+		}
+		tokenLength = 0;
+	}
+
+
+	/**
+	 * Records the sentence piece just completed as a word of the current sentence. The piece almost always matches a
+	 * token counted a moment earlier, so it already has an ID and no String is created.
+	 */
+	private void endPiece() {
+		if (pieceLength == 0) {
+			return;
+		}
+		int length = normalizer.normalize(currentPiece, 0, pieceLength);
+		if (length > 0) {
+			if (sentenceWordCount == sentenceWords.length) {
+				sentenceWords = Arrays.copyOf(sentenceWords, sentenceWordCount * 2);
+			}
+			//usually already interned; new for e.g. "e" from the token "e.g."
+			sentenceWords[sentenceWordCount++] = vocabulary.intern(normalizer.getChars(), length);
+		}
+		pieceLength = 0;
+	}
+
+
+	/**
+	 * Makes the sentence just completed the last occurrence of every word it contains. The sentence text is only
+	 * materialized if it contains at least one word.
+	 */
+	private void endSentence() {
+		if (sentenceWordCount > 0) {
+			if (lastSentences.length < vocabulary.size()) {
+				lastSentences = Arrays.copyOf(lastSentences, Math.max(vocabulary.size(), lastSentences.length * 2));
+			}
+			String sentence = currentSentence.toString();
+			for (int i = 0; i < sentenceWordCount; i++) {	//later sentences overwrite earlier ones
+				lastSentences[sentenceWords[i]] = sentence;
+			}
+			sentenceWordCount = 0;
+		}
+		currentSentence.setLength(0);
+	}
+
+
+	/**
+	 * Determines if a character ends a sentence (., ?, or !), matching the delimiter used by lastOccurrence.
+	 * @param c the character to check
+	 * @return true if the character is end-of-sentence punctuation
+	 */
+	static boolean isSentenceEnd(char c) {
+		return c == '.' || c == '?' || c == '!';
+	}
+
+
+	/**
+	 * Determines if a character separates the words of a sentence, matching the \s split used by containsWord.
+	 * @param c the character to check
+	 * @return true if the character is a space, tab, line feed, vertical tab, form feed or carriage return
+	 */
+	static boolean isSplitWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+}
@@ -0,0 +1,342 @@
+package textAnalysis;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+
+/**
+ * Selects the [k] most frequent words from a word frequency map without sorting the whole vocabulary. Small [k] uses
+ * a bounded min-heap of size [k] (O(V log k)); [k] close to the vocabulary size uses quickselect followed by a sort of
+ * the selected words (O(V + k log k)). Ties are broken deterministically: among words with the same frequency, the
+ * one that comes first alphabetically ranks higher.
+ * @author Leo Mishlove
+ *
+ */
+final class TopWords {
+
+	/* above this fraction of the vocabulary, one quickselect pass beats [k]-sized heap operations */
+	private static final int QUICKSELECT_RATIO = 8;
+
+	/* slot ranges per thread when selecting from a WordCounter in parallel */
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+
+	private TopWords() {
+	}
+
+
+	/**
+	 * Finds the top [wordsDesired] most frequent words.
+	 * @param wordFrequencies a map containing (word, frequency) pairs, indexed by word
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the most frequent words, in descending order of frequency and then ascending alphabetical order
+	 */
+	static List<String> select(Map<String, Integer> wordFrequencies, int wordsDesired) {
+		return select(action -> forEachCount(wordFrequencies, action), wordFrequencies.size(), wordsDesired);
+	}
+
+
+	/**
+	 * Finds the top [wordsDesired] most frequent words among pairs supplied by a source other than a map (e.g. the
+	 * ID-indexed counts of an {@link InternedWordCounter}).
+	 * @param pairs passes every (word, count) pair to the consumer it is given
+	 * @param vocabularySize the number of pairs
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the most frequent words, in descending order of frequency and then ascending alphabetical order
+	 */
+	static List<String> select(Consumer<ObjIntConsumer<String>> pairs, int vocabularySize, int wordsDesired) {
+		checkWordsDesired(wordsDesired);
+		if (wordsDesired == 0 || vocabularySize == 0) {
+			return new ArrayList<String>();
+		}
+
+		if ((long) wordsDesired * QUICKSELECT_RATIO < vocabularySize) {
+			Heap heap = new Heap(wordsDesired);
+			pairs.accept(heap);
+			return heap.toSortedList();
+		}
+
+		/* large k: copy out every pair, move the k best to the front, then sort only those */
+		String[] words = new String[vocabularySize];
+		int[] counts = new int[vocabularySize];
+		int[] size = {0};
+		pairs.accept((word, count) -> {
+			words[size[0]] = word;
+			counts[size[0]] = count;
+			size[0]++;
+		});
+		int selected = Math.min(wordsDesired, size[0]);
+		quickselect(words, counts, 0, size[0] - 1, selected);
+		quicksort(words, counts, 0, selected - 1);
+
+		List<String> mostFrequentWords = new ArrayList<String>(selected);
+		for (int i = 0; i < selected; i++) {
+			mostFrequentWords.add(words[i]);
+		}
+		return mostFrequentWords;
+	}
+
+
+	/**
+	 * Finds the top [wordsDesired] most frequent words on the common fork/join pool. Each partition of the map
+	 * fills its own bounded heap and the heaps are then merged, giving the same result as {@link #select}. No heap
+	 * holds more than the map's size, and [wordsDesired] close to the map's size is left to select's quickselect,
+	 * since a heap per partition would then hold most of the map.
+	 * @param wordFrequencies a map containing (word, frequency) pairs, indexed by word
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the most frequent words, in descending order of frequency and then ascending alphabetical order
+	 */
+	static List<String> selectParallel(Map<String, Integer> wordFrequencies, int wordsDesired) {
+		checkWordsDesired(wordsDesired);
+		int capacity = Math.min(wordsDesired, wordFrequencies.size());
+		if ((long) capacity * QUICKSELECT_RATIO >= wordFrequencies.size()) {
+			return select(wordFrequencies, wordsDesired);
+		}
+
+		Heap merged = new Heap(capacity);
+		if (wordFrequencies instanceof WordCounter) {		//partition the table's slots directly, without boxing
+			WordCounter counter = (WordCounter) wordFrequencies;
+			int slots = counter.slotCount();
+			int partitions = Math.min(slots, Runtime.getRuntime().availableProcessors() * PARTITIONS_PER_THREAD);
+			IntStream.range(0, partitions).parallel()
+					.mapToObj(p -> {
+						int from = (int) ((long) slots * p / partitions);
+						int to = (int) ((long) slots * (p + 1) / partitions);
+						Heap heap = new Heap(Math.min(capacity, to - from));	//no more words than slots
+						counter.forEachCount(from, to, heap);
+						return heap;
+					})
+					.forEachOrdered(merged::merge);
+		} else {
+			merged.merge(wordFrequencies.entrySet().parallelStream()
+					.collect(() -> new Heap(capacity), (heap, e) -> heap.accept(e.getKey(), e.getValue()),
+							Heap::merge));
+		}
+		return merged.toSortedList();
+	}
+
+
+	/**
+	 * Determines if one (word, count) pair ranks strictly higher than another: it has the higher count or, for equal
+	 * counts, the alphabetically earlier word.
+	 * @param countA the first pair's count
+	 * @param wordA the first pair's word
+	 * @param countB the second pair's count
+	 * @param wordB the second pair's word
+	 * @return true if ([countA], [wordA]) ranks higher than ([countB], [wordB])
+	 */
+	static boolean ranksAbove(int countA, String wordA, int countB, String wordB) {
+		if (countA != countB) {
+			return countA > countB;
+		}
+		return wordA.compareTo(wordB) < 0;
+	}
+
+
+	/**
+	 * Rejects a negative cutoff, as Stream.limit does.
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 */
+	private static void checkWordsDesired(int wordsDesired) {
+		if (wordsDesired < 0) {
+			throw new IllegalArgumentException("negative number of words desired: " + wordsDesired);
+		}
+	}
+
+
+	/**
+	 * Passes every (word, count) pair of a map to a heap or array builder, without boxing when the map is a
+	 * WordCounter.
+	 * @param wordFrequencies a map containing (word, frequency) pairs
+	 * @param action the consumer to receive each pair
+	 */
+	private static void forEachCount(Map<String, Integer> wordFrequencies, ObjIntConsumer<String> action) {
+		if (wordFrequencies instanceof WordCounter) {
+			((WordCounter) wordFrequencies).forEachCount(action);
+		} else {
+			for (Map.Entry<String, Integer> entry : wordFrequencies.entrySet()) {
+				action.accept(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+
+	/**
+	 * Rearranges the pairs in [low, high] so that the [k] highest-ranked ones come first (in no particular order).
+	 * @param words the words, parallel to [counts]
+	 * @param counts the counts, parallel to [words]
+	 * @param low the first index of the range
+	 * @param high the last index of the range (inclusive)
+	 * @param k the number of highest-ranked pairs to move to the front
+	 */
+	private static void quickselect(String[] words, int[] counts, int low, int high, int k) {
+		while (low < high) {
+			int pivot = partition(words, counts, low, high);
+			if (pivot == k - 1 || pivot == k) {					//everything before k is now ranked above the rest
+				return;
+			} else if (pivot < k) {
+				low = pivot + 1;
+			} else {
+				high = pivot - 1;
+			}
+		}
+	}
+
+
+	/**
+	 * Sorts the pairs in [low, high] from highest- to lowest-ranked.
+	 * @param words the words, parallel to [counts]
+	 * @param counts the counts, parallel to [words]
+	 * @param low the first index of the range
+	 * @param high the last index of the range (inclusive)
+	 */
+	private static void quicksort(String[] words, int[] counts, int low, int high) {
+		while (low < high) {
+			int pivot = partition(words, counts, low, high);
+			if (pivot - low < high - pivot) {					//recurse into the smaller side to bound the stack
+				quicksort(words, counts, low, pivot - 1);
+				low = pivot + 1;
+			} else {
+				quicksort(words, counts, pivot + 1, high);
+				high = pivot - 1;
+			}
+		}
+	}
+
+
+	/**
+	 * Partitions [low, high] around a random pivot: pairs ranked above the pivot end up before it, the rest after.
+	 * @param words the words, parallel to [counts]
+	 * @param counts the counts, parallel to [words]
+	 * @param low the first index of the range
+	 * @param high the last index of the range (inclusive)
+	 * @return the final index of the pivot
+	 */
+	private static int partition(String[] words, int[] counts, int low, int high) {
+		swap(words, counts, ThreadLocalRandom.current().nextInt(low, high + 1), high);
+		String pivotWord = words[high];
+		int pivotCount = counts[high];
+
+		int boundary = low;
+		for (int i = low; i < high; i++) {
+			if (ranksAbove(counts[i], words[i], pivotCount, pivotWord)) {
+				swap(words, counts, i, boundary++);
+			}
+		}
+		swap(words, counts, boundary, high);
+		return boundary;
+	}
+
+
+	/**
+	 * Swaps the pairs at indices [i] and [j].
+	 */
+	private static void swap(String[] words, int[] counts, int i, int j) {
+		String word = words[i];
+		words[i] = words[j];
+		words[j] = word;
+		int count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+	}
+
+
+	/**
+	 * Min-heap holding the [capacity] highest-ranked pairs offered so far. The lowest-ranked of them sits at the
+	 * root, so a new pair only needs to be compared with the root to know whether it belongs in the heap.
+	 */
+	static class Heap implements ObjIntConsumer<String> {
+		private final int capacity;
+		private final String[] words;
+		private final int[] counts;
+		private int size = 0;
+
+		Heap(int capacity) {
+			this.capacity = capacity;
+			this.words = new String[capacity];
+			this.counts = new int[capacity];
+		}
+
+		/**
+		 * Offers a pair to the heap, which keeps it only if it ranks among the top [capacity] so far.
+		 * @param word the word
+		 * @param count the word's frequency
+		 */
+		@Override
+		public void accept(String word, int count) {
+			if (size < capacity) {							//not full: always keep
+				words[size] = word;
+				counts[size] = count;
+				siftUp(size++);
+			} else if (capacity > 0 && ranksAbove(count, word, counts[0], words[0])) {
+				words[0] = word;							//full: replace the lowest-ranked pair
+				counts[0] = count;
+				siftDown(0);
+			}
+		}
+
+		/**
+		 * Offers every pair of another heap to this one.
+		 * @param other the heap to merge in
+		 * @return this heap
+		 */
+		Heap merge(Heap other) {
+			for (int i = 0; i < other.size; i++) {
+				accept(other.words[i], other.counts[i]);
+			}
+			return this;
+		}
+
+		/**
+		 * Empties the heap into a list, highest-ranked first.
+		 * @return the words in the heap, in ranked order
+		 */
+		List<String> toSortedList() {
+			List<String> sortedWords = new ArrayList<String>(size);
+			while (size > 0) {								//the root is always the lowest-ranked remaining
+				sortedWords.add(words[0]);
+				size--;
+				words[0] = words[size];
+				counts[0] = counts[size];
+				siftDown(0);
+			}
+			Collections.reverse(sortedWords);
+			return sortedWords;
+		}
+
+		private void siftUp(int index) {
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (!ranksAbove(counts[parent], words[parent], counts[index], words[index])) {
+					return;
+				}
+				swap(words, counts, parent, index);
+				index = parent;
+			}
+		}
+
+		private void siftDown(int index) {
+			while (true) {
+				int lowest = index;
+				int left = 2 * index + 1;
+				int right = left + 1;
+				if (left < size && ranksAbove(counts[lowest], words[lowest], counts[left], words[left])) {
+					lowest = left;
+				}
+				if (right < size && ranksAbove(counts[lowest], words[lowest], counts[right], words[right])) {
+					lowest = right;
+				}
+				if (lowest == index) {
+					return;
+				}
+				swap(words, counts, index, lowest);
+				index = lowest;
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package textAnalysis;
+import java.util.Arrays;
+
+
+/**
+ * Assigns each distinct word a dense int ID (0, 1, 2, ... in order of first appearance), so that structures keyed
+ * by words can be int arrays indexed by ID instead of hash maps keyed by String: a token is hashed once, to find its
+ * ID, and everything after that is array indexing. Looking up a word held in a char buffer creates no objects once
+ * the word has been seen. One vocabulary can be shared by several structures (e.g. an {@link InternedWordCounter}
+ * and an {@link NGramCounter}) so that their IDs agree. A vocabulary is not thread-safe.
+ * @author Leo Mishlove
+ *
+ */
+public final class Vocabulary {
+
+	private final WordCounter ids = new WordCounter();		//word -> ID
+	private String[] words = new String[16];				//ID -> word
+	private int size = 0;
+
+
+	/**
+	 * Creates an empty vocabulary.
+	 */
+	public Vocabulary() {
+	}
+
+
+	/**
+	 * Finds the ID of a word, assigning the next ID if the word is new.
+	 * @param word the word
+	 * @return the word's ID
+	 */
+	public int intern(String word) {
+		char[] chars = word.toCharArray();
+		return intern(chars, chars.length);
+	}
+
+
+	/**
+	 * Finds the ID of the word held in a char buffer (e.g. from a {@link WordNormalizer}), assigning the next ID if
+	 * the word is new. A String is only created if the word is new.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the word's ID
+	 */
+	public int intern(char[] chars, int length) {
+		int id = ids.putIfAbsent(chars, length, size);
+		if (id == size) {
+			if (size == words.length) {
+				words = Arrays.copyOf(words, size * 2);
+			}
+			words[size++] = ids.findWord(chars, length);
+		}
+		return id;
+	}
+
+
+	/**
+	 * @param word a word
+	 * @return the word's ID, or -1 if it has not been seen
+	 */
+	public int getId(String word) {
+		Integer id = ids.get(word);
+		return id != null ? id : -1;
+	}
+
+
+	/**
+	 * @param id an ID
+	 * @return the word with that ID
+	 * @throws IndexOutOfBoundsException if no word has that ID
+	 */
+	public String getWord(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("no word with ID " + id + " (vocabulary size " + size + ")");
+		}
+		return words[id];
+	}
+
+
+	/**
+	 * @return the number of distinct words (which is also the next ID to be assigned)
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Copies the vocabulary: the copy gives every word the same ID, and from then on each interns new words
+	 * separately. Takes time proportional to the vocabulary.
+	 * @return the copy
+	 */
+	Vocabulary copy() {
+		Vocabulary copy = new Vocabulary();
+		copy.ids.addAll(ids);
+		copy.words = Arrays.copyOf(words, words.length);
+		copy.size = size;
+		return copy;
+	}
+}
@@ -0,0 +1,102 @@
+package textAnalysis;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+
+/**
+ * Estimates how many unique words a file contains from a sample of it, so that a word frequency map can be sized for
+ * its vocabulary instead of for its total word count. The sample is a number of windows spread evenly over the file
+ * (not just its beginning, whose vocabulary may not be typical of the rest), and its words are counted exactly.
+ *
+ * The vocabulary of the whole file is extrapolated from how fast new words still appear in the sample rather than
+ * from a power law (Heaps' law overestimated a vocabulary that has stopped growing by 1.4x to 2.3x): by Good-Turing,
+ * the chance that the next word is new is about f1 / n, where f1 is the number of words seen exactly once in the n
+ * words of the sample, and that chance decays as the Chao1 estimate of the words not yet seen, f1^2 / (2 * f2), is
+ * used up (f2 being the words seen exactly twice). This is Chao et al.'s species accumulation extrapolation; it tends
+ * to underestimate a very long tail, which only costs the map a resize, rather than to overestimate, which would cost
+ * memory for the whole run.
+ * @author Leo Mishlove
+ *
+ */
+final class VocabularyEstimator {
+
+	/* bytes read in total; the whole file if it is smaller */
+	private static final long SAMPLE_BYTES = 4 << 20;
+
+	/* windows the sample is split into */
+	private static final int WINDOWS = 16;
+
+
+	private VocabularyEstimator() {
+	}
+
+
+	/**
+	 * Determines if a file is large enough for an estimate to be worth taking: the sample of a smaller file would be
+	 * the whole file, i.e. a second full pass, to save a few resizes of a small map.
+	 * @param sourceFile the file containing the source text
+	 * @return true if the file is larger than the sample
+	 */
+	static boolean isWorthSampling(File sourceFile) {
+		return sourceFile.length() > SAMPLE_BYTES;
+	}
+
+
+	/**
+	 * Estimates the number of unique compatible-format words in a file.
+	 * @param sourceFile the file containing the source text (UTF-8)
+	 * @return the estimated number of unique words (exact if the file fits in the sample)
+	 * @throws FileNotFoundException if source file is not found
+	 * @throws IOException if the source file cannot be read
+	 */
+	static long estimate(File sourceFile) throws IOException {
+		long fileSize = sourceFile.length();
+		MappedTokenizer tokenizer = new MappedTokenizer(sourceFile);
+		WordCounter sample = new WordCounter();
+		WordNormalizer normalizer = new WordNormalizer();
+		long[] sampleWords = {0};
+		MappedTokenizer.TokenVisitor sampler = (text, start, end) -> {
+			int length = normalizer.normalize(text, start, end);
+			if (length > 0) {
+				sample.increment(normalizer.getChars(), length);
+				sampleWords[0]++;
+			}
+		};
+
+		if (fileSize <= SAMPLE_BYTES) {
+			tokenizer.forEachToken(sampler);
+			return sample.size();
+		}
+
+		/* a window may start or end inside a token, which then counts as a (possibly new) word: negligible */
+		long windowSize = SAMPLE_BYTES / WINDOWS;
+		for (int window = 0; window < WINDOWS; window++) {
+			long from = fileSize / WINDOWS * window;
+			tokenizer.forEachToken(from, from + windowSize, sampler);
+		}
+
+		double n = sampleWords[0];
+		double distinct = sample.size();
+		if (n == 0) {
+			return 0;
+		}
+		long[] seen = new long[3];							//seen[k]: words seen exactly k times, for k = 1, 2
+		sample.forEachCount((word, count) -> {
+			if (count <= 2) {
+				seen[count]++;
+			}
+		});
+		double f1 = seen[1];
+		double f2 = seen[2];
+		double totalWords = n * (fileSize / (double) SAMPLE_BYTES);
+
+		/* bias-corrected Chao1 estimate of the words not yet seen, then the extrapolation to the whole file */
+		double unseen = f2 > 0 ? (n - 1) / n * f1 * f1 / (2 * f2) : (n - 1) / n * f1 * (f1 - 1) / 2;
+		double estimate = distinct;
+		if (unseen > 0) {
+			estimate += unseen * (1 - Math.pow(1 - f1 / (n * unseen + f1), totalWords - n));
+		}
+		return (long) Math.max(distinct, Math.min(estimate, totalWords));
+	}
+}
@@ -0,0 +1,118 @@
+package textAnalysis;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Fork/join task that counts word frequencies in a byte range of a file. Ranges larger than the chunk size are split
+ * in two at a whitespace byte near their middle, so no token is ever cut in half, and the two halves are counted in
+ * parallel and merged. Because every token is counted by exactly one task, the merged counts are identical to those
+ * of a sequential scan.
+ * @author Leo Mishlove
+ *
+ */
+class WordCountTask extends RecursiveTask<WordCounter> {
+
+	private static final long serialVersionUID = 1L;
+
+	/* bytes read at a time while looking for a whitespace byte to split at */
+	private static final int SPLIT_SEARCH_BLOCK = 4096;
+
+	private final File sourceFile;
+	private final long start;
+	private final long end;
+	private final long chunkSize;
+
+
+	/**
+	 * Creates a task for the byte range [start, end) of a file. The range must start and end on token boundaries.
+	 * @param sourceFile the file containing the source text
+	 * @param start the file offset where the range starts
+	 * @param end the file offset where the range ends (exclusive)
+	 * @param chunkSize ranges no larger than this are counted without splitting further
+	 */
+	WordCountTask(File sourceFile, long start, long end, long chunkSize) {
+		this.sourceFile = sourceFile;
+		this.start = start;
+		this.end = end;
+		this.chunkSize = chunkSize;
+	}
+
+
+	@Override
+	protected WordCounter compute() {
+		try {
+			if (end - start > chunkSize) {
+				long split = findSplit(start + (end - start) / 2);
+				if (split > start && split < end) {
+					WordCountTask left = new WordCountTask(sourceFile, start, split, chunkSize);
+					left.fork();
+					WordCounter rightCounts = new WordCountTask(sourceFile, split, end, chunkSize).compute();
+					WordCounter leftCounts = left.join();
+					return merge(leftCounts, rightCounts);
+				}
+			}
+
+			WordCounter counts = new WordCounter();								//small enough: count sequentially
+			WordNormalizer normalizer = new WordNormalizer();
+			new MappedTokenizer(sourceFile).forEachToken(start, end,
+					(text, tokenStart, tokenEnd) ->
+							TextAnalysis.countToken(counts, normalizer, text, tokenStart, tokenEnd));
+			return counts;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+
+	/**
+	 * Finds the first ASCII whitespace byte at or after a given offset. In UTF-8 such a byte is always a whole
+	 * character, so splitting there never cuts a token or a multi-byte character in half.
+	 * @param from the file offset to start looking from
+	 * @return the offset of the whitespace byte, or [end] if the rest of the range has none
+	 * @throws IOException if the source file cannot be read
+	 */
+	private long findSplit(long from) throws IOException {
+		try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer block = ByteBuffer.allocate(SPLIT_SEARCH_BLOCK);
+			long position = from;
+
+			while (position < end) {
+				block.clear();
+				block.limit((int) Math.min(SPLIT_SEARCH_BLOCK, end - position));
+				int bytesRead = channel.read(block, position);
+				if (bytesRead <= 0) {
+					break;
+				}
+				for (int i = 0; i < bytesRead; i++) {
+					if (MappedTokenizer.isAsciiWhitespace(block.get(i))) {
+						return position + i;
+					}
+				}
+				position += bytesRead;
+			}
+		}
+		return end;
+	}
+
+
+	/**
+	 * Merges two partial counts by adding the smaller into the larger.
+	 * @param first one partial count
+	 * @param second the other partial count
+	 * @return the merged count
+	 */
+	private static WordCounter merge(WordCounter first, WordCounter second) {
+		if (first.size() < second.size()) {
+			second.addAll(first);
+			return second;
+		}
+		first.addAll(second);
+		return first;
+	}
+}
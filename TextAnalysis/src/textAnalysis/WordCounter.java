@@ -0,0 +1,505 @@
+package textAnalysis;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+
+/**
+ * Counts word frequencies in an open-addressing hash table (linear probing) with primitive int counts. Incrementing
+ * a word takes a single probe sequence and never boxes its count, unlike containsKey/get/put on a
+ * HashMap<String, Integer>. The table is also a Map<String, Integer>, so it can be used anywhere a word frequency
+ * map is expected (e.g. {@link TextAnalysis#findMostFrequentWords}); values are only boxed when read through the
+ * Map interface. Null keys are not permitted. A count that would pass Integer.MAX_VALUE throws ArithmeticException
+ * instead of wrapping around; {@link OffHeapWordCounter} keeps 64-bit counts.
+ * @author Leo Mishlove
+ *
+ */
+public class WordCounter extends AbstractMap<String, Integer> {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	/* kept at or below one half, where linear probing stays short even for unsuccessful lookups */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/* parallel arrays indexed by slot; an empty slot has a null key */
+	private String[] keys;
+	private int[] hashes;
+	private int[] counts;
+	private int size = 0;
+	private int resizeThreshold;
+
+
+	/**
+	 * Creates an empty counter.
+	 */
+	public WordCounter() {
+		this(MINIMUM_CAPACITY / 2);
+	}
+
+
+	/**
+	 * Creates an empty counter sized to hold [expectedWords] unique words without rehashing.
+	 * @param expectedWords the expected number of unique words
+	 */
+	public WordCounter(int expectedWords) {
+		if (expectedWords < 0) {
+			throw new IllegalArgumentException("negative expected word count: " + expectedWords);
+		}
+		allocate(tableSizeFor(expectedWords));
+	}
+
+
+	/**
+	 * Adds one occurrence of a word.
+	 * @param word the word to count
+	 * @return the word's new count
+	 */
+	public int increment(String word) {
+		return add(word, 1);
+	}
+
+
+	/**
+	 * Adds [amount] occurrences of a word, inserting it if it has not been seen before.
+	 * @param word the word to count
+	 * @param amount the number of occurrences to add
+	 * @return the word's new count
+	 */
+	public int add(String word, int amount) {
+		int hash = hash(word);
+		int slot = findSlot(word, hash);
+		if (keys[slot] != null) {						//seen before: increment in place
+			counts[slot] = Math.addExact(counts[slot], amount);
+			return counts[slot];
+		}
+
+		keys[slot] = word;								//not seen before: claim the empty slot
+		hashes[slot] = hash;
+		counts[slot] = amount;
+		if (++size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+		return amount;
+	}
+
+
+	/**
+	 * Adds one occurrence of the word held in a char buffer (e.g. from a {@link WordNormalizer}). A String is only
+	 * created if the word has not been seen before.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the word's new count
+	 */
+	public int increment(char[] chars, int length) {
+		int hash = hash(chars, length);
+		int slot = findSlot(chars, length, hash);
+		if (keys[slot] != null) {
+			return counts[slot] = Math.incrementExact(counts[slot]);
+		}
+
+		keys[slot] = new String(chars, 0, length);
+		hashes[slot] = hash;
+		counts[slot] = 1;
+		if (++size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+		return 1;
+	}
+
+
+	/**
+	 * Stores a value for the word held in a char buffer unless the word is already present, e.g. to give each new
+	 * word the next number in a sequence.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @param value the value to store if the word is new
+	 * @return the word's existing value, or [value] if it was inserted
+	 */
+	int putIfAbsent(char[] chars, int length, int value) {
+		int hash = hash(chars, length);
+		int slot = findSlot(chars, length, hash);
+		if (keys[slot] != null) {
+			return counts[slot];
+		}
+
+		keys[slot] = new String(chars, 0, length);
+		hashes[slot] = hash;
+		counts[slot] = value;
+		if (++size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+		return value;
+	}
+
+
+	/**
+	 * Finds the stored String equal to the word held in a char buffer, without creating one.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the stored word, or null if it has not been counted
+	 */
+	String findWord(char[] chars, int length) {
+		return keys[findSlot(chars, length, hash(chars, length))];
+	}
+
+
+	/**
+	 * Finds the number of times a word has been counted.
+	 * @param word the word to look up
+	 * @return the word's count, or 0 if it has not been counted
+	 */
+	public int getCount(String word) {
+		int slot = findSlot(word, hash(word));
+		return keys[slot] != null ? counts[slot] : 0;
+	}
+
+
+	/**
+	 * Passes every (word, count) pair to a consumer without boxing the counts. Order is unspecified.
+	 * @param action the consumer to receive each pair
+	 */
+	public void forEachCount(ObjIntConsumer<String> action) {
+		forEachCount(0, keys.length, action);
+	}
+
+
+	/**
+	 * Passes the (word, count) pairs stored in a range of slots to a consumer, so that disjoint ranges can be
+	 * processed by different threads (see {@link #slotCount}).
+	 * @param fromSlot the first slot of the range
+	 * @param toSlot one past the last slot of the range
+	 * @param action the consumer to receive each pair
+	 */
+	void forEachCount(int fromSlot, int toSlot, ObjIntConsumer<String> action) {
+		for (int slot = fromSlot; slot < toSlot; slot++) {
+			if (keys[slot] != null) {
+				action.accept(keys[slot], counts[slot]);
+			}
+		}
+	}
+
+
+	/**
+	 * @return the number of slots in the table (occupied or not)
+	 */
+	int slotCount() {
+		return keys.length;
+	}
+
+
+	/**
+	 * Adds all the counts of another counter to this one.
+	 * @param other the counter whose counts should be added
+	 */
+	public void addAll(WordCounter other) {
+		for (int slot = 0; slot < other.keys.length; slot++) {
+			if (other.keys[slot] != null) {
+				add(other.keys[slot], other.counts[slot]);
+			}
+		}
+	}
+
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (!(key instanceof String)) {
+			return false;
+		}
+		String word = (String) key;
+		return keys[findSlot(word, hash(word))] != null;
+	}
+
+
+	@Override
+	public Integer get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		String word = (String) key;
+		int slot = findSlot(word, hash(word));
+		return keys[slot] != null ? counts[slot] : null;
+	}
+
+
+	@Override
+	public Integer put(String word, Integer count) {
+		int hash = hash(word);
+		int slot = findSlot(word, hash);
+		if (keys[slot] != null) {
+			Integer previous = counts[slot];
+			counts[slot] = count;
+			return previous;
+		}
+
+		keys[slot] = word;
+		hashes[slot] = hash;
+		counts[slot] = count;
+		if (++size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+
+	@Override
+	public Integer remove(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		String word = (String) key;
+		int slot = findSlot(word, hash(word));
+		if (keys[slot] == null) {
+			return null;
+		}
+		Integer previous = counts[slot];
+		deleteSlot(slot);
+		return previous;
+	}
+
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+
+	@Override
+	public Set<Map.Entry<String, Integer>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Integer>>() {
+			@Override
+			public Iterator<Map.Entry<String, Integer>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+
+	/**
+	 * Finds the slot holding a word, or the empty slot where it would be inserted.
+	 * @param word the word to look for
+	 * @param hash the word's (spread) hash
+	 * @return the index of the word's slot, or of the first empty slot in its probe sequence
+	 */
+	private int findSlot(String word, int hash) {
+		int mask = keys.length - 1;
+		int slot = hash & mask;
+		while (keys[slot] != null) {
+			if (hashes[slot] == hash && keys[slot].equals(word)) {		//compare cached hashes before the strings
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	/**
+	 * Finds the slot holding the word in a char buffer, or the empty slot where it would be inserted.
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @param hash the word's (spread) hash
+	 * @return the index of the word's slot, or of the first empty slot in its probe sequence
+	 */
+	private int findSlot(char[] chars, int length, int hash) {
+		int mask = keys.length - 1;
+		int slot = hash & mask;
+		while (keys[slot] != null) {
+			if (hashes[slot] == hash && contentEquals(keys[slot], chars, length)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	/**
+	 * Compares a String with the contents of a char buffer.
+	 * @param word the String
+	 * @param chars the buffer
+	 * @param length the number of chars in the buffer to compare
+	 * @return true if the String has exactly those chars
+	 */
+	private static boolean contentEquals(String word, char[] chars, int length) {
+		if (word.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (word.charAt(i) != chars[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Empties a slot, shifting later entries of the same cluster back so that no probe sequence is broken.
+	 * @param slot the slot to empty
+	 */
+	private void deleteSlot(int slot) {
+		int mask = keys.length - 1;
+		int gap = slot;
+		int next = (slot + 1) & mask;
+		while (keys[next] != null) {
+			int home = hashes[next] & mask;
+			/* the entry at [next] can fill the gap only if its home slot is not cyclically within (gap, next] */
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				hashes[gap] = hashes[next];
+				counts[gap] = counts[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = null;
+		size--;
+	}
+
+
+	/**
+	 * Moves every entry into a table of a new capacity.
+	 * @param capacity the new number of slots (a power of two)
+	 */
+	private void resize(int capacity) {
+		String[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		int[] oldCounts = counts;
+		allocate(capacity);
+
+		int mask = capacity - 1;
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+			if (oldKeys[oldSlot] != null) {					//keys are unique, so only an empty slot is needed
+				int slot = oldHashes[oldSlot] & mask;
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[oldSlot];
+				hashes[slot] = oldHashes[oldSlot];
+				counts[slot] = oldCounts[oldSlot];
+			}
+		}
+	}
+
+
+	/**
+	 * Allocates empty arrays with a given number of slots.
+	 * @param capacity the number of slots (a power of two)
+	 */
+	private void allocate(int capacity) {
+		keys = new String[capacity];
+		hashes = new int[capacity];
+		counts = new int[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+
+	/**
+	 * Finds the smallest power-of-two table size that holds [expectedWords] words below the load factor.
+	 * @param expectedWords the expected number of unique words
+	 * @return the table size
+	 */
+	private static int tableSizeFor(int expectedWords) {
+		long needed = (long) Math.ceil(expectedWords / (double) LOAD_FACTOR);
+		if (needed > (1 << 30)) {
+			throw new IllegalArgumentException("too many expected words: " + expectedWords);
+		}
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < needed) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+
+	/**
+	 * Spreads a word's hash code so that similar strings do not cluster in neighbouring slots.
+	 * @param word the word to hash
+	 * @return the spread hash
+	 */
+	private static int hash(String word) {
+		return spread(word.hashCode());
+	}
+
+
+	/**
+	 * Hashes the word in a char buffer exactly as its String would be hashed (String.hashCode, then spread).
+	 * @param chars the buffer holding the word
+	 * @param length the number of chars in the word
+	 * @return the spread hash
+	 */
+	private static int hash(char[] chars, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + chars[i];
+		}
+		return spread(h);
+	}
+
+
+	/**
+	 * @param h a hash code
+	 * @return the hash code with its high bits mixed into the low bits used to pick a slot
+	 */
+	private static int spread(int h) {
+		h *= 0x9E3779B9;								//Fibonacci hashing: multiply by 2^32 / golden ratio
+		return h ^ (h >>> 16);
+	}
+
+
+	/**
+	 * Iterates over the occupied slots, exposing each as a Map.Entry whose setValue writes through to the table.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, Integer>> {
+		private int nextSlot = advance(0);
+
+		@Override
+		public boolean hasNext() {
+			return nextSlot < keys.length;
+		}
+
+		@Override
+		public Map.Entry<String, Integer> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final int slot = nextSlot;
+			nextSlot = advance(slot + 1);
+			return new AbstractMap.SimpleEntry<String, Integer>(keys[slot], counts[slot]) {
+				@Override
+				public Integer setValue(Integer count) {
+					counts[slot] = count;
+					return super.setValue(count);
+				}
+			};
+		}
+
+		/**
+		 * @param slot the slot to start looking from
+		 * @return the first occupied slot at or after [slot], or the table length if there is none
+		 */
+		private int advance(int slot) {
+			while (slot < keys.length && keys[slot] == null) {
+				slot++;
+			}
+			return slot;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package textAnalysis;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+
+/**
+ * Converts tokens to compatible format (see {@link TextAnalysis#convertWordToCompatible}) inside a reusable char
+ * buffer, so that normalizing a token creates no objects. Leading and trailing non-alphanumeric characters are
+ * trimmed by moving indices, and letters are lowercased while being copied into the buffer. Callers look words up by
+ * the buffer contents (e.g. {@link WordCounter#increment(char[], int)}) and a String is only created when a word is
+ * inserted for the first time.
+ *
+ * Lowercasing one char at a time only matches String.toLowerCase for ASCII outside the Turkish and Azeri locales
+ * (where 'I' lowercases to a dotless i). Words with any other letter fall back to String.toLowerCase, which
+ * allocates, so the result is always identical to convertWordToCompatible. A normalizer is not thread-safe; use one
+ * per thread.
+ * @author Leo Mishlove
+ *
+ */
+class WordNormalizer {
+
+	private char[] buffer = new char[32];		//the normalized word, valid up to the length last returned
+	private char[] decoded = new char[32];		//scratch space for tokens decoded from UTF-8
+
+
+	/**
+	 * @return the buffer holding the word from the last call to normalize
+	 */
+	char[] getChars() {
+		return buffer;
+	}
+
+
+	/**
+	 * Normalizes the characters [start, end) of a char array.
+	 * @param text the array holding the token
+	 * @param start index of the token's first character
+	 * @param end index one past the token's last character
+	 * @return the length of the normalized word in getChars(), which is 0 if the token was all punctuation
+	 */
+	int normalize(char[] text, int start, int end) {
+		while (start < end && !Character.isLetterOrDigit(text[start])) {		//trim leading punctuation
+			start++;
+		}
+		while (end > start && !Character.isLetterOrDigit(text[end - 1])) {		//trim trailing punctuation
+			end--;
+		}
+
+		int length = end - start;
+		ensureCapacity(length);
+		if (!asciiLowercaseMatchesLocale()) {
+			return normalizeSlowly(text, start, end);
+		}
+		for (int i = 0; i < length; i++) {
+			char c = text[start + i];
+			if (c >= 0x80) {
+				return normalizeSlowly(text, start, end);
+			}
+			buffer[i] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+		}
+		return length;
+	}
+
+
+	/**
+	 * Normalizes the UTF-8 bytes [start, end) of a buffer, decoding them into scratch space first. Malformed UTF-8 is
+	 * decoded by the standard decoder (replacing bad bytes with U+FFFD), as String decoding would.
+	 * @param text the buffer holding the token's bytes
+	 * @param start index of the token's first byte (absolute)
+	 * @param end index one past the token's last byte
+	 * @return the length of the normalized word in getChars(), which is 0 if the token was all punctuation
+	 */
+	int normalize(ByteBuffer text, int start, int end) {
+		if (decoded.length < end - start) {					//UTF-8 never has fewer bytes than UTF-16 chars
+			decoded = new char[Math.max(end - start, decoded.length * 2)];
+		}
+
+		int length = 0;
+		int i = start;
+		while (i < end) {
+			int b = text.get(i);
+			if (b >= 0) {												//ASCII: one byte, one char
+				decoded[length++] = (char) b;
+				i++;
+				continue;
+			}
+
+			int charLength = MappedTokenizer.characterLength(text, i);
+			if (charLength == 1 || i + charLength > end) {				//malformed: let the real decoder handle it
+				return normalizeDecoded(text, start, end);
+			}
+
+			int codePoint = b & (0xFF >> (charLength + 1));
+			for (int j = 1; j < charLength; j++) {
+				codePoint = (codePoint << 6) | (text.get(i + j) & 0x3F);
+			}
+			if (!isValidCodePoint(codePoint, charLength)) {			//overlong, surrogate or out of range
+				return normalizeDecoded(text, start, end);
+			}
+			length += Character.toChars(codePoint, decoded, length);
+			i += charLength;
+		}
+		return normalize(decoded, 0, length);
+	}
+
+
+	/**
+	 * Decodes a token with the standard UTF-8 decoder and normalizes the result, for malformed input.
+	 * @param text the buffer holding the token's bytes
+	 * @param start index of the token's first byte (absolute)
+	 * @param end index one past the token's last byte
+	 * @return the length of the normalized word in getChars()
+	 */
+	private int normalizeDecoded(ByteBuffer text, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		text.get(start, bytes);
+		char[] chars = new String(bytes, StandardCharsets.UTF_8).toCharArray();
+		return normalize(chars, 0, chars.length);
+	}
+
+
+	/**
+	 * Determines if a code point decoded from a multi-byte sequence is one the standard decoder accepts.
+	 * @param codePoint the decoded code point
+	 * @param charLength the number of bytes it was decoded from (2 to 4)
+	 * @return false for overlong encodings, surrogates and code points above U+10FFFF
+	 */
+	private static boolean isValidCodePoint(int codePoint, int charLength) {
+		switch (charLength) {
+		case 2:
+			return codePoint >= 0x80;
+		case 3:
+			return codePoint >= 0x800 && !Character.isSurrogate((char) codePoint);
+		default:
+			return codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT;
+		}
+	}
+
+
+	/**
+	 * Normalizes an already-trimmed token with String.toLowerCase, for tokens the fast path cannot lowercase exactly.
+	 * @param text the array holding the token
+	 * @param start index of the first character after leading punctuation
+	 * @param end index one past the last character before trailing punctuation
+	 * @return the length of the normalized word in getChars()
+	 */
+	private int normalizeSlowly(char[] text, int start, int end) {
+		String word = new String(text, start, end - start).toLowerCase();
+		ensureCapacity(word.length());							//lowercasing can change the length (e.g. U+0130)
+		word.getChars(0, word.length(), buffer, 0);
+		return word.length();
+	}
+
+
+	/**
+	 * Grows the output buffer if needed. Its contents are not preserved.
+	 * @param length the number of chars needed
+	 */
+	private void ensureCapacity(int length) {
+		if (buffer.length < length) {
+			buffer = new char[Math.max(length, buffer.length * 2)];
+		}
+	}
+
+
+	/**
+	 * Determines if the default locale lowercases ASCII letters the same way as Character.toLowerCase. The locale is
+	 * checked on every call because String.toLowerCase also reads it on every call.
+	 * @return false in the Turkish and Azeri locales, true otherwise
+	 */
+	private static boolean asciiLowercaseMatchesLocale() {
+		String language = Locale.getDefault().getLanguage();
+		return !language.equals("tr") && !language.equals("az");
+	}
+}
@@ -0,0 +1,107 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that an {@link AnalysisCache} returns exactly what {@link TextAnalysis} computes, scanning only on a miss, and
+ * never returns a result of an older version of a file: a new size or new content is always a miss, and a touched
+ * but unchanged file is a hit only when validated by content hash.
+ * @author Leo Mishlove
+ *
+ */
+class AnalysisCacheTest {
+
+	private static final String TEXT = "The cat sat. The dog ran! Did the cat see it?";
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void answersAsTextAnalysisAndHitsTheSecondTime() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), TEXT);
+		AnalysisCache cache = new AnalysisCache();
+		for (int round = 0; round < 2; round++) {
+			assertEquals(TextAnalysis.countWords(sourceFile), cache.countWords(sourceFile));
+			assertEquals(TextAnalysis.calculateWordFrequencies(sourceFile), cache.calculateWordFrequencies(sourceFile));
+			for (String word : new String[] {"the", "cat", "it", "absent"}) {
+				assertEquals(TextAnalysis.lastOccurrence(sourceFile, word), cache.lastOccurrence(sourceFile, word));
+			}
+		}
+		assertEquals(6, cache.getMissCount());
+		assertEquals(6, cache.getHitCount());
+		assertEquals(0.5, cache.getHitRate());
+		assertThrows(UnsupportedOperationException.class,
+				() -> cache.calculateWordFrequencies(sourceFile).put("cat", 0));
+		assertThrows(FileNotFoundException.class, () -> cache.countWords(new File(directory, "missing.txt")));
+	}
+
+
+	@Test
+	void changedFileIsAnalyzedAgain() throws IOException {
+		for (AnalysisCache.Validation validation : AnalysisCache.Validation.values()) {
+			File sourceFile = SentenceTexts.write(new File(directory, validation + ".txt"), TEXT);
+			AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_MAXIMUM_BYTES, validation);
+			long written = sourceFile.lastModified();
+			assertEquals(" Did the cat see it", cache.lastOccurrence(sourceFile, "cat"));
+
+			SentenceTexts.write(sourceFile, TEXT.replace("see", "hug"));					//same size
+			assertTrue(sourceFile.setLastModified(written + 60_000));
+			assertEquals(" Did the cat hug it", cache.lastOccurrence(sourceFile, "cat"), validation.name());
+
+			SentenceTexts.write(sourceFile, TEXT + " A cat.");							//another size
+			assertEquals(" A cat", cache.lastOccurrence(sourceFile, "cat"), validation.name());
+			assertEquals(3, cache.calculateWordFrequencies(sourceFile).get("cat"), validation.name());
+			assertEquals(0, cache.getHitCount(), validation.name());
+		}
+	}
+
+
+	@Test
+	void touchedFileHitsOnlyByContentHash() throws IOException {
+		for (AnalysisCache.Validation validation : AnalysisCache.Validation.values()) {
+			File sourceFile = SentenceTexts.write(new File(directory, validation + ".txt"), TEXT);
+			AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_MAXIMUM_BYTES, validation);
+			cache.countWords(sourceFile);
+			assertTrue(sourceFile.setLastModified(sourceFile.lastModified() + 60_000));
+			assertEquals(TextAnalysis.countWords(sourceFile), cache.countWords(sourceFile));
+			assertEquals(validation == AnalysisCache.Validation.CONTENT_HASH ? 1 : 0, cache.getHitCount(),
+					validation.name());
+		}
+	}
+
+
+	@Test
+	void invalidatedAndEvictedResultsAreAnalyzedAgain() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), TEXT);
+		AnalysisCache cache = new AnalysisCache();
+		cache.countWords(sourceFile);
+		cache.invalidate(sourceFile);
+		cache.countWords(sourceFile);
+		cache.clear();
+		cache.countWords(sourceFile);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+
+		AnalysisCache small = new AnalysisCache(4096, AnalysisCache.Validation.MODIFICATION_TIME);
+		for (int i = 0; i < 50; i++) {
+			File other = SentenceTexts.write(new File(directory, "text" + i + ".txt"), TEXT + " Word" + i + ".");
+			assertEquals(TextAnalysis.calculateWordFrequencies(other), small.calculateWordFrequencies(other));
+			assertTrue(small.getSize() <= 4096, "size " + small.getSize());
+		}
+		assertTrue(small.getEvictionCount() > 0);
+		File first = new File(directory, "text0.txt");
+		assertEquals(TextAnalysis.calculateWordFrequencies(first), small.calculateWordFrequencies(first));
+		assertEquals(0, small.getHitCount());
+	}
+}
@@ -0,0 +1,130 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that an {@link AnalysisIndex} read back from its file answers as analyzing the source does, however small
+ * its mapping windows, and that it is only opened while the source is unchanged: a different size or different
+ * content (found by the CRC when the time differs) makes it stale, a touched but unchanged source does not.
+ * @author Leo Mishlove
+ *
+ */
+class AnalysisIndexTest {
+
+	/* window sizes at or above the one that would need more mappings than this are skipped */
+	private static final int MAXIMUM_WINDOWS = 256;
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void answersAsAnalyzingTheSource() throws IOException {
+		Random random = new Random(17);
+		for (int trial = 0; trial < 25; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(500));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			File indexFile = new File(directory, "text" + trial + ".idx");
+			AnalysisIndex.write(sourceFile, indexFile);
+			assertTrue(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+
+			Map<String, Integer> frequencies = TextAnalysis.calculateWordFrequencies(sourceFile);
+			for (int windowSize : new int[] {1, 13, 64, 4096, AnalysisIndex.DEFAULT_WINDOW_SIZE}) {
+				if (indexFile.length() / windowSize > MAXIMUM_WINDOWS) {
+					continue;
+				}
+				String context = "trial " + trial + ", window " + windowSize;
+				try (AnalysisIndex index = AnalysisIndex.open(sourceFile, indexFile, windowSize);
+						SentenceIndex sentences = SentenceIndex.build(sourceFile)) {
+					assertEquals(TextAnalysis.countWordsLong(sourceFile), index.getWordCount(), context);
+					assertEquals(frequencies.size(), index.getVocabularySize(), context);
+					assertEquals(sentences.getSentenceCount(), index.getSentenceCount(), context);
+					for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+						assertEquals((int) entry.getValue(), index.getCount(entry.getKey()), context);
+					}
+					for (int wordsDesired : new int[] {0, 1, 5, frequencies.size(), Integer.MAX_VALUE}) {
+						assertEquals(TextAnalysis.findMostFrequentWords(frequencies, wordsDesired),
+								index.findMostFrequentWords(wordsDesired), context + ", top " + wordsDesired);
+					}
+					for (String word : SentenceTexts.QUERIES) {
+						assertEquals(TextAnalysis.lastOccurrence(sourceFile, word), index.lastOccurrence(word),
+								context + ": " + word);
+						assertEquals(frequencies.getOrDefault(word, 0), index.getCount(word), context + ": " + word);
+					}
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void touchedButUnchangedSourceKeepsItsIndex() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), "The cat sat. The dog ran!");
+		File indexFile = new File(directory, "text.idx");
+		AnalysisIndex.write(sourceFile, indexFile);
+
+		assertTrue(sourceFile.setLastModified(sourceFile.lastModified() + 60_000));
+		assertTrue(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+		try (AnalysisIndex index = AnalysisIndex.open(sourceFile, indexFile)) {
+			assertEquals(" The dog ran", index.lastOccurrence("the"));
+		}
+	}
+
+
+	@Test
+	void changedSourceMakesTheIndexStale() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), "The cat sat. The dog ran!");
+		File indexFile = new File(directory, "text.idx");
+		AnalysisIndex.write(sourceFile, indexFile);
+		long written = sourceFile.lastModified();
+
+		SentenceTexts.write(sourceFile, "The cat sat. The fox ran!");				//same size, other content
+		assertTrue(sourceFile.setLastModified(written + 60_000));
+		assertFalse(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+		assertThrows(IOException.class, () -> AnalysisIndex.open(sourceFile, indexFile));
+
+		SentenceTexts.write(sourceFile, "The cat sat. The dog ran! Then it stopped.");	//another size
+		assertFalse(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+		try (AnalysisIndex index = AnalysisIndex.openOrBuild(sourceFile, indexFile)) {
+			assertEquals(" Then it stopped", index.lastOccurrence("it"));
+			assertEquals(2, index.getCount("the"));
+		}
+		assertTrue(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+	}
+
+
+	@Test
+	void damagedIndexIsRejected() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), "The cat sat. The dog ran!");
+		File indexFile = new File(directory, "text.idx");
+		AnalysisIndex.write(sourceFile, indexFile);
+		try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+			index.setLength(index.length() - 1);
+		}
+		assertThrows(IOException.class, () -> AnalysisIndex.open(sourceFile, indexFile));
+
+		AnalysisIndex.write(sourceFile, indexFile);
+		try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+			index.seek(4);
+			index.writeInt(AnalysisIndex.FORMAT_VERSION + 1);
+		}
+		assertFalse(AnalysisIndex.isUpToDate(sourceFile, indexFile));
+		assertThrows(IOException.class, () -> AnalysisIndex.open(sourceFile, indexFile));
+
+		assertThrows(FileNotFoundException.class,
+				() -> AnalysisIndex.open(sourceFile, new File(directory, "missing.idx")));
+	}
+}
@@ -0,0 +1,142 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks {@link ApproximateWordCounter} and {@link CountMinSketch} against exact counts: exact while fewer than
+ * [capacity] distinct words are seen (including the alphabetical tie order), and past that every estimate within its
+ * documented bounds, with every word above N / capacity tracked and well-separated heavy hitters ranked exactly.
+ * @author Leo Mishlove
+ *
+ */
+class ApproximateWordCounterTest {
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void exactBelowCapacity() throws IOException {
+		Random random = new Random(16);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20_000; i++) {
+			text.append(random.nextBoolean() ? "The" : "w").append(random.nextInt(300)).append(", ");
+		}
+		File sourceFile = new File(directory, "text.txt");
+		Files.write(sourceFile.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+		Map<String, Integer> expected = TextAnalysis.calculateWordFrequencies(sourceFile);
+		ApproximateWordCounter counter = TextAnalysis.countWordFrequenciesApproximate(sourceFile, 1000);
+		assertEquals(0, counter.getMaximumError());
+		assertEquals(20_000, counter.getTotalCount());
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			assertEquals((long) entry.getValue(), counter.getCount(entry.getKey()), entry.getKey());
+			assertEquals((long) entry.getValue(), counter.getCountLowerBound(entry.getKey()), entry.getKey());
+		}
+		assertEquals(0, counter.getCount("absent"));
+		for (int wordsDesired : new int[] {0, 1, 10, expected.size(), 1000}) {
+			assertEquals(TextAnalysis.findMostFrequentWords(expected, wordsDesired),
+					counter.findMostFrequentWords(wordsDesired), "top " + wordsDesired);
+		}
+	}
+
+
+	@Test
+	void boundedPastCapacity() {
+		int capacity = 200;
+		Random random = new Random(160);
+		List<String> stream = new ArrayList<String>();
+		String[] heavyHitters = {"alpha", "beta", "gamma", "delta", "epsilon"};
+		for (int i = 0; i < heavyHitters.length; i++) {
+			for (int j = 0; j < 10_000 - 2000 * i; j++) {
+				stream.add(heavyHitters[i]);
+			}
+		}
+		for (int i = 0; i < 100_000; i++) {
+			stream.add("w" + random.nextInt(1 + random.nextInt(50_000)));		//a long tail of rarer words
+		}
+		Collections.shuffle(stream, random);
+
+		ApproximateWordCounter counter = new ApproximateWordCounter(capacity);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (String word : stream) {
+			counter.increment(word);
+			expected.merge(word, 1, Integer::sum);
+		}
+
+		long n = stream.size();
+		assertEquals(n, counter.getTotalCount());
+		assertTrue(counter.getMaximumError() > 0 && counter.getMaximumError() <= n / capacity);
+		List<String> tracked = counter.findMostFrequentWords(Integer.MAX_VALUE);
+		assertEquals(capacity, tracked.size());
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			String word = entry.getKey();
+			long count = entry.getValue();
+			assertTrue(counter.getCountLowerBound(word) <= count, word);
+			assertTrue(counter.getCount(word) >= count, word);
+			if (tracked.contains(word)) {
+				assertTrue(counter.getCount(word) - count <= counter.getMaximumError(), word);
+			} else {
+				assertTrue(count <= counter.getMaximumError(), word);
+			}
+			if (count > n / capacity) {
+				assertTrue(tracked.contains(word), word);
+			}
+		}
+		assertEquals(List.of(heavyHitters), counter.findMostFrequentWords(heavyHitters.length));
+	}
+
+
+	@Test
+	void sketchNeverUnderestimates() {
+		CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+		Random random = new Random(1600);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (int i = 0; i < 200_000; i++) {
+			String word = "w" + random.nextInt(1 + random.nextInt(20_000));
+			int count = 1 + random.nextInt(3);
+			if (random.nextBoolean()) {
+				sketch.add(word, count);
+			} else {
+				sketch.add((word + "tail").toCharArray(), word.length(), count);
+			}
+			expected.merge(word, count, Integer::sum);
+		}
+
+		int beyondBound = 0;
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			long estimate = sketch.estimate(entry.getKey());
+			assertTrue(estimate >= entry.getValue(), entry.getKey());
+			assertEquals(estimate, sketch.estimate(entry.getKey().toCharArray(), entry.getKey().length()));
+			if (estimate - entry.getValue() > sketch.getErrorBound()) {
+				beyondBound++;
+			}
+		}
+		assertTrue(beyondBound <= (1 - sketch.getConfidence()) * expected.size(), beyondBound + " beyond the bound");
+	}
+
+
+	@Test
+	void rejectsInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new ApproximateWordCounter(0));
+		assertThrows(IllegalArgumentException.class, () -> new ApproximateWordCounter(10).findMostFrequentWords(-1));
+		assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 0.01));
+		assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0.01, 1));
+	}
+}
@@ -0,0 +1,106 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that a {@link BatchAnalyzer} run gives each document the results of analyzing it alone, sums them into the
+ * corpus totals, and reports a failed document only as a failure, leaving the totals as if it had not been given.
+ * @author Leo Mishlove
+ *
+ */
+class BatchAnalyzerTest {
+
+	private static final String[] DOCUMENTS = {
+			"The cat sat. The dog ran! Did the cat see it?",
+			"A dog, a cat, and THE end.",
+			"",
+			"no punctuation at all",
+			"Mixed CASE words. And mixed case again!",
+			"Ünïcode wörds. And ünïcode ’again’!"
+	};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesTheSingleDocumentAnalyses() throws IOException {
+		List<File> sourceFiles = writeDocuments();
+		File missing = new File(directory, "missing.txt");
+		sourceFiles.add(2, missing);
+
+		BatchResult batch = new BatchAnalyzer().analyze(sourceFiles);
+
+		Map<String, Integer> corpus = new HashMap<String, Integer>();
+		long wordCount = 0;
+		for (File sourceFile : sourceFiles) {
+			if (sourceFile == missing) {
+				continue;
+			}
+			AnalysisResult result = batch.getDocumentResults().get(sourceFile);
+			Map<String, Integer> frequencies = TextAnalysis.calculateWordFrequencies(sourceFile);
+			assertEquals(frequencies, new HashMap<String, Integer>(result.getWordFrequencies()), sourceFile.getName());
+			assertEquals(TextAnalysis.countWords(sourceFile), result.getWordCount(), sourceFile.getName());
+			assertEquals(TextAnalysis.lastOccurrence(sourceFile, "cat"), result.lastOccurrence("cat"));
+			frequencies.forEach((word, count) -> corpus.merge(word, count, Integer::sum));
+			wordCount += result.getWordCount();
+		}
+
+		assertEquals(sourceFiles.size() - 1, batch.getDocumentResults().size());
+		assertEquals(Arrays.asList(missing), new ArrayList<File>(batch.getFailures().keySet()));
+		assertTrue(batch.getFailures().get(missing) instanceof IOException);
+		assertEquals(corpus, new HashMap<String, Integer>(batch.getCorpusFrequencies()));
+		assertEquals(wordCount, batch.getWordCount());
+		assertEquals(TextAnalysis.findMostFrequentWords(corpus, 3), batch.findMostFrequentWords(3));
+	}
+
+
+	@Test
+	void documentThatWouldOverflowTheCorpusChangesNothing() throws IOException {
+		List<File> sourceFiles = writeDocuments();
+		BatchResult batch = new BatchResult(sourceFiles);
+		batch.getCorpusFrequencies().put("the", Integer.MAX_VALUE);
+
+		TextAnalyzer analyzer = new TextAnalyzer();
+		char[] text = DOCUMENTS[0].toCharArray();
+		analyzer.accept(text, 0, text.length);
+		AnalysisResult result = analyzer.finish();
+
+		assertThrows(ArithmeticException.class, () -> batch.complete(0, result));
+		assertTrue(batch.getDocumentResults().isEmpty());
+		assertEquals(0, batch.getWordCount());
+		assertEquals(0, batch.getCorpusFrequencies().getCount("cat"));
+		assertEquals(Integer.MAX_VALUE, batch.getCorpusFrequencies().getCount("the"));
+	}
+
+
+	/**
+	 * Writes each of DOCUMENTS to its own file, in UTF-8.
+	 * @return the files, in order
+	 * @throws IOException if a file cannot be written
+	 */
+	private List<File> writeDocuments() throws IOException {
+		List<File> sourceFiles = new ArrayList<File>();
+		for (int i = 0; i < DOCUMENTS.length; i++) {
+			File sourceFile = new File(directory, "document" + i + ".txt");
+			Files.write(sourceFile.toPath(), DOCUMENTS[i].getBytes(StandardCharsets.UTF_8));
+			sourceFiles.add(sourceFile);
+		}
+		return sourceFiles;
+	}
+}
@@ -0,0 +1,128 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks both {@link ByteClassifier}s against a byte-by-byte loop: a skip may stop early, but only at a byte that may
+ * matter, and never past one that does, which is what keeps the tokenizer's boundaries those of a byte-by-byte scan.
+ * @author Leo Mishlove
+ *
+ */
+class ByteClassifierTest {
+
+	private static final ByteClassifier[] CLASSIFIERS = {new ScalarByteClassifier(), new VectorByteClassifier()};
+
+	/* bytes that end, may end or sit next to the end of a token or a word, including the ones the bit tricks compare
+	 * with ('!', '"', '.', '?') and their neighbours */
+	private static final byte[] SPECIAL_BYTES = {
+			0x00, 0x01, 0x08, '\t', '\n', 0x0B, 0x0C, '\r', 0x0E, 0x1C, 0x1F, ' ', '!', '"', '#', '-', '.', '/',
+			'>', '?', '@', 0x7F, (byte) 0x80, (byte) 0xA0, (byte) 0xC3, (byte) 0xE2, (byte) 0xE3, (byte) 0xFF
+	};
+
+
+	@Test
+	void skipTokenBytesStopsAtTheFirstPossibleTokenEnd() {
+		Random random = new Random(25);
+		for (int trial = 0; trial < 20_000; trial++) {
+			ByteBuffer text = randomText(random);
+			int from = random.nextInt(text.limit() + 1);
+			int to = from + random.nextInt(text.limit() - from + 1);
+			for (ByteClassifier classifier : CLASSIFIERS) {
+				String context = classifier.getClass().getSimpleName() + " [" + from + ", " + to + ")";
+				int stop = classifier.skipTokenBytes(text, from, to);
+				assertEquals(firstTokenStop(text, from, to), stop, context);
+				for (int i = from; i < stop; i++) {
+					assertTrue(text.get(i) >= 0 && !MappedTokenizer.isAsciiWhitespace(text.get(i)), context);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void skipWordBytesNeverSkipsAWordEnd() {
+		Random random = new Random(26);
+		for (int trial = 0; trial < 20_000; trial++) {
+			ByteBuffer text = randomText(random);
+			int from = random.nextInt(text.limit() + 1);
+			int to = from + random.nextInt(text.limit() - from + 1);
+			for (ByteClassifier classifier : CLASSIFIERS) {
+				String context = classifier.getClass().getSimpleName() + " [" + from + ", " + to + ")";
+				int stop = classifier.skipWordBytes(text, from, to);
+				assertTrue(stop >= from && stop <= Math.max(from, to), context);
+				for (int i = from; i < stop; i++) {
+					assertFalse(isWordEnd(text.get(i)), context);
+				}
+				if (stop < to) {									//stopped early only at a byte that may matter
+					byte b = text.get(stop);
+					assertTrue((b >= 0 && b < '"') || b == '.' || b == '?', context);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void skipsReadTheBufferInBigEndianOrderFromAnyOffset() {
+		for (ByteClassifier classifier : CLASSIFIERS) {
+			for (int stop = 0; stop < 80; stop++) {
+				for (int from = 0; from <= stop; from += 7) {
+					ByteBuffer text = ByteBuffer.allocateDirect(96);		//mapped windows are direct
+					for (int i = 0; i < text.limit(); i++) {
+						text.put(i, (byte) 'a');
+					}
+					text.put(stop, (byte) ' ');
+					assertEquals(stop, classifier.skipTokenBytes(text, from, text.limit()), "token " + stop);
+					assertEquals(stop, classifier.skipWordBytes(text, from, text.limit()), "word " + stop);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Builds a buffer of runs of letters (long enough to fill several vectors) separated by special bytes.
+	 * @param random the source of randomness
+	 * @return the buffer
+	 */
+	private static ByteBuffer randomText(Random random) {
+		byte[] bytes = new byte[random.nextInt(300)];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = random.nextInt(40) == 0 ? SPECIAL_BYTES[random.nextInt(SPECIAL_BYTES.length)]
+					: (byte) ('a' + random.nextInt(26));
+		}
+		return ByteBuffer.wrap(bytes);
+	}
+
+
+	/**
+	 * @param text the buffer
+	 * @param from index of the first byte to examine
+	 * @param to index one past the last byte to examine
+	 * @return the index of the first ASCII byte below '!' or non-ASCII byte in [from, to), or [to] (or [from] if
+	 * from >= to)
+	 */
+	private static int firstTokenStop(ByteBuffer text, int from, int to) {
+		int i = from;
+		while (i < to && text.get(i) >= 0x21) {
+			i++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * @param b a byte
+	 * @return true if the byte ends a word of a sentence
+	 */
+	private static boolean isWordEnd(byte b) {
+		return MappedTokenizer.isSentenceEnd(b) || MappedTokenizer.isSplitWhitespace(b);
+	}
+}
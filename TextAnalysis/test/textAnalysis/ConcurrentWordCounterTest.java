@@ -0,0 +1,105 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that a {@link ConcurrentWordCounter} fed by many threads at once, through every way of adding words, ends
+ * with exactly the counts of counting the same words sequentially, and ranks them as
+ * {@link TextAnalysis#findMostFrequentWords} does.
+ * @author Leo Mishlove
+ *
+ */
+class ConcurrentWordCounterTest {
+
+	private static final int THREADS = 8;
+
+
+	@Test
+	void concurrentCountsMatchTheSequentialCount() throws Exception {
+		Random random = new Random(20);
+		List<String> words = new ArrayList<String>();
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (int i = 0; i < 400_000; i++) {
+			String word = (i % 3 == 0 ? "wörd" : "w") + random.nextInt(1 + random.nextInt(20_000));
+			words.add(word);
+			expected.merge(word, 1, Integer::sum);
+		}
+
+		for (int concurrencyLevel : new int[] {1, 3, 64}) {
+			ConcurrentWordCounter counter = new ConcurrentWordCounter(concurrencyLevel);
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			try {
+				List<Future<?>> results = new ArrayList<Future<?>>();
+				for (int thread = 0; thread < THREADS; thread++) {
+					List<String> slice = words.subList(words.size() * thread / THREADS,
+							words.size() * (thread + 1) / THREADS);
+					int way = thread % 4;
+					results.add(executor.submit(() -> count(counter, slice, way)));
+				}
+				for (int i = 0; i < 20; i++) {					//snapshots taken while counting never overshoot
+					counter.snapshot().forEachCount((word, count) -> assertTrue(count <= expected.get(word), word));
+				}
+				for (Future<?> result : results) {
+					result.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+
+			String context = "concurrency level " + concurrencyLevel;
+			assertEquals(expected, new HashMap<String, Integer>(counter.snapshot()), context);
+			assertEquals(expected.size(), counter.size(), context);
+			assertEquals(expected.get("w1"), counter.getCount("w1"), context);
+			assertEquals(0, counter.getCount("absent"), context);
+			assertEquals(TextAnalysis.findMostFrequentWords(expected, 50), counter.findMostFrequentWords(50), context);
+		}
+	}
+
+
+	@Test
+	void rejectsAConcurrencyLevelBelowOne() {
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentWordCounter(0));
+	}
+
+
+	/**
+	 * Counts words one of four ways: by String, by char buffer, by amount, or into a thread-local counter added at
+	 * the end.
+	 * @param counter the shared counter
+	 * @param words the words to count
+	 * @param way which way to count them
+	 */
+	private static void count(ConcurrentWordCounter counter, List<String> words, int way) {
+		WordCounter local = new WordCounter();
+		for (String word : words) {
+			switch (way) {
+			case 0:
+				counter.increment(word);
+				break;
+			case 1:
+				char[] chars = (word + "tail").toCharArray();
+				counter.increment(chars, word.length());
+				break;
+			case 2:
+				counter.add(word, 1);
+				break;
+			default:
+				local.increment(word);
+			}
+		}
+		counter.addAll(local);
+	}
+}
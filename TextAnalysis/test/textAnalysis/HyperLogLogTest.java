@@ -0,0 +1,123 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that {@link HyperLogLog} estimates stay within a few standard errors of the exact number of distinct words,
+ * from none to millions, that merging sketches is the same as adding every word to one, and that
+ * {@link TextAnalysis#estimateDistinctWords} estimates the size of calculateWordFrequencies' map.
+ * @author Leo Mishlove
+ *
+ */
+class HyperLogLogTest {
+
+	/* the hashes are deterministic, so a bound of several standard errors cannot fail by chance on a rerun */
+	private static final double STANDARD_ERRORS = 4;
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void estimatesWithinTheErrorBound() {
+		for (int precision : new int[] {HyperLogLog.MIN_PRECISION, 10, 14, HyperLogLog.MAX_PRECISION}) {
+			HyperLogLog sketch = new HyperLogLog(precision);
+			assertEquals(0, sketch.estimate());
+			int distinct = 0;
+			for (int target : new int[] {1, 10, 1000, 50_000, 2_000_000}) {
+				for (; distinct < target; distinct++) {
+					sketch.add("word" + distinct);
+					sketch.add("word" + distinct / 2);						//repeats must not count
+				}
+				assertWithinBound(distinct, sketch.estimate(), sketch.getRelativeError(),
+						"precision " + precision + ", " + distinct + " words");
+			}
+		}
+	}
+
+
+	@Test
+	void bothAddOverloadsHashTheSameWord() {
+		HyperLogLog strings = new HyperLogLog(12);
+		HyperLogLog buffers = new HyperLogLog(12);
+		for (int i = 0; i < 20_000; i++) {
+			String word = "wörd" + i;
+			strings.add(word);
+			char[] chars = (word + "tail").toCharArray();
+			buffers.add(chars, word.length());
+		}
+		assertEquals(strings.estimate(), buffers.estimate());
+	}
+
+
+	@Test
+	void mergingIsAddingToOneSketch() {
+		HyperLogLog all = new HyperLogLog(14);
+		HyperLogLog first = new HyperLogLog(14);
+		HyperLogLog second = new HyperLogLog(14);
+		for (int i = 0; i < 300_000; i++) {
+			String word = "w" + i;
+			all.add(word);
+			(i % 3 == 0 ? first : second).add(word);
+			if (i % 5 == 0) {
+				first.add(word);										//overlapping sketches
+			}
+		}
+		first.merge(second);
+		assertEquals(all.estimate(), first.estimate());
+		assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(13)));
+	}
+
+
+	@Test
+	void relativeErrorPicksTheSmallestPrecision() {
+		assertEquals(14, HyperLogLog.withRelativeError(0.01).getPrecision());
+		assertTrue(HyperLogLog.withRelativeError(0.01).getRelativeError() <= 0.01);
+		assertEquals(HyperLogLog.MIN_PRECISION, HyperLogLog.withRelativeError(0.5).getPrecision());
+		assertThrows(IllegalArgumentException.class, () -> HyperLogLog.withRelativeError(0.001));
+		assertThrows(IllegalArgumentException.class, () -> HyperLogLog.withRelativeError(0));
+		assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1));
+	}
+
+
+	@Test
+	void estimatesTheVocabularyOfAFile() throws IOException {
+		Random random = new Random(15);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 300_000; i++) {
+			int id = random.nextInt(1 + random.nextInt(150_000));
+			text.append(id % 2 == 0 ? "Wörd" : "word").append(id).append(random.nextInt(10) == 0 ? ". " : " ");
+		}
+		File sourceFile = new File(directory, "text.txt");
+		Files.write(sourceFile.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+		int distinct = TextAnalysis.calculateWordFrequencies(sourceFile).size();
+		for (double relativeError : new double[] {0.05, 0.01}) {
+			assertWithinBound(distinct, TextAnalysis.estimateDistinctWords(sourceFile, relativeError), relativeError,
+					"relative error " + relativeError);
+		}
+	}
+
+
+	/**
+	 * @param distinct the exact number of distinct words
+	 * @param estimate the sketch's estimate
+	 * @param relativeError the sketch's relative standard error
+	 * @param context describes the sketch for failure messages
+	 */
+	private static void assertWithinBound(long distinct, long estimate, double relativeError, String context) {
+		double bound = Math.max(STANDARD_ERRORS * relativeError * distinct, 1);
+		assertTrue(Math.abs(estimate - distinct) <= bound, context + ": estimated " + estimate);
+	}
+}
@@ -0,0 +1,116 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that an {@link IncrementalAnalyzer} always answers as {@link TextAnalysis#analyze(File)} would on the file
+ * as it is at the last update: however the appends split words, sentences and characters, and after the file is
+ * truncated, rewritten in place or rotated.
+ * @author Leo Mishlove
+ *
+ */
+class IncrementalAnalyzerTest {
+
+	private static final String[] WORDS = {
+			"the", "The", "cat", "dog.", "ran!", "why?", "e.g.", "naïve", "’quoted’", "日本", "--", "end.Next"
+	};
+
+	private static final String[] QUERIES = {
+			"the", "cat", "dog", "ran", "why", "e", "g", "naïve", "quoted", "日本", ""
+	};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void appendsSplitAnywhereMatchAnalyzingTheWholeFile() throws IOException {
+		Random random = new Random(9);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 400; i++) {
+			text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(4) == 0 ? "\n" : " ");
+		}
+		byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+
+		File sourceFile = new File(directory, "log.txt");
+		Files.write(sourceFile.toPath(), new byte[0]);
+		IncrementalAnalyzer analyzer = new IncrementalAnalyzer(sourceFile);
+		int written = 0;
+		while (written < bytes.length) {
+			int length = Math.min(1 + random.nextInt(40), bytes.length - written);		//often ends mid-character
+			Files.write(sourceFile.toPath(), Arrays.copyOfRange(bytes, written, written + length),
+					StandardOpenOption.APPEND);
+			written += length;
+			assertEquals(length, analyzer.update());
+			assertMatchesWholeFile(analyzer, sourceFile, "after " + written + " bytes");
+		}
+		assertEquals(0, analyzer.update());
+	}
+
+
+	@Test
+	void startsOverWhenTheFileIsTruncatedOrRewritten() throws IOException {
+		File sourceFile = new File(directory, "log.txt");
+		IncrementalAnalyzer analyzer = new IncrementalAnalyzer(sourceFile);
+		Files.write(sourceFile.toPath(), "one two three. four five".getBytes(StandardCharsets.UTF_8));
+		analyzer.update();
+
+		Files.write(sourceFile.toPath(), "six".getBytes(StandardCharsets.UTF_8));		//truncated
+		analyzer.update();
+		assertMatchesWholeFile(analyzer, sourceFile, "truncated");
+
+		Files.write(sourceFile.toPath(), "ten eleven twelve".getBytes(StandardCharsets.UTF_8));	//regrown past offset
+		analyzer.update();
+		assertMatchesWholeFile(analyzer, sourceFile, "rewritten");
+	}
+
+
+	@Test
+	void startsOverWhenTheFileIsRotated() throws IOException {
+		String tail = " shared tail text that is longer than the sixty-four bytes checked before the offset.";
+		File sourceFile = new File(directory, "log.txt");
+		IncrementalAnalyzer analyzer = new IncrementalAnalyzer(sourceFile);
+		Files.write(sourceFile.toPath(), ("alpha" + tail).getBytes(StandardCharsets.UTF_8));
+		analyzer.update();
+
+		/* same length up to the old offset and the same bytes before it: only the file key tells them apart */
+		Files.move(sourceFile.toPath(), new File(directory, "log.txt.1").toPath());
+		Files.write(sourceFile.toPath(), ("omega" + tail + " More").getBytes(StandardCharsets.UTF_8));
+		analyzer.update();
+		assertMatchesWholeFile(analyzer, sourceFile, "rotated");
+		assertEquals(0, analyzer.getCount("alpha"));
+	}
+
+
+	/**
+	 * @param analyzer the incremental analyzer, just updated
+	 * @param sourceFile the file it analyzes
+	 * @param context describes the file's state for failure messages
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void assertMatchesWholeFile(IncrementalAnalyzer analyzer, File sourceFile, String context)
+			throws IOException {
+		AnalysisResult expected = TextAnalysis.analyze(sourceFile);
+		assertEquals(expected.getWordCountLong(), analyzer.getWordCountLong(), context);
+		assertEquals(new HashMap<String, Integer>(expected.getWordFrequencies()),
+				new HashMap<String, Integer>(analyzer.snapshot().getWordFrequencies()), context);
+		for (String word : QUERIES) {
+			assertEquals(expected.getCount(word), analyzer.getCount(word), context + ": " + word);
+			assertEquals(expected.lastOccurrence(word), analyzer.lastOccurrence(word), context + ": " + word);
+		}
+		assertEquals(expected.findMostFrequentWords(5), analyzer.findMostFrequentWords(5), context);
+		assertEquals(expected.findMostFrequentWords(2), analyzer.findMostFrequentWords(2), context);
+	}
+}
@@ -0,0 +1,110 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that {@link TextAnalysis#countWordFrequenciesInterned} counts and ranks as calculateWordFrequencies and
+ * findMostFrequentWords do, that its {@link Vocabulary} numbers words in order of first appearance, and that an
+ * {@link NGramCounter} sharing the vocabulary agrees on every word's ID.
+ * @author Leo Mishlove
+ *
+ */
+class InternedWordCounterTest {
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesCalculateWordFrequencies() throws IOException {
+		Random random = new Random(22);
+		for (int trial = 0; trial < 30; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(400));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			String context = "trial " + trial;
+
+			Map<String, Integer> expected = TextAnalysis.calculateWordFrequencies(sourceFile);
+			InternedWordCounter counter = TextAnalysis.countWordFrequenciesInterned(sourceFile);
+			assertEquals(expected.size(), counter.size(), context);
+			assertEquals(expected, new HashMap<String, Integer>(counter.toWordCounter()), context);
+			for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+				assertEquals((int) entry.getValue(), counter.getCount(entry.getKey()), context);
+			}
+			assertEquals(0, counter.getCount("absent"), context);
+			for (int wordsDesired : new int[] {0, 1, 5, expected.size(), Integer.MAX_VALUE}) {
+				assertEquals(TextAnalysis.findMostFrequentWords(expected, wordsDesired),
+						counter.findMostFrequentWords(wordsDesired), context + ", top " + wordsDesired);
+			}
+
+			List<String> byId = new ArrayList<String>();
+			counter.forEachCount((word, count) -> byId.add(word));
+			assertEquals(new ArrayList<String>(firstAppearances(text)), byId, context);
+		}
+	}
+
+
+	@Test
+	void sharedVocabularyGivesTheNGramsTheSameIds() throws IOException {
+		String text = SentenceTexts.randomText(new Random(220), 2000);
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), text);
+
+		Vocabulary vocabulary = new Vocabulary();
+		InternedWordCounter counter = TextAnalysis.countWordFrequenciesInterned(sourceFile, vocabulary);
+		int size = vocabulary.size();
+		NGramCounter unigrams = TextAnalysis.countNGrams(sourceFile, 1, vocabulary);
+		NGramCounter bigrams = TextAnalysis.countNGrams(sourceFile, 2, vocabulary);
+
+		assertEquals(size, vocabulary.size());						//no word was new to the n-gram counters
+		for (int id = 0; id < size; id++) {
+			String word = vocabulary.getWord(id);
+			assertEquals(id, vocabulary.getId(word));
+			assertEquals(counter.getCountOfId(id), unigrams.getCount(word), word);
+		}
+		assertEquals(counter.findMostFrequentWords(20), unigrams.findMostFrequentNGrams(20));
+		assertEquals(size, bigrams.getVocabularySize());
+	}
+
+
+	@Test
+	void unknownWordsAndIds() {
+		Vocabulary vocabulary = new Vocabulary();
+		InternedWordCounter counter = new InternedWordCounter(vocabulary);
+		assertEquals(0, vocabulary.intern("the"));
+		assertEquals(1, counter.increment("cat"));
+		assertEquals(2, counter.increment("cat".toCharArray(), 3));
+		assertEquals(1, counter.size());							//interned but never counted: not a word here
+		assertEquals(0, counter.getCount("the"));
+		assertEquals(-1, vocabulary.getId("dog"));
+		assertEquals(0, counter.getCountOfId(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> vocabulary.getWord(2));
+	}
+
+
+	/**
+	 * @param text a text
+	 * @return its compatible-format words, each once, in order of first appearance
+	 */
+	private static LinkedHashSet<String> firstAppearances(String text) {
+		LinkedHashSet<String> words = new LinkedHashSet<String>();
+		for (String token : text.split("\\s+")) {
+			String word = TextAnalysis.convertWordToCompatible(token);
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+}
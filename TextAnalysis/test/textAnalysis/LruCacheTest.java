@@ -0,0 +1,166 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that an {@link LruCache} evicts the least recently used entries by weight, that concurrent misses of one key
+ * share a single load (and a failed load is retried by one of the waiting threads), that each call counts as exactly
+ * one hit or miss, and that a load invalidated while it runs is returned but not cached.
+ * @author Leo Mishlove
+ *
+ */
+class LruCacheTest {
+
+	private static final int THREADS = 8;
+
+
+	@Test
+	void evictsTheLeastRecentlyUsedByWeight() {
+		LruCache<String, String> cache = new LruCache<String, String>(10, (key, value) -> value.length());
+		cache.put("a", "aaa");
+		cache.put("b", "bbb");
+		cache.put("c", "ccc");
+		assertEquals("aaa", cache.get("a"));					//b is now the least recently used
+		cache.put("d", "dd");
+		assertNull(cache.get("b"));
+		assertEquals("aaa", cache.get("a"));
+		assertEquals(8, cache.getWeight());
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.put("a", "a");									//replaced: its old weight is released
+		assertEquals(6, cache.getWeight());
+		cache.put("e", "eeeeeeeeeee");							//heavier than the whole cache: not cached
+		assertNull(cache.get("e"));
+		assertEquals(3, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertThrows(NullPointerException.class, () -> cache.put("f", null));
+	}
+
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		LruCache<String, String> cache = new LruCache<String, String>(100, (key, value) -> 1);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(() -> cache.get("key", key -> {
+					loads.incrementAndGet();
+					release.await();
+					return key + "'s value";
+				})));
+			}
+			awaitMisses(cache, THREADS);
+			release.countDown();
+			for (Future<String> result : results) {
+				assertEquals("key's value", result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(THREADS, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertEquals("key's value", cache.get("key", key -> "reloaded"));
+		assertEquals(1, cache.getHitCount());
+	}
+
+
+	@Test
+	void failedLoadIsRetriedByOneWaitingThread() throws Exception {
+		LruCache<String, String> cache = new LruCache<String, String>(100, (key, value) -> 1);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		int failures = 0;
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(() -> cache.get("key", key -> {
+					release.await();
+					if (loads.incrementAndGet() == 1) {
+						throw new IOException("first load fails");
+					}
+					return "value";
+				})));
+			}
+			awaitMisses(cache, THREADS);
+			release.countDown();
+			for (Future<String> result : results) {
+				try {
+					assertEquals("value", result.get());
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof IOException);
+					failures++;
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, failures);
+		assertEquals(2, loads.get());
+		assertEquals(THREADS, cache.getMissCount() + cache.getHitCount());
+	}
+
+
+	@Test
+	void loadInvalidatedWhileRunningIsNotCached() throws Exception {
+		LruCache<String, String> cache = new LruCache<String, String>(100, (key, value) -> 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> result = executor.submit(() -> cache.get("key", key -> {
+				started.countDown();
+				release.await();
+				return "stale";
+			}));
+			started.await();
+			cache.invalidate("key");
+			release.countDown();
+			assertEquals("stale", result.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(0, cache.size());
+		assertEquals("fresh", cache.get("key", key -> "fresh"));
+		assertEquals(1, cache.size());
+
+		cache.invalidateIf(key -> key.startsWith("k"));
+		assertEquals(0, cache.getWeight());
+		assertNull(cache.get("key"));
+	}
+
+
+	/**
+	 * Waits until a number of lookups have missed, i.e. every thread is loading or waiting for the load.
+	 * @param cache the cache
+	 * @param misses the number of misses to wait for
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static void awaitMisses(LruCache<?, ?> cache, int misses) throws InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (cache.getMissCount() < misses) {
+			assertTrue(System.nanoTime() < deadline, "only " + cache.getMissCount() + " misses");
+			Thread.sleep(1);
+		}
+	}
+}
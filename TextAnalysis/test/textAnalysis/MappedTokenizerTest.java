@@ -0,0 +1,216 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that {@link MappedTokenizer} finds exactly the tokens and sentences a byte-by-byte scan of the whole file
+ * finds, whatever the window size: the skips of its {@link ByteClassifier} and the carrying of tokens and words
+ * across windows must not move a boundary.
+ * @author Leo Mishlove
+ *
+ */
+class MappedTokenizerTest {
+
+	/* window sizes that split tokens, words and multi-byte characters at every possible place */
+	private static final int[] WINDOW_SIZES = {1, 2, 3, 5, 8, 13, 64, MappedTokenizer.DEFAULT_WINDOW_SIZE};
+
+	/* most windows a file is scanned in: each window is a mapping, released only when it is garbage collected */
+	private static final int MAXIMUM_WINDOWS = 256;
+
+	/* pieces the random texts are built from: words, every kind of boundary, non-ASCII whitespace (U+1680, U+2003,
+	 * U+3000), non-whitespace that looks like it (U+00A0, U+2060), and malformed UTF-8 */
+	private static final byte[][] PIECES = {
+			utf8("word"), utf8("Sentence"), utf8("don't"), utf8("e.g."), utf8("3.14"), utf8("end!"), utf8("why?"),
+			utf8(" "), utf8("  "), utf8("\t"), utf8("\n"), utf8("\r\n"), utf8("\u000B"), utf8("\f"), utf8("\u001C"),
+			utf8("..."), utf8("?!"), utf8("\"quoted\""), utf8("naïve"), utf8("日本語"), utf8("😀"),
+			utf8("\u1680"), utf8("\u2003"), utf8("\u3000"), utf8("\u00A0"), utf8("\u2060"),
+			{(byte) 0xE2, (byte) 0x80}, {(byte) 0xC3}, {(byte) 0x80}, {(byte) 0xFF}
+	};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesAByteByByteScanForEveryWindowSize() throws IOException {
+		Random random = new Random(10);
+		for (int trial = 0; trial < 40; trial++) {
+			byte[] bytes = randomText(random, trial < 20 ? 40 : 400);
+			File file = new File(directory, "text" + trial + ".txt");
+			Files.write(file.toPath(), bytes);
+			List<String> tokens = referenceTokens(bytes);
+			List<String> sentences = referenceSentences(bytes);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+
+			for (int windowSize : WINDOW_SIZES) {
+				if (bytes.length / windowSize > MAXIMUM_WINDOWS) {
+					continue;
+				}
+				String context = "trial " + trial + ", window size " + windowSize;
+				MappedTokenizer tokenizer = new MappedTokenizer(file, windowSize);
+				assertEquals(tokens.size(), tokenizer.countTokens(), context);
+
+				List<String> visitedTokens = new ArrayList<String>();
+				tokenizer.forEachToken((text, start, end) -> visitedTokens.add(string(text, start, end)));
+				assertEquals(tokens, visitedTokens, context);
+
+				Recorder recorder = new Recorder();
+				tokenizer.forEachSentence(recorder);
+				assertEquals(sentences, recorder.events, context);
+
+				List<String> combinedTokens = new ArrayList<String>();
+				Recorder combined = new Recorder();
+				CRC32 checksum = new CRC32();
+				tokenizer.forEachTokenAndSentence((text, start, end) -> combinedTokens.add(string(text, start, end)),
+						combined, checksum);
+				assertEquals(tokens, combinedTokens, context);
+				assertEquals(sentences, combined.events, context);
+				assertEquals(crc.getValue(), checksum.getValue(), context);
+			}
+		}
+	}
+
+
+	/**
+	 * Concatenates random pieces, mostly words and spaces.
+	 * @param random the source of randomness
+	 * @param maximumPieces the largest number of pieces
+	 * @return the text's bytes
+	 */
+	private static byte[] randomText(Random random, int maximumPieces) {
+		ByteBuffer text = ByteBuffer.allocate(maximumPieces * 8);
+		int pieces = random.nextInt(maximumPieces + 1);
+		for (int i = 0; i < pieces; i++) {
+			int choice = random.nextInt(PIECES.length + 4);
+			text.put(choice < PIECES.length ? PIECES[choice] : choice % 2 == 0 ? PIECES[0] : PIECES[7]);
+		}
+		byte[] bytes = new byte[text.position()];
+		text.flip().get(bytes);
+		return bytes;
+	}
+
+
+	/**
+	 * Splits text into tokens one character at a time, at whitespace as defined by Character.isWhitespace.
+	 * @param bytes the text's bytes
+	 * @return the tokens' bytes, as Latin-1 strings
+	 */
+	private static List<String> referenceTokens(byte[] bytes) {
+		ByteBuffer text = ByteBuffer.wrap(bytes);
+		List<String> tokens = new ArrayList<String>();
+		int tokenStart = -1;
+		int i = 0;
+		while (i < bytes.length) {
+			int whitespaceLength = MappedTokenizer.whitespaceLength(text, i);
+			if (whitespaceLength > 0) {
+				if (tokenStart >= 0) {
+					tokens.add(string(text, tokenStart, i));
+					tokenStart = -1;
+				}
+				i += whitespaceLength;
+			} else {
+				if (tokenStart < 0) {
+					tokenStart = i;
+				}
+				i += MappedTokenizer.characterLength(text, i);
+			}
+		}
+		if (tokenStart >= 0) {
+			tokens.add(string(text, tokenStart, Math.min(i, bytes.length)));
+		}
+		return tokens;
+	}
+
+
+	/**
+	 * Splits text into sentences and their words one byte at a time, as lastOccurrence does.
+	 * @param bytes the text's bytes
+	 * @return the visits a SentenceVisitor should receive, as recorded by a Recorder
+	 */
+	private static List<String> referenceSentences(byte[] bytes) {
+		ByteBuffer text = ByteBuffer.wrap(bytes);
+		Recorder recorder = new Recorder();
+		int wordStart = -1;
+		long sentenceStart = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			boolean sentenceEnd = MappedTokenizer.isSentenceEnd(bytes[i]);
+			if (!sentenceEnd && !MappedTokenizer.isSplitWhitespace(bytes[i])) {
+				if (wordStart < 0) {
+					wordStart = i;
+				}
+				continue;
+			}
+			if (wordStart >= 0) {
+				recorder.visitWord(text, wordStart, i);
+				wordStart = -1;
+			}
+			if (sentenceEnd) {
+				recorder.endSentence(sentenceStart, i);
+				sentenceStart = i + 1;
+			}
+		}
+		if (wordStart >= 0) {
+			recorder.visitWord(text, wordStart, bytes.length);
+		}
+		if (sentenceStart < bytes.length) {
+			recorder.endSentence(sentenceStart, bytes.length);
+		}
+		return recorder.events;
+	}
+
+
+	/**
+	 * @param text a buffer
+	 * @param start index of the first byte
+	 * @param end index one past the last byte
+	 * @return the bytes as a Latin-1 string, so that malformed UTF-8 is compared byte for byte
+	 */
+	private static String string(ByteBuffer text, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			bytes[i - start] = text.get(i);
+		}
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+
+	/**
+	 * @param text a string
+	 * @return its UTF-8 bytes
+	 */
+	private static byte[] utf8(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Records the words and sentence ends a SentenceVisitor receives, in order.
+	 */
+	private static final class Recorder implements MappedTokenizer.SentenceVisitor {
+		final List<String> events = new ArrayList<String>();
+
+		@Override
+		public void visitWord(ByteBuffer text, int start, int end) {
+			events.add("word " + string(text, start, end));
+		}
+
+		@Override
+		public void endSentence(long start, long end) {
+			events.add("sentence [" + start + ", " + end + ")");
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that a {@link MultiWordSearch} finds for each word what searching for it alone does: the last sentence
+ * {@link TextAnalysis#lastOccurrence} finds, and every sentence of the reference split, including words that are
+ * prefixes, suffixes or parts of other words, and words that can never match.
+ * @author Leo Mishlove
+ *
+ */
+class MultiWordSearchTest {
+
+	/* words that overlap others in the automaton, and words that can never match one whole word */
+	private static final String[] MORE_QUERIES = {"he", "t", "th", "ca", "at", "n", "the cat", " the", "The", "the"};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesSearchingForEachWordAlone() throws IOException {
+		List<String> queries = new ArrayList<String>(Arrays.asList(SentenceTexts.QUERIES));
+		queries.addAll(Arrays.asList(MORE_QUERIES));						//"the" and "The" given twice
+		MultiWordSearch search = new MultiWordSearch(queries);
+		List<String> distinct = new ArrayList<String>(new LinkedHashSet<String>(queries));
+		assertEquals(distinct.size() - 2, search.size());					//all but "the cat" and " the"
+
+		Random random = new Random(23);
+		for (int trial = 0; trial < 40; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(400));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			Map<String, String> last = search.lastOccurrences(sourceFile);
+			Map<String, List<String>> all = search.allOccurrences(sourceFile);
+			assertEquals(distinct, new ArrayList<String>(last.keySet()), "trial " + trial);
+			assertEquals(distinct, new ArrayList<String>(all.keySet()), "trial " + trial);
+			for (String word : distinct) {
+				String context = "trial " + trial + ": '" + word + "'";
+				assertEquals(TextAnalysis.lastOccurrence(sourceFile, word), last.get(word), context);
+				assertEquals(SentenceTexts.sentencesContaining(text, word), all.get(word), context);
+			}
+		}
+	}
+
+
+	@Test
+	void emptyWordNeverMatches() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "text.txt"), "The -- cat.  Sat.");
+		MultiWordSearch search = new MultiWordSearch(Arrays.asList("", "cat"));
+		assertEquals(1, search.size());
+		assertEquals("", search.lastOccurrences(sourceFile).get(""));
+		assertEquals(List.of(), search.allOccurrences(sourceFile).get(""));
+		assertEquals("The -- cat", search.lastOccurrences(sourceFile).get("cat"));
+		assertEquals(search.lastOccurrences(sourceFile), TextAnalysis.lastOccurrences(sourceFile, List.of("", "cat")));
+	}
+
+
+	@Test
+	void oneSearchServesSeveralThreads() throws IOException {
+		Random random = new Random(230);
+		List<File> sourceFiles = new ArrayList<File>();
+		for (int i = 0; i < 16; i++) {
+			String text = SentenceTexts.randomText(random, 300);
+			sourceFiles.add(SentenceTexts.write(new File(directory, "parallel" + i + ".txt"), text));
+		}
+		MultiWordSearch search = new MultiWordSearch(Arrays.asList(SentenceTexts.QUERIES));
+		IntStream.range(0, sourceFiles.size()).parallel().forEach(i -> {
+			try {
+				File sourceFile = sourceFiles.get(i);
+				for (Map.Entry<String, String> entry : search.lastOccurrences(sourceFile).entrySet()) {
+					assertEquals(TextAnalysis.lastOccurrence(sourceFile, entry.getKey()), entry.getValue());
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+}
@@ -0,0 +1,163 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks {@link NGramCounter} against n-grams counted naively as lists of words: from files, where an n-gram never
+ * spans a token with a sentence end, and past 2^21 word IDs, where trigrams move to the wide table. Rankings must
+ * order ties word by word, as findMostFrequentWords orders words.
+ * @author Leo Mishlove
+ *
+ */
+class NGramCounterTest {
+
+	/* n-grams ranked by descending count, then word by word in String.compareTo order */
+	private static final Comparator<Map.Entry<List<String>, Integer>> RANKING =
+			Comparator.<Map.Entry<List<String>, Integer>>comparingInt(Map.Entry::getValue).reversed()
+					.thenComparing(Map.Entry::getKey, NGramCounterTest::compareWordByWord);
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesCountingTheFileNaively() throws IOException {
+		Random random = new Random(21);
+		for (int trial = 0; trial < 30; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(400));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			for (int n = 1; n <= NGramCounter.MAX_N; n++) {
+				String context = "trial " + trial + ", n = " + n;
+				Map<List<String>, Integer> expected = countNaively(text, n);
+				NGramCounter nGrams = TextAnalysis.countNGrams(sourceFile, n);
+				assertMatches(expected, nGrams, context);
+				if (n == 1) {
+					Map<String, Integer> frequencies = TextAnalysis.calculateWordFrequencies(sourceFile);
+					assertEquals(TextAnalysis.findMostFrequentWords(frequencies, 10),
+							nGrams.findMostFrequentNGrams(10), context);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void trigramsPastTheNarrowIdsMatchCountingNaively() {
+		Vocabulary vocabulary = new Vocabulary();
+		for (int i = 0; i < (1 << 21) - 3; i++) {					//later words get IDs that need the wide table
+			vocabulary.intern("0" + Integer.toString(i, Character.MAX_RADIX));
+		}
+
+		Random random = new Random(210);
+		String[] words = {"a", "b", "c", "d", "e", "f", "g", "h"};	//IDs on both sides of 2^21
+		NGramCounter nGrams = new NGramCounter(3, vocabulary);
+		Map<List<String>, Integer> expected = new HashMap<List<String>, Integer>();
+		List<String> sentence = new ArrayList<String>();
+		for (int i = 0; i < 20_000; i++) {
+			if (random.nextInt(10) == 0) {
+				nGrams.endSentence();
+				sentence.clear();
+				continue;
+			}
+			String word = words[random.nextInt(words.length)];
+			nGrams.add(word);
+			sentence.add(word);
+			if (sentence.size() >= 3) {
+				expected.merge(new ArrayList<String>(sentence.subList(sentence.size() - 3, sentence.size())), 1,
+						Integer::sum);
+			}
+		}
+		assertEquals((1 << 21) + 5, vocabulary.size());
+		assertMatches(expected, nGrams, "wide");
+	}
+
+
+	@Test
+	void rejectsInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new NGramCounter(0));
+		assertThrows(IllegalArgumentException.class, () -> new NGramCounter(NGramCounter.MAX_N + 1));
+		assertThrows(IllegalArgumentException.class, () -> new NGramCounter(2).getCount("one"));
+		assertThrows(IllegalArgumentException.class, () -> new NGramCounter(2).findMostFrequentNGrams(-1));
+	}
+
+
+	/**
+	 * @param expected the naive counts
+	 * @param nGrams the counter
+	 * @param context describes the counts for failure messages
+	 */
+	private static void assertMatches(Map<List<String>, Integer> expected, NGramCounter nGrams, String context) {
+		assertEquals(expected.size(), nGrams.size(), context);
+		for (Map.Entry<List<String>, Integer> entry : expected.entrySet()) {
+			assertEquals((int) entry.getValue(), nGrams.getCount(entry.getKey().toArray(new String[0])),
+					context + ": " + entry.getKey());
+		}
+		List<Map.Entry<List<String>, Integer>> ranked = new ArrayList<Map.Entry<List<String>, Integer>>(
+				expected.entrySet());
+		ranked.sort(RANKING);
+		List<String> phrases = new ArrayList<String>();
+		for (Map.Entry<List<String>, Integer> entry : ranked) {
+			phrases.add(String.join(" ", entry.getKey()));
+		}
+		for (int nGramsDesired : new int[] {0, 1, 7, phrases.size(), Integer.MAX_VALUE}) {
+			assertEquals(phrases.subList(0, Math.min(nGramsDesired, phrases.size())),
+					nGrams.findMostFrequentNGrams(nGramsDesired), context + ", top " + nGramsDesired);
+		}
+	}
+
+
+	/**
+	 * Counts n-grams the slow way: each whitespace-delimited token converted as by convertWordToCompatible is a word
+	 * (unless it converts to nothing), and a token containing ., ? or ! ends the sentence after its word.
+	 * @param text the text
+	 * @param n the number of words per n-gram
+	 * @return each n-gram's words and its count
+	 */
+	private static Map<List<String>, Integer> countNaively(String text, int n) {
+		Map<List<String>, Integer> nGrams = new HashMap<List<String>, Integer>();
+		List<String> sentence = new ArrayList<String>();
+		for (String token : text.split("\\s+")) {
+			String word = TextAnalysis.convertWordToCompatible(token);
+			if (!word.isEmpty()) {
+				sentence.add(word);
+				if (sentence.size() >= n) {
+					nGrams.merge(new ArrayList<String>(sentence.subList(sentence.size() - n, sentence.size())), 1,
+							Integer::sum);
+				}
+			}
+			if (token.contains(".") || token.contains("?") || token.contains("!")) {
+				sentence.clear();
+			}
+		}
+		return nGrams;
+	}
+
+
+	/**
+	 * @param a an n-gram's words
+	 * @param b another n-gram's words
+	 * @return the comparison of the first words that differ
+	 */
+	private static int compareWordByWord(List<String> a, List<String> b) {
+		for (int i = 0; i < a.size(); i++) {
+			int comparison = a.get(i).compareTo(b.get(i));
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return a.size() - b.size();
+	}
+}
@@ -0,0 +1,133 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that an {@link OffHeapWordCounter} counts as a HashMap does and ranks as
+ * {@link TextAnalysis#findMostFrequentWords} does, through many table resizes and arena chunks, with counts past
+ * Integer.MAX_VALUE, and that it refuses use once closed.
+ * @author Leo Mishlove
+ *
+ */
+class OffHeapWordCounterTest {
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesAHashMapThroughManyResizes() {
+		Random random = new Random(12);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		try (OffHeapWordCounter counter = new OffHeapWordCounter()) {
+			for (int i = 0; i < 400_000; i++) {
+				String word = randomWord(random);
+				int count = expected.merge(word, 1, Integer::sum);
+				if (random.nextBoolean()) {
+					assertEquals(count, counter.increment(word));
+				} else {
+					char[] chars = Arrays.copyOf(word.toCharArray(), word.length() + 5);	//the tail must be ignored
+					assertEquals(count, counter.increment(chars, word.length()));
+				}
+			}
+
+			assertEquals(expected.size(), counter.size());
+			Map<String, Integer> actual = new HashMap<String, Integer>();
+			counter.forEachCount((word, count) -> actual.put(word, Math.toIntExact(count)));
+			assertEquals(expected, actual);
+			assertEquals(0, counter.getCount("never counted"));
+			for (int wordsDesired : new int[] {0, 1, 10, 1000, expected.size(), Integer.MAX_VALUE}) {
+				assertEquals(TextAnalysis.findMostFrequentWords(expected, wordsDesired),
+						counter.findMostFrequentWords(wordsDesired), "top " + wordsDesired);
+			}
+		}
+	}
+
+
+	@Test
+	void matchesCountingTheFile() throws IOException {
+		Random random = new Random(120);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50_000; i++) {
+			text.append(randomWord(random)).append(random.nextInt(8) == 0 ? ",\n" : " ");
+		}
+		File sourceFile = new File(directory, "text.txt");
+		Files.write(sourceFile.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+		Map<String, Integer> expected = TextAnalysis.calculateWordFrequencies(sourceFile);
+		try (OffHeapWordCounter counter = TextAnalysis.countWordFrequenciesOffHeap(sourceFile)) {
+			Map<String, Integer> actual = new HashMap<String, Integer>();
+			counter.forEachCount((word, count) -> actual.put(word, Math.toIntExact(count)));
+			assertEquals(expected, actual);
+			assertEquals(TextAnalysis.findMostFrequentWords(expected, 25), counter.findMostFrequentWords(25));
+		}
+	}
+
+
+	@Test
+	void countsPastIntegerMaxValue() {
+		try (OffHeapWordCounter counter = new OffHeapWordCounter()) {
+			counter.add("the", Integer.MAX_VALUE);
+			assertEquals(2L * Integer.MAX_VALUE, counter.add("the", Integer.MAX_VALUE));
+			assertEquals(2L * Integer.MAX_VALUE + 1, counter.increment("the"));
+			counter.add("cat", 2L * Integer.MAX_VALUE + 1);
+			counter.increment("a");
+			assertEquals(Arrays.asList("cat", "the", "a"), counter.findMostFrequentWords(3));		//ties alphabetical
+		}
+	}
+
+
+	@Test
+	void wordLongerThanAnArenaChunkGetsItsOwn() {
+		char[] chars = new char[(1 << 24) + 3];
+		Arrays.fill(chars, 'é');									//two UTF-8 bytes each
+		String longWord = new String(chars);
+		try (OffHeapWordCounter counter = new OffHeapWordCounter()) {
+			counter.increment("before");
+			counter.increment(longWord);
+			counter.increment("after");
+			assertEquals(2, counter.increment(longWord));
+			assertEquals(2, counter.getCount(longWord));
+			assertEquals(1, counter.getCount("before"));
+			assertEquals(1, counter.getCount("after"));
+			assertEquals(longWord, counter.findMostFrequentWords(1).get(0));
+			assertTrue(counter.getOffHeapBytes() > 2L * chars.length);
+		}
+	}
+
+
+	@Test
+	void closedCounterCannotBeUsed() {
+		OffHeapWordCounter counter = new OffHeapWordCounter();
+		counter.increment("the");
+		counter.close();
+		counter.close();
+		assertEquals(0, counter.getOffHeapBytes());
+		assertThrows(IllegalStateException.class, () -> counter.findMostFrequentWords(1));
+		assertThrows(IllegalStateException.class, () -> counter.forEachCount((word, count) -> { }));
+	}
+
+
+	/**
+	 * @param random the source of randomness
+	 * @return a word from a skewed distribution over 200,000 words, some of them non-ASCII
+	 */
+	private static String randomWord(Random random) {
+		int id = random.nextInt(1 + random.nextInt(200_000));
+		return (id % 7 == 0 ? "wörd" : id % 11 == 0 ? "語" : "w") + id;
+	}
+}
@@ -0,0 +1,99 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that counting word frequencies in parallel chunks gives exactly the counts of
+ * {@link TextAnalysis#calculateWordFrequencies}: splitting at whitespace must never cut a token or a character, nor
+ * count one twice.
+ * @author Leo Mishlove
+ *
+ */
+class ParallelWordCountTest {
+
+	private static final String[] WORDS = {
+			"the", "The", "THE,", "cat", "\"dog\"", "e-mail", "naïve", "日本語", "😀", "don't", "--", "x"
+	};
+
+	private static final String[] SEPARATORS = {" ", " ", " ", "\n", "\t", "  ", "\r\n", "　", " "};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void tinyChunksMatchTheSequentialCount() throws IOException {
+		Random random = new Random(4);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int trial = 0; trial < 30; trial++) {
+				File sourceFile = writeText(random, "text" + trial + ".txt", random.nextInt(2000));
+				Map<String, Integer> expected = TextAnalysis.calculateWordFrequencies(sourceFile);
+				for (long chunkSize : new long[] {1, 7, 64, 1000}) {
+					WordCounter counts = pool.invoke(new WordCountTask(sourceFile, 0, sourceFile.length(), chunkSize));
+					assertEquals(expected, new HashMap<String, Integer>(counts), "trial " + trial + ", " + chunkSize);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	@Test
+	void largeFileMatchesTheSequentialCount() throws IOException {
+		File sourceFile = writeText(new Random(44), "large.txt", 600_000);			//several default-sized chunks
+		Map<String, Integer> expected = TextAnalysis.calculateWordFrequencies(sourceFile);
+		assertEquals(expected, new HashMap<String, Integer>(TextAnalysis.countWordFrequenciesParallel(sourceFile)));
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			assertEquals(expected,
+					new HashMap<String, Integer>(TextAnalysis.countWordFrequenciesParallel(sourceFile, pool)));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	@Test
+	void missingFileIsReported() {
+		assertThrows(FileNotFoundException.class,
+				() -> TextAnalysis.countWordFrequenciesParallel(new File(directory, "missing.txt")));
+	}
+
+
+	/**
+	 * Writes random words and separators, including runs with no whitespace at all.
+	 * @param random the source of randomness
+	 * @param name the file's name
+	 * @param words the number of words
+	 * @return the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private File writeText(Random random, String name, int words) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+			if (random.nextInt(50) != 0) {
+				text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+			}
+		}
+		File sourceFile = new File(directory, name);
+		Files.write(sourceFile.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+		return sourceFile;
+	}
+}
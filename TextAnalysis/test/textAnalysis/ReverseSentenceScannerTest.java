@@ -0,0 +1,75 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that scanning a file backwards finds the sentence {@link TextAnalysis#lastOccurrence} finds scanning it
+ * forwards, with blocks small enough to cut every sentence, word and multi-byte character.
+ * @author Leo Mishlove
+ *
+ */
+class ReverseSentenceScannerTest {
+
+	private static final int[] BLOCK_SIZES = {1, 2, 3, 7, 64, ReverseSentenceScanner.DEFAULT_BLOCK_SIZE};
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesScanningForwards() throws IOException {
+		List<String> queries = new ArrayList<String>(Arrays.asList(SentenceTexts.QUERIES));
+		queries.add("");												//a sentence with an empty piece contains it
+		Random random = new Random(24);
+		for (int trial = 0; trial < 40; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(300));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			for (String word : queries) {
+				String expected = TextAnalysis.lastOccurrence(sourceFile, word);
+				String context = "trial " + trial + ": '" + word + "'";
+				assertEquals(expected, TextAnalysis.lastOccurrenceReverse(sourceFile, word), context);
+				for (int blockSize : BLOCK_SIZES) {
+					assertEquals(expected, ReverseSentenceScanner.lastOccurrence(sourceFile, word, blockSize),
+							context + ", block " + blockSize);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void sentenceDelimitersAtTheEdges() throws IOException {
+		String[] texts = {"", ".", "the", "the.", ".the", "the..", "x. the! y? the", "the?\n", "cat. the the. "};
+		for (String text : texts) {
+			File sourceFile = SentenceTexts.write(new File(directory, "edge.txt"), text);
+			for (String word : new String[] {"the", "x", ""}) {
+				String expected = TextAnalysis.lastOccurrence(sourceFile, word);
+				for (int blockSize : BLOCK_SIZES) {
+					assertEquals(expected, ReverseSentenceScanner.lastOccurrence(sourceFile, word, blockSize),
+							"'" + text + "': '" + word + "', block " + blockSize);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void rejectsInvalidArguments() {
+		File missing = new File(directory, "missing.txt");
+		assertThrows(IllegalArgumentException.class, () -> ReverseSentenceScanner.lastOccurrence(missing, "the", 0));
+		assertThrows(IllegalArgumentException.class, () -> ReverseSentenceScanner.lastOccurrence(missing, "the", -1));
+		assertThrows(FileNotFoundException.class, () -> TextAnalysis.lastOccurrenceReverse(missing, "the"));
+	}
+}
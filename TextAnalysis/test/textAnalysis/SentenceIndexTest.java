@@ -0,0 +1,54 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks that a {@link SentenceIndex} answers every query as a scan of the file does: its last occurrence as
+ * {@link TextAnalysis#lastOccurrence}, and its first, all and count from the same sentences in the same order.
+ * @author Leo Mishlove
+ *
+ */
+class SentenceIndexTest {
+
+	@TempDir
+	File directory;
+
+
+	@Test
+	void matchesScanningTheFile() throws IOException {
+		Random random = new Random(7);
+		for (int trial = 0; trial < 60; trial++) {
+			String text = SentenceTexts.randomText(random, random.nextInt(300));
+			File sourceFile = SentenceTexts.write(new File(directory, "text" + trial + ".txt"), text);
+			try (SentenceIndex index = TextAnalysis.buildSentenceIndex(sourceFile)) {
+				for (String word : SentenceTexts.QUERIES) {
+					String context = "trial " + trial + ": " + word;
+					List<String> expected = SentenceTexts.sentencesContaining(text, word);
+					assertEquals(expected, index.allOccurrences(word), context);
+					assertEquals(expected.size(), index.countOccurrences(word), context);
+					assertEquals(expected.isEmpty() ? "" : expected.get(0), index.firstOccurrence(word), context);
+					assertEquals(TextAnalysis.lastOccurrence(sourceFile, word), index.lastOccurrence(word), context);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	void emptyFileHasNoSentences() throws IOException {
+		File sourceFile = SentenceTexts.write(new File(directory, "empty.txt"), "");
+		try (SentenceIndex index = SentenceIndex.build(sourceFile)) {
+			assertEquals(0, index.getSentenceCount());
+			assertEquals("", index.lastOccurrence("the"));
+			assertEquals(0, index.allOccurrences("the").size());
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package textAnalysis;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Random texts for the sentence searches' tests, and the sentences containing a word found the slow way: split at
+ * ., ? and ! as lastOccurrence's Scanner does, and each sentence split at \s and compared word by word as
+ * containsWord does.
+ * @author Leo Mishlove
+ *
+ */
+final class SentenceTexts {
+
+	/* words (some with punctuation that ends a sentence inside them) and separators the texts are built from */
+	private static final String[] WORDS = {
+			"the", "The", "THE,", "cat", "\"dog\"", "ran.", "why?", "stop!", "e.g.", "3.14", "naïve", "Ünïcode",
+			"日本語", "’quoted’", "don't", "--", "...", "end.Next", "x"
+	};
+	private static final String[] SEPARATORS = {" ", " ", " ", " ", "\n", "\t", "  ", "\r\n", "\u000B", "\f"};
+
+	/** words worth searching for in the texts: common, rare, split out of a token, and absent */
+	static final String[] QUERIES = {
+			"the", "cat", "dog", "ran", "why", "stop", "e", "g", "3", "14", "naïve", "ünïcode", "日本語",
+			"quoted", "don't", "next", "end", "x", "absent", "The"
+	};
+
+
+	private SentenceTexts() {
+	}
+
+
+	/**
+	 * Builds a random text.
+	 * @param random the source of randomness
+	 * @param words the number of words
+	 * @return the text
+	 */
+	static String randomText(Random random, int words) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			text.append(WORDS[random.nextInt(WORDS.length)]).append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+		}
+		if (random.nextBoolean() && text.length() > 0) {
+			text.setLength(text.length() - 1);				//sometimes end inside a word
+		}
+		return text.toString();
+	}
+
+
+	/**
+	 * Writes a text to a file in UTF-8.
+	 * @param file the file
+	 * @param text the text
+	 * @return the file
+	 * @throws IOException if the file cannot be written
+	 */
+	static File write(File file, String text) throws IOException {
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+
+	/**
+	 * Finds the sentences of a text that contain a word.
+	 * @param text the text
+	 * @param word the compatible-format word
+	 * @return the sentences containing the word, in order
+	 */
+	static List<String> sentencesContaining(String text, String word) {
+		List<String> sentences = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i <= text.length(); i++) {
+			if (i == text.length() || text.charAt(i) == '.' || text.charAt(i) == '?' || text.charAt(i) == '!') {
+				String sentence = text.substring(start, i);
+				if (!(i == text.length() && sentence.isEmpty()) && contains(sentence, word)) {
+					sentences.add(sentence);
+				}
+				start = i + 1;
+			}
+		}
+		return sentences;
+	}
+
+
+	/**
+	 * @param text the text
+	 * @param word the compatible-format word
+	 * @return the last sentence containing the word, or the empty string if none does
+	 */
+	static String lastSentenceContaining(String text, String word) {
+		List<String> sentences = sentencesContaining(text, word);
+		return sentences.isEmpty() ? "" : sentences.get(sentences.size() - 1);
+	}
+
+
+	/**
+	 * @param sentence a sentence
+	 * @param word the compatible-format word
+	 * @return true if a \s-delimited piece of the sentence converts to the word
+	 */
+	private static boolean contains(String sentence, String word) {
+		for (String piece : sentence.split("\\s")) {
+			if (TextAnalysis.convertWordToCompatible(piece).equals(word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
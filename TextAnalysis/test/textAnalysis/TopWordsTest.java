@@ -0,0 +1,100 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks the heap, quickselect and parallel top-K selections of {@link TopWords} against a full sort of the map, the
+ * way the original findMostFrequentWords ranked words (highest count first), with ties listed alphabetically.
+ * @author Leo Mishlove
+ *
+ */
+class TopWordsTest {
+
+	@Test
+	void matchesAFullSortForEveryCutoff() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 200; trial++) {
+			Map<String, Integer> hashMap = randomFrequencies(random, random.nextInt(300));
+			WordCounter counter = new WordCounter();
+			counter.putAll(hashMap);
+			int size = hashMap.size();
+			for (int wordsDesired : new int[] {0, 1, 2, 7, 30, size / 2, size, size + 1}) {
+				List<String> expected = sortedWords(hashMap, wordsDesired);
+				assertEquals(expected, TextAnalysis.findMostFrequentWords(hashMap, wordsDesired));
+				assertEquals(expected, TextAnalysis.findMostFrequentWords(counter, wordsDesired));
+				assertEquals(expected, TextAnalysis.findMostFrequentWordsParallel(hashMap, wordsDesired));
+				assertEquals(expected, TextAnalysis.findMostFrequentWordsParallel(counter, wordsDesired));
+			}
+		}
+	}
+
+
+	@Test
+	void cutoffLargerThanTheMapReturnsEveryWord() {
+		HashMap<String, Integer> wordFrequencies = new HashMap<String, Integer>();
+		wordFrequencies.put("b", 1);
+		wordFrequencies.put("a", 1);
+		WordCounter counter = new WordCounter();
+		counter.putAll(wordFrequencies);
+		for (int wordsDesired : new int[] {3, 50_000_000, Integer.MAX_VALUE}) {
+			assertEquals(Arrays.asList("a", "b"), TextAnalysis.findMostFrequentWords(wordFrequencies, wordsDesired));
+			assertEquals(Arrays.asList("a", "b"), TextAnalysis.findMostFrequentWordsParallel(wordFrequencies,
+					wordsDesired));
+			assertEquals(Arrays.asList("a", "b"), TextAnalysis.findMostFrequentWordsParallel(counter, wordsDesired));
+		}
+	}
+
+
+	@Test
+	void largeVocabularyInParallelMatchesSequential() {
+		Map<String, Integer> wordFrequencies = randomFrequencies(new Random(55), 50_000);
+		WordCounter counter = new WordCounter();
+		counter.putAll(wordFrequencies);
+		for (int wordsDesired : new int[] {1, 10, 1000, 6000}) {
+			List<String> expected = sortedWords(wordFrequencies, wordsDesired);
+			assertEquals(expected, TextAnalysis.findMostFrequentWordsParallel(wordFrequencies, wordsDesired));
+			assertEquals(expected, TextAnalysis.findMostFrequentWordsParallel(counter, wordsDesired));
+		}
+	}
+
+
+	/**
+	 * Builds a map with many tied counts, so that the alphabetical tie-break decides most of the order.
+	 * @param random the source of randomness
+	 * @param size the number of words
+	 * @return the map
+	 */
+	private static Map<String, Integer> randomFrequencies(Random random, int size) {
+		Map<String, Integer> wordFrequencies = new HashMap<String, Integer>();
+		while (wordFrequencies.size() < size) {
+			wordFrequencies.put(Integer.toString(random.nextInt(size * 4 + 1), 36), 1 + random.nextInt(20));
+		}
+		return wordFrequencies;
+	}
+
+
+	/**
+	 * @param wordFrequencies a map containing (word, frequency) pairs
+	 * @param wordsDesired the cutoff point for the number of most frequent words
+	 * @return the words sorted by descending frequency and then alphabetically, cut off after [wordsDesired]
+	 */
+	private static List<String> sortedWords(Map<String, Integer> wordFrequencies, int wordsDesired) {
+		return new ArrayList<Map.Entry<String, Integer>>(wordFrequencies.entrySet()).stream()
+				.sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+						.thenComparing(Map.Entry.comparingByKey()))
+				.limit(wordsDesired)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+	}
+}
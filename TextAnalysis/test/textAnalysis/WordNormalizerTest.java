@@ -0,0 +1,132 @@
+package textAnalysis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that {@link WordNormalizer} gives exactly the word {@link TextAnalysis#convertWordToCompatible} gives, from
+ * chars and from UTF-8 bytes, which the counters, the sentence index and the multi-word and reverse searches rely on.
+ * @author Leo Mishlove
+ *
+ */
+class WordNormalizerTest {
+
+	private static final String[] TOKENS = {
+			"", "word", "Word,", "\"Word", "WORD.\"", "(word)", "word's", "'word'", "don't", "rock'n'roll", "''",
+			"...", "--", "\"", "?!", "-", "123", "3.14", "#1", "a-b", "Éclair,", "ÉCLAIR", "naïve", "Straße",
+			"STRASSE", "İstanbul", "ΣΟΦΊΑ", "Привет!", "日本語", "«quoted»", "—dash—", " word ",
+			"😀word😀", "𝐀bc", "x😀y", "\uD800", "a\uDC00b"
+	};
+
+	/* characters the random tokens are built from: ASCII, punctuation, accented, non-Latin and supplementary */
+	private static final String[] ALPHABET = {
+			"a", "Z", "q", "0", "9", "'", "\"", ".", ",", "-", "!", "?", "(", "_", "é", "É", "ß", "İ", "ı", "Σ",
+			"ς", "Ж", "日", "«", "—", " ", "😀", "𝐀", "́"
+	};
+
+
+	@Test
+	void matchesConvertWordToCompatibleOnChars() {
+		WordNormalizer normalizer = new WordNormalizer();
+		for (String token : TOKENS) {
+			assertEquals(TextAnalysis.convertWordToCompatible(token), normalizeChars(normalizer, token), token);
+		}
+	}
+
+
+	@Test
+	void matchesConvertWordToCompatibleOnBytes() {
+		WordNormalizer normalizer = new WordNormalizer();
+		for (String token : TOKENS) {
+			byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+			assertEquals(TextAnalysis.convertWordToCompatible(new String(bytes, StandardCharsets.UTF_8)),
+					normalizeBytes(normalizer, bytes), token);
+		}
+	}
+
+
+	@Test
+	void matchesConvertWordToCompatibleOnMalformedBytes() {
+		byte[][] malformed = {
+				{'a', (byte) 0xC3},									//truncated two-byte sequence
+				{(byte) 0x80, 'w', 'o', 'r', 'd'},					//stray continuation byte
+				{'w', (byte) 0xC0, (byte) 0xAF, 'd'},				//overlong '/'
+				{(byte) 0xED, (byte) 0xA0, (byte) 0x80, 'x'},		//encoded surrogate
+				{(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},	//above U+10FFFF
+				{'A', (byte) 0xFF, 'B'}
+		};
+		WordNormalizer normalizer = new WordNormalizer();
+		for (byte[] bytes : malformed) {
+			assertEquals(TextAnalysis.convertWordToCompatible(new String(bytes, StandardCharsets.UTF_8)),
+					normalizeBytes(normalizer, bytes));
+		}
+	}
+
+
+	@Test
+	void matchesConvertWordToCompatibleOnRandomTokens() {
+		Random random = new Random(6);
+		WordNormalizer normalizer = new WordNormalizer();
+		for (int i = 0; i < 100_000; i++) {
+			StringBuilder token = new StringBuilder();
+			int length = random.nextInt(12);
+			for (int j = 0; j < length; j++) {
+				token.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+			}
+			String expected = TextAnalysis.convertWordToCompatible(token.toString());
+			assertEquals(expected, normalizeChars(normalizer, token.toString()), token.toString());
+			assertEquals(expected, normalizeBytes(normalizer, token.toString().getBytes(StandardCharsets.UTF_8)),
+					token.toString());
+		}
+	}
+
+
+	@Test
+	void matchesConvertWordToCompatibleInTurkishLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			WordNormalizer normalizer = new WordNormalizer();
+			for (String token : new String[] {"TITLE", "Istanbul", "İstanbul", "ıi", "word"}) {
+				assertEquals(TextAnalysis.convertWordToCompatible(token), normalizeChars(normalizer, token), token);
+				assertEquals(TextAnalysis.convertWordToCompatible(token),
+						normalizeBytes(normalizer, token.getBytes(StandardCharsets.UTF_8)), token);
+			}
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+
+	/**
+	 * Normalizes a token placed in the middle of a larger array, so that the start and end indices are exercised.
+	 * @param normalizer the normalizer
+	 * @param token the token
+	 * @return the normalized word
+	 */
+	private static String normalizeChars(WordNormalizer normalizer, String token) {
+		char[] text = ("x " + token + " y").toCharArray();
+		int length = normalizer.normalize(text, 2, 2 + token.length());
+		return new String(normalizer.getChars(), 0, length);
+	}
+
+
+	/**
+	 * Normalizes a token's bytes placed in the middle of a larger buffer, as the mapped tokenizer passes them.
+	 * @param normalizer the normalizer
+	 * @param bytes the token's bytes
+	 * @return the normalized word
+	 */
+	private static String normalizeBytes(WordNormalizer normalizer, byte[] bytes) {
+		ByteBuffer text = ByteBuffer.allocate(bytes.length + 4);
+		text.put(0, new byte[] {'x', ' '}).put(2, bytes).put(bytes.length + 2, new byte[] {' ', 'y'});
+		int length = normalizer.normalize(text, 2, 2 + bytes.length);
+		return new String(normalizer.getChars(), 0, length);
+	}
+}
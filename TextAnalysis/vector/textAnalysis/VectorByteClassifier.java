@@ -0,0 +1,55 @@
+package textAnalysis;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Classifies a whole SIMD register of bytes per step (32 with AVX2, 64 with AVX-512) with the incubating Vector API.
+ * This source root needs the jdk.incubator.vector module to compile and run:
+ *   javac --add-modules jdk.incubator.vector -cp [classes of src] -d [classes] vector/textAnalysis/*.java
+ *   java --add-modules jdk.incubator.vector ...
+ * {@link MappedTokenizer} loads this class reflectively when the module is present and the class is on the class
+ * path, and otherwise uses {@link ScalarByteClassifier}, which it also uses here for the tail shorter than a vector.
+ * @author Leo Mishlove
+ *
+ */
+final class VectorByteClassifier implements ByteClassifier {
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+	private final ScalarByteClassifier tail = new ScalarByteClassifier();
+
+
+	@Override
+	public int skipTokenBytes(ByteBuffer text, int from, int to) {
+		int i = from;
+		for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+			ByteVector bytes = ByteVector.fromByteBuffer(SPECIES, text, i, ByteOrder.nativeOrder());
+			VectorMask<Byte> stops = bytes.lt((byte) 0x21);				//signed: non-ASCII bytes are negative
+			if (stops.anyTrue()) {
+				return i + stops.firstTrue();
+			}
+		}
+		return tail.skipTokenBytes(text, i, to);
+	}
+
+
+	@Override
+	public int skipWordBytes(ByteBuffer text, int from, int to) {
+		int i = from;
+		for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+			ByteVector bytes = ByteVector.fromByteBuffer(SPECIES, text, i, ByteOrder.nativeOrder());
+			VectorMask<Byte> stops = bytes.lt((byte) 0x22).andNot(bytes.lt((byte) 0))	//ASCII below '"'
+					.or(bytes.eq((byte) '.'))
+					.or(bytes.eq((byte) '?'));
+			if (stops.anyTrue()) {
+				return i + stops.firstTrue();
+			}
+		}
+		return tail.skipWordBytes(text, i, to);
+	}
+}